@@ -1,9 +1,10 @@
 package com.frejt.piet.command;
 
-import java.util.UUID;
-
+import com.frejt.piet.controller.Program;
 import com.frejt.piet.exception.PietCommandNotFoundException;
-import com.frejt.piet.utils.Block;
+import com.frejt.piet.utils.color.PietColor;
+import com.frejt.piet.utils.color.PietHue;
+import com.frejt.piet.utils.color.PietLight;
 
 /**
  * †Commands are defined by the transition of colour from one colour block to hte
@@ -14,114 +15,47 @@ import com.frejt.piet.utils.Block;
  */
 public enum Command implements CommandInterface {
     
-    NOP("nop", 0, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.nop(uuid, older, newer);
-        }
-    },
-    PUSH("push", 0, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.push(uuid, older, newer);
-        }
-    },
-    POP("pop", 0, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.pop(uuid, older, newer);
-        }
-    },
-    ADD("add", 1, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.add(uuid, older, newer);
-        }
-    },
-    SUB("subtract", 1, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.subtract(uuid, older, newer);
-        }
-    },
-    MULT("multiply", 1, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.multiply(uuid, older, newer);
-        }
-    },
-    DIV("divide", 2, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.divide(uuid, older, newer);
-        }
-    },
-    MOD("modulus", 2, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.modulus(uuid, older, newer);
-        }
-    },
-    NOT("not", 2, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.not(uuid, older, newer);
-        }
-    },
-    GREATER("greater", 3, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.greater(uuid, older, newer);
-        }
-    },
-    POINTER("dp_pointer", 3, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.dp(uuid, older, newer);
-        }
-    },
-    SWITCH("switch", 3, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.cc(uuid, older, newer);
-        }
-    },
-    DUP("duplicate", 4, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.duplicate(uuid, older, newer);
-        }
-    },
-    ROLL("roll", 4, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.roll(uuid, older, newer);
-        }
-    },
-    IN_NUM("in_num", 4, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.inNum(uuid, older, newer);
-        }
-    },
-    IN_CHAR("in_char", 5, 0) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.inChar(uuid, older, newer);
-        }
-    },
-    OUT_NUM("out_num", 5, 1) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.outNum(uuid, older, newer);
-        }
-    },
-    OUT_CHAR("out_char", 5, 2) {
-        @Override
-        public void calculate(UUID uuid, Block older, Block newer) {
-            CommandController.outChar(uuid, older, newer);
+    NOP("nop", 0, 0),
+    PUSH("push", 0, 1),
+    POP("pop", 0, 2),
+    ADD("add", 1, 0),
+    SUB("subtract", 1, 1),
+    MULT("multiply", 1, 2),
+    DIV("divide", 2, 0),
+    MOD("modulus", 2, 1),
+    NOT("not", 2, 2),
+    GREATER("greater", 3, 0),
+    POINTER("dp_pointer", 3, 1),
+    SWITCH("switch", 3, 2),
+    DUP("duplicate", 4, 0),
+    ROLL("roll", 4, 1),
+    IN_NUM("in_num", 4, 2),
+    IN_CHAR("in_char", 5, 0),
+    OUT_NUM("out_num", 5, 1),
+    OUT_CHAR("out_char", 5, 2);
+
+    private static final Command[] COMMANDS = values();
+
+    private static final int COLORS = PietColor.values().length;
+
+    /**
+     * The Command ran when moving from one color to another, indexed by
+     * <code>older.ordinal() * COLORS + newer.ordinal()</code>, or null where no
+     * Command exists
+     */
+    private static final Command[] TRANSITIONS = new Command[COLORS * COLORS];
+
+    static {
+        for(PietColor older : PietColor.values()) {
+            for(PietColor newer : PietColor.values()) {
+                try {
+                    TRANSITIONS[older.ordinal() * COLORS + newer.ordinal()] = findCommand(older, newer);
+                } catch(PietCommandNotFoundException e) {
+                    // left null, there's no command for this transition
+                }
+            }
         }
-    };
+    }
 
     private String name;
     private Integer hue;
@@ -145,8 +79,119 @@ public enum Command implements CommandInterface {
         return this.light;
     }
 
+    /**
+     * Runs the Command against the program.
+     * 
+     * Every Command is dispatched from this one method, rather than each overriding
+     * it, so that the call stays cheap no matter how many different Commands a
+     * program runs.
+     * 
+     * @param program the program the Command is ran against
+     * @param size    the size of the Block being exited
+     */
+    @Override
+    public void calculate(Program program, int size) {
+        switch(this) {
+            case NOP:
+                CommandController.nop(program);
+                break;
+            case PUSH:
+                CommandController.push(program, size);
+                break;
+            case POP:
+                CommandController.pop(program);
+                break;
+            case ADD:
+                CommandController.add(program);
+                break;
+            case SUB:
+                CommandController.subtract(program);
+                break;
+            case MULT:
+                CommandController.multiply(program);
+                break;
+            case DIV:
+                CommandController.divide(program);
+                break;
+            case MOD:
+                CommandController.modulus(program);
+                break;
+            case NOT:
+                CommandController.not(program);
+                break;
+            case GREATER:
+                CommandController.greater(program);
+                break;
+            case POINTER:
+                CommandController.dp(program);
+                break;
+            case SWITCH:
+                CommandController.cc(program);
+                break;
+            case DUP:
+                CommandController.duplicate(program);
+                break;
+            case ROLL:
+                CommandController.roll(program);
+                break;
+            case IN_NUM:
+                CommandController.inNum(program);
+                break;
+            case IN_CHAR:
+                CommandController.inChar(program);
+                break;
+            case OUT_NUM:
+                CommandController.outNum(program);
+                break;
+            case OUT_CHAR:
+                CommandController.outChar(program);
+                break;
+        }
+    }
+
+    /**
+     * Finds the Command for moving from one color to another.
+     * 
+     * @param older the color of the block being exited
+     * @param newer the color of the block being entered
+     * @return the Command to be ran for the transition
+     * @throws PietCommandNotFoundException if either color is not part of the cycles
+     */
+    public static Command getCommand(PietColor older, PietColor newer) throws PietCommandNotFoundException {
+
+        Command command = TRANSITIONS[older.ordinal() * COLORS + newer.ordinal()];
+        if(command == null) {
+            throw new PietCommandNotFoundException("No command moves from " + older + " to " + newer);
+        }
+
+        return command;
+    }
+
+    /**
+     * Finds the Command for moving from one color to another, based on how many
+     * steps along the Hue Cycle and Lightness Cycle the move takes.
+     * 
+     * @param older the color of the block being exited
+     * @param newer the color of the block being entered
+     * @return the Command to be ran for the transition
+     * @throws PietCommandNotFoundException if either color is not part of the cycles
+     */
+    private static Command findCommand(PietColor older, PietColor newer) throws PietCommandNotFoundException {
+
+        PietHue olderHue = older.getHue();
+        PietLight olderLight = older.getLight();
+
+        PietHue newerHue = newer.getHue();
+        PietLight newerLight = newer.getLight();
+
+        Integer hueChange = Math.floorMod(newerHue.getValue() - olderHue.getValue(), 6);
+        Integer lightChange = Math.floorMod(newerLight.getValue() - olderLight.getValue(), 3);
+
+        return getCommand(hueChange, lightChange);
+    }
+
     public static Command getCommand(Integer hue, Integer light) throws PietCommandNotFoundException {
-        for (Command command : Command.values()) {
+        for (Command command : COMMANDS) {
             if (hue == command.getHue()) {
                 if (light == command.getLight()) {
                     return command;
@@ -1,14 +1,10 @@
 package com.frejt.piet.command;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.util.Stack;
-import java.util.UUID;
 
 import com.frejt.piet.controller.Program;
-import com.frejt.piet.controller.Programmer;
-import com.frejt.piet.utils.Block;
+import com.frejt.piet.utils.PietStack;
 
 /**
  * List of functions describing what happens when the program encounters a
@@ -18,6 +14,9 @@ import com.frejt.piet.utils.Block;
  * enough are on the stack) are simply ignored, and processing continues with
  * the next command.
  * 
+ * The arithmetic itself is carried out by the program's {@link PietStack}, which
+ * decides how values that overflow are handled.
+ * 
  * @see CommandInterface
  * @see CommandRunner
  * @see Command
@@ -27,14 +26,11 @@ public class CommandController {
     /**
      * Does nothing and returns the stack.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> nop(UUID uuid, Block older, Block newer) {
+    public static PietStack nop(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
         return program.getStack();
 
     }
@@ -45,19 +41,15 @@ public class CommandController {
      * Note that values of colour blocks are not automatically pushed on to the
      * stack - this push operation must be explicitly carried out
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
+     * @param size    the size of the block being exited
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> push(UUID uuid, Block older, Block newer) {
+    public static PietStack push(Program program, int size) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
-        Integer in = older.getSize();
-
-        stack.push(in);
+        stack.push(size);
         return stack;
     
     }
@@ -65,15 +57,12 @@ public class CommandController {
     /**
      * †Pops the top value off the stack and discards it.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> pop(UUID uuid, Block older, Block newer) {
+    public static PietStack pop(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
 
         if(stack.size() == 0) {
             return stack;
@@ -87,23 +76,18 @@ public class CommandController {
      * †Pops the top two values off the stack, adds them, and pushes the result back
      * on the stack
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> add(UUID uuid, Block older, Block newer) {
+    public static PietStack add(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
        
         if(stack.size() < 2) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-        stack.push(bottom + top);
+        stack.add();
 
         return stack;
     }
@@ -112,23 +96,18 @@ public class CommandController {
      * †Pops the top two values off the stack, calculates the second top value minus
      * the top value, and pushes the result back on the stack
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> subtract(UUID uuid, Block older, Block newer) {
+    public static PietStack subtract(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-        stack.push(bottom - top);
+        stack.subtract();
 
         return stack;
     }
@@ -137,24 +116,18 @@ public class CommandController {
      * †Pops the top two values off the stack, multiplies them, and pushes the result
      * back on the stack.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> multiply(UUID uuid, Block older, Block newer) {
+    public static PietStack multiply(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-
-        stack.push(bottom * top);
+        stack.multiply();
 
         return stack;
     }
@@ -166,24 +139,18 @@ public class CommandController {
      * If a divide by zero occurs, it is handled as an implementation-dependent
      * error, though simply ignoring the command is recommended
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> divide(UUID uuid, Block older, Block newer) {
+    public static PietStack divide(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2 || stack.peek() == 0) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-
-        stack.push(bottom / top);
+        stack.divide();
 
         return stack;
     }
@@ -198,25 +165,18 @@ public class CommandController {
      * as an implementation-dependent error, though simply ignoring the commmand is
      * recommended.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> modulus(UUID uuid, Block older, Block newer) {
+    public static PietStack modulus(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2 || stack.peek() == 0) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-
-        Integer mod = correctMod(bottom, top);
-        stack.push(mod);
+        stack.mod();
 
         return stack;
     }
@@ -225,26 +185,18 @@ public class CommandController {
      * †Replaces the top value of the stack with 0 if it is non-zero, and 1 if it is
      * 0.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> not(UUID uuid, Block older, Block newer) {
+    public static PietStack not(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        if (top == 0) {
-            stack.push(1);
-        } else {
-            stack.push(0);
-        }
+        stack.not();
 
         return stack;
     }
@@ -254,28 +206,18 @@ public class CommandController {
      * second top value is greater than the top value, and pushes 0 if it is not
      * greater.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> greater(UUID uuid, Block older, Block newer) {
+    public static PietStack greater(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-
-        if (bottom > top) {
-            stack.push(1);
-        } else {
-            stack.push(0);
-        }
+        stack.greater();
 
         return stack;
     }
@@ -284,21 +226,19 @@ public class CommandController {
      * †Pops the top value off the stack and rotates the DP clockwise that many steps
      * (anticlockwise if negative).
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> dp(UUID uuid, Block older, Block newer) {
+    public static PietStack dp(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        Integer top = stack.pop();
+        // only the value modulo 4 matters, which survives truncating to an int
+        int top = (int) stack.pop();
         program.getDirector().rotateDP(top);
 
         return stack;
@@ -308,21 +248,18 @@ public class CommandController {
      * †Pops the top value off the stack and toggles the CC that many times (the
      * absolute value of that many times if negative).
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> cc(UUID uuid, Block older, Block newer) {
+    public static PietStack cc(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        Integer top = stack.pop();
+        int top = (int) stack.pop();
         program.getDirector().rotateCC(top);
 
         return stack;
@@ -331,22 +268,18 @@ public class CommandController {
     /**
      * †Pushes a copy of the top value on the stack on to the stack.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> duplicate(UUID uuid, Block older, Block newer) {
+    public static PietStack duplicate(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        Integer top = stack.peek();
-        stack.push(top);
+        stack.dup();
 
         return stack;
     }
@@ -359,77 +292,25 @@ public class CommandController {
      * A single roll to depth n is defined as burying the top value on the stack n
      * deep and bringing all values above it up by 1 place.
      * 
-     * TODO: A negative number of rolls rolls in the opposite direction. A negative depth
+     * A negative number of rolls rolls in the opposite direction. A negative depth
      * is an error and the command is ignored.
      * 
      * If a roll is greater than an implementation-dependent maximum stack depth, it
      * is handled as an implementation-dependent error,
      * though simply ignoring the command is recommended.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> roll(UUID uuid, Block older, Block newer) {
+    public static PietStack roll(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() < 2) {
             return stack;
         }
 
-        Integer top = stack.pop();
-        Integer bottom = stack.pop();
-
-        // TODO: Not sure if this works if I pop things and leave them popped
-        if (top == 0) {
-            return stack;
-        }
-
-        Boolean reverseFlag = false;
-        Integer size = stack.size();
-
-        if (top < 0) {
-            reverseFlag = true;
-            List<Integer> vals = new ArrayList<>();
-
-            for (int i = 0; i < size; i++) {
-                vals.add(stack.pop());
-            }
-            for (int i = 0; i < size; i++) {
-                stack.push(vals.get(i));
-            }
-
-            top = -top;
-        }
-
-        while (top > 0) {
-            Integer rollNum = stack.pop();
-            List<Integer> vals = new ArrayList<>();
-            for (int i = 0; i < bottom - 1; i++) {
-                vals.add(stack.pop());
-            }
-            stack.push(rollNum);
-
-            for (int i = bottom - 2; i >= 0; i--) {
-                stack.push(vals.get(i));
-            }
-            top--;
-        }
-
-        if (reverseFlag) {
-            List<Integer> vals = new ArrayList<>();
-            for (int i = 0; i < size; i++) {
-                vals.add(stack.pop());
-            }
-            for (int i = 0; i < size; i++) {
-                stack.push(vals.get(i));
-            }
-
-            reverseFlag = false;
-        }
+        stack.roll();
 
         return stack;
     }
@@ -440,22 +321,47 @@ public class CommandController {
      * 
      * If no input is waiting on STDIN, this is an error and the command is ignored.
      * 
-     * TODO: If an integer read does not receive an integer value, this is an error 
-     * and the command is ignored.
+     * If an integer read does not receive an integer value, this is an error and
+     * the command is ignored.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> inNum(UUID uuid, Block older, Block newer) {
-
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
-        
+    public static PietStack inNum(Program program) {
         try(Scanner s = new Scanner(System.in)) {
-            Integer in = s.nextInt();
-            stack.push(in);    
+            return inNum(program, s);
+        }
+    }
+
+    /**
+     * Reads a number from the given input and pushes it on to the stack.
+     *
+     * If the input is empty, or does not hold a number, the command is ignored.
+     *
+     * @param program the program whose stack is modified
+     * @param s       the input to read from
+     * @return the stack after the command has been ran
+     */
+    public static PietStack inNum(Program program, Scanner s) {
+
+        PietStack stack = program.getStack();
+
+        try {
+            switch(stack.getNumericType()) {
+                case INT32:
+                    stack.push(s.nextInt());
+                    break;
+                case INT64:
+                    stack.push(s.nextLong());
+                    break;
+                case UNBOUNDED:
+                default:
+                    stack.push(s.nextBigInteger());
+                    break;
+            }
+        } catch(NoSuchElementException e) {
+            // also thrown when the input isn't a number
+            return stack;
         }
 
         return stack;
@@ -470,21 +376,32 @@ public class CommandController {
      * If an integer read does not receive an integer value, this is an error and
      * the command is ignored.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> inChar(UUID uuid, Block older, Block newer) {
-
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
-        
+    public static PietStack inChar(Program program) {
         try(Scanner s = new Scanner(System.in)) {
-            char in = s.next().charAt(0);
-            int i = in;
+            return inChar(program, s);
+        }
+    }
 
-            stack.push(i);
+    /**
+     * Reads a character from the given input and pushes it on to the stack.
+     *
+     * If the input is empty, the command is ignored.
+     *
+     * @param program the program whose stack is modified
+     * @param s       the input to read from
+     * @return the stack after the command has been ran
+     */
+    public static PietStack inChar(Program program, Scanner s) {
+
+        PietStack stack = program.getStack();
+
+        try {
+            stack.push(s.next().charAt(0));
+        } catch(NoSuchElementException e) {
+            return stack;
         }
 
         return stack;
@@ -494,22 +411,18 @@ public class CommandController {
      * †Pops the top value off the stack and prints it to STDOUT as either a number
      * or character, depending on the particular incarnation of this command.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> outNum(UUID uuid, Block older, Block newer) {
+    public static PietStack outNum(Program program) {
 
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        Integer k = stack.pop();
-        program.getOutputBuilder().append(k);
+        stack.pop(program.getOutputBuilder());
 
         return stack;
     }
@@ -518,22 +431,18 @@ public class CommandController {
      * †Pops the top value off the stack and prints it to STDOUT as either a number
      * or character, depending on the particular incarnation of this command.
      * 
-     * @param stack the stack to modify
-     * @param older the first block to be included in the calculation
-     * @param newer the last block to be included in the calculation
+     * @param program the program whose stack is modified
      * @return the stack after the command has been ran
      */
-    public static Stack<Integer> outChar(UUID uuid, Block older, Block newer) {
-        
-        Program program = Programmer.getProgram(uuid);
-        Stack<Integer> stack = program.getStack();
+    public static PietStack outChar(Program program) {
+
+        PietStack stack = program.getStack();
         
         if(stack.size() == 0) {
             return stack;
         }
 
-        int l = stack.pop();
-        char m = (char) l;
+        char m = (char) stack.pop();
 
         program.getOutputBuilder().append(m);
 
@@ -555,17 +464,15 @@ public class CommandController {
      * - -4 mod 3 = 2
      * 
      * The mod command is thus identical to floored division in Wikipedia's page on 
-     * the modulus operation.
+     * the modulus operation, which takes the same time no matter how far the
+     * dividend is from zero.
      * 
      * @param dividend the number being "divided" in order to get the remainder
      * @param divisor  the number that is dividing
      * @return the remainder after being modded by the appropriate standard
      */
     public static Integer correctMod(int dividend, int divisor) {
-        while (dividend < 0)
-            dividend += divisor;
-
-        return dividend % divisor;
+        return Math.floorMod(dividend, divisor);
     }
 
 }
@@ -1,19 +1,15 @@
 package com.frejt.piet.command;
 
-import java.util.UUID;
-
-import com.frejt.piet.utils.Block;
+import com.frejt.piet.controller.Program;
 
 public interface CommandInterface {
 
     /**
-     * Calculates the appropriate command given the two blocks, and adds it to the stack
+     * Runs the command against the program's stack, director and output
      * 
-     * @param stack - the stack to modify 
-     * @param older - the first block to be included in the calculation
-     * @param newer - the last block to be included in the calculation
-     * @return the stack after the command has been ran
+     * @param program - the program the command is ran against
+     * @param size - the size of the block being exited
      */
-    public void calculate(UUID uuid, Block older, Block newer);
+    public void calculate(Program program, int size);
     
 }
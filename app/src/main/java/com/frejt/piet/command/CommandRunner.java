@@ -1,17 +1,12 @@
 package com.frejt.piet.command;
 
-import java.util.Stack;
-import java.util.UUID;
-
 import org.apache.logging.log4j.LogManager;
 
 import com.frejt.piet.controller.Program;
-import com.frejt.piet.controller.Programmer;
 import com.frejt.piet.exception.PietCommandNotFoundException;
 import com.frejt.piet.utils.Block;
 import com.frejt.piet.utils.BlockSet;
-import com.frejt.piet.utils.color.PietHue;
-import com.frejt.piet.utils.color.PietLight;
+import com.frejt.piet.utils.PietStack;
 
 import org.apache.logging.log4j.Logger;
 
@@ -30,15 +25,31 @@ public class CommandRunner {
 
     private Block newer;
 
-    private UUID uuid;
+    public CommandRunner(Program program) {
+        this.program = program;
+    }
 
-    public CommandRunner(UUID uuid, Stack<Integer> stack, BlockSet blocks) {
-        this.program = Programmer.getProgram(uuid);
+    public CommandRunner(Program program, BlockSet blocks) {
+        this(program);
 
         this.older = blocks.getFirst();
         this.newer = blocks.getLast();
+    }
+
+    /**
+     * Finds and performs the Command for moving from one Block to the next, so
+     * that a single runner can be reused for every step of a program.
+     * 
+     * @param older the Block being exited
+     * @param newer the Block being entered
+     */
+    public void run(Block older, Block newer) throws PietCommandNotFoundException {
+
+        this.older = older;
+        this.newer = newer;
+
+        run();
 
-        this.uuid = uuid;
     }
 
     public void run() throws PietCommandNotFoundException {
@@ -57,24 +68,7 @@ public class CommandRunner {
      */
     public Command findCommand() throws PietCommandNotFoundException {
 
-        PietHue olderHue = older.getColor().getHue();
-        PietLight olderLight = older.getColor().getLight();
-
-        PietHue newerHue = newer.getColor().getHue();
-        PietLight newerLight = newer.getColor().getLight();
-
-        Integer hueChange = newerHue.getValue() - olderHue.getValue();
-        Integer lightChange = newerLight.getValue() - olderLight.getValue();
-
-        while (hueChange < 0) {
-            hueChange += 6;
-        }
-        while (lightChange < 0) {
-            lightChange += 3;
-        }
-
-        Command command = Command.getCommand(hueChange, lightChange);
-        return command;
+        return Command.getCommand(older.getColor(), newer.getColor());
 
     }
 
@@ -86,12 +80,16 @@ public class CommandRunner {
     public void runCommand() {
 
         program.addToCommandList(command);
-        command.calculate(uuid, older, newer);
+        command.calculate(program, older.getSize());
+
+        if(!log.isDebugEnabled()) {
+            return;
+        }
 
-        Stack<Integer> stack = program.getStack();
+        PietStack stack = program.getStack();
         
         log.debug("{} \t {}. {} \t\t {}", String.format("%14s", newer.getCoords()),
-                String.format("%3s", program.getCommandList().size()), String.format("%10s", command.toString()),
+                String.format("%3s", program.getCommandCount()), String.format("%10s", command.toString()),
                 stack.toString());
 
     }
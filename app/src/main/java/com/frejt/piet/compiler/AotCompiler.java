@@ -0,0 +1,102 @@
+package com.frejt.piet.compiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Compiles a Piet program ahead of time into a standalone, runnable JAR.
+ *
+ * The JAR holds only the class generated for the program by the
+ * {@link JavaSourceGenerator} and the {@link CompiledMachine} it extends, so
+ * running it skips reading the image, finding its Blocks, and everything else
+ * the interpreter does before its first command.
+ *
+ * The JAR is ran with <code>java -jar program.jar</code>, reading any input
+ * from stdin and printing the program's output once it ends.
+ */
+public class AotCompiler {
+
+    private static final Logger log = LogManager.getLogger(AotCompiler.class);
+
+    /**
+     * The name given to the class generated for the program
+     */
+    public static final String CLASS_NAME = "PietMain";
+
+    /**
+     * Compiles the program described by the table into a runnable JAR.
+     *
+     * @param table  the transitions of the program to be compiled
+     * @param output where the JAR is written
+     * @throws PietExecutionException if the program could not be compiled, or the
+     *                                JAR could not be written
+     */
+    public static void compile(TransitionTable table, Path output) throws PietExecutionException {
+        compile(table, output, PietStack.UNBOUNDED);
+    }
+
+    /**
+     * Compiles the program described by the table into a runnable JAR, whose
+     * stack holds at most the given number of values.
+     *
+     * @param table    the transitions of the program to be compiled
+     * @param output   where the JAR is written
+     * @param maxDepth the most values the program's stack may hold, or
+     *                 {@link PietStack#UNBOUNDED}
+     * @throws PietExecutionException if the program could not be compiled, or the
+     *                                JAR could not be written
+     */
+    public static void compile(TransitionTable table, Path output, int maxDepth) throws PietExecutionException {
+
+        JavaSourceGenerator generator = new JavaSourceGenerator(table, CLASS_NAME, maxDepth);
+        byte[] program = JitCompiler.compile(generator);
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, generator.getQualifiedName());
+
+        try(OutputStream file = Files.newOutputStream(output);
+                JarOutputStream jar = new JarOutputStream(file, manifest)) {
+
+            writeEntry(jar, generator.getQualifiedName(), program);
+            writeEntry(jar, CompiledMachine.class.getName(), readClass(CompiledMachine.class));
+
+        } catch(IOException e) {
+            throw new PietExecutionException("Could not write the compiled program to " + output + ": " + e.getMessage());
+        }
+
+        log.info("Compiled program to " + output);
+    }
+
+    private static void writeEntry(JarOutputStream jar, String className, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(className.replace('.', '/') + ".class"));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    /**
+     * Reads the class file of a class already loaded by the application.
+     */
+    private static byte[] readClass(Class<?> clazz) throws IOException {
+        try(InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            if(in == null) {
+                throw new IOException("Could not find the class file of " + clazz.getName());
+            }
+            return in.readAllBytes();
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.frejt.piet.compiler;
+
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * The base of every class generated from a Piet program by the
+ * {@link JavaSourceGenerator}.
+ *
+ * Holds the state a compiled program runs with - its current state, its stack
+ * and its input and output - so that the generated code only has to hold the
+ * program itself. Running the machine executes transitions until the program
+ * ends or its {@link #fuel} runs out, at which point it can be ran again to
+ * pick up where it stopped.
+ *
+ * The helpers here carry the same semantics as the
+ * {@link com.frejt.piet.command.CommandController} commands they stand in for.
+ * This class is kept free of any other application class so that it can be
+ * packaged alongside a program compiled ahead of time.
+ */
+public abstract class CompiledMachine implements Runnable {
+
+    /**
+     * The state of a machine whose program has ended
+     */
+    public static final int HALTED = -1;
+
+    /**
+     * The state the machine is currently in, numbered by the generator
+     */
+    public int state;
+
+    public int[] stack = new int[16];
+
+    /**
+     * The number of values on the {@link #stack}
+     */
+    public int size;
+
+    /**
+     * The most values the {@link #stack} may hold, pushes onto a full stack are
+     * ignored
+     */
+    public int maxDepth = Integer.MAX_VALUE;
+
+    public StringBuilder out = new StringBuilder();
+
+    public Scanner in;
+
+    /**
+     * The value taken by the last successful {@link #readNumber()} or
+     * {@link #readChar()}
+     */
+    protected int read;
+
+    /**
+     * The number of transitions the machine may still take before returning
+     */
+    public long fuel = Long.MAX_VALUE;
+
+    public boolean isHalted() {
+        return state == HALTED;
+    }
+
+    /**
+     * Rotates the DP of a packed direction clockwise by the given number of steps
+     * (anticlockwise if negative).
+     */
+    protected static int pointer(int direction, int steps) {
+        return Math.floorMod((direction >> 1) + steps, 4) << 1 | (direction & 1);
+    }
+
+    /**
+     * Toggles the CC of a packed direction the given number of times.
+     */
+    protected static int toggle(int direction, int times) {
+        return direction ^ Math.floorMod(times, 2);
+    }
+
+    /**
+     * @see com.frejt.piet.utils.PietStack#mod()
+     */
+    protected static int mod(int dividend, int divisor) {
+        return Math.floorMod(dividend, divisor);
+    }
+
+    /**
+     * Pops the number of rolls and the depth off the stack, and rolls the rest of
+     * the stack in place.
+     *
+     * @see com.frejt.piet.command.CommandController#roll
+     * @return the number of values left on the stack
+     */
+    protected static int roll(int[] stack, int size) {
+
+        if(size < 2) {
+            return size;
+        }
+
+        int rolls = stack[--size];
+        int depth = stack[--size];
+
+        if(depth <= 0 || depth > size) {
+            return size;
+        }
+
+        int turns = Math.floorMod(rolls, depth);
+        if(turns != 0) {
+            int bottom = size - depth;
+            reverse(stack, bottom, size);
+            reverse(stack, bottom, bottom + turns);
+            reverse(stack, bottom + turns, size);
+        }
+
+        return size;
+    }
+
+    /**
+     * Reads a number from the input into {@link #read}.
+     *
+     * @see com.frejt.piet.command.CommandController#inNum
+     * @return false if the input was empty or held no number, and the command is
+     *         ignored
+     */
+    protected boolean readNumber() {
+        try {
+            read = input().nextInt();
+        } catch(NoSuchElementException e) {
+            // also thrown when the input isn't a number
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a character from the input into {@link #read}.
+     *
+     * @see com.frejt.piet.command.CommandController#inChar
+     * @return false if the input was empty, and the command is ignored
+     */
+    protected boolean readChar() {
+        try {
+            read = input().next().charAt(0);
+        } catch(NoSuchElementException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private Scanner input() {
+        if(in == null) {
+            in = new Scanner(System.in);
+        }
+        return in;
+    }
+
+    private static void reverse(int[] stack, int from, int to) {
+        for(int i = from, j = to - 1; i < j; i++, j--) {
+            int tmp = stack[i];
+            stack[i] = stack[j];
+            stack[j] = tmp;
+        }
+    }
+
+}
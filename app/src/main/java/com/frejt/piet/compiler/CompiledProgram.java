@@ -0,0 +1,44 @@
+package com.frejt.piet.compiler;
+
+import java.lang.invoke.MethodHandle;
+
+import com.frejt.piet.exception.PietExecutionException;
+
+/**
+ * A Piet program which has been compiled by the {@link JitCompiler} and loaded
+ * into the JVM.
+ *
+ * Each call to {@link #newMachine()} makes a fresh {@link CompiledMachine},
+ * sitting at the start of the program with an empty stack.
+ */
+public class CompiledProgram {
+
+    private JavaSourceGenerator generator;
+
+    /**
+     * The no-argument constructor of the hidden class
+     */
+    private MethodHandle constructor;
+
+    public CompiledProgram(JavaSourceGenerator generator, MethodHandle constructor) {
+        this.generator = generator;
+        this.constructor = constructor;
+    }
+
+    public JavaSourceGenerator getGenerator() {
+        return this.generator;
+    }
+
+    /**
+     * @return a new machine, ready to run the program from the start
+     * @throws PietExecutionException if the machine could not be made
+     */
+    public CompiledMachine newMachine() throws PietExecutionException {
+        try {
+            return (CompiledMachine) constructor.invokeExact();
+        } catch(Throwable e) {
+            throw new PietExecutionException("Could not create the compiled program: " + e.getMessage());
+        }
+    }
+
+}
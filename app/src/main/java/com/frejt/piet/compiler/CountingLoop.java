@@ -0,0 +1,578 @@
+package com.frejt.piet.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * A loop of {@link IrBlock}s which counts a value towards zero, and can be ran
+ * all at once rather than one time around at a time.
+ *
+ * The loop is a chain of blocks, joined by jumps, from its header to its latch,
+ * which ends in a branch back to the header. The latch's branch pops
+ * {@link Command#NOT} of some value, so the loop goes back around while the
+ * value isn't zero, and leaves once it is.
+ *
+ * Ran symbolically, each value the body works with is an affine function of the
+ * values on the stack at the start of the time around: a sum of multiples of
+ * them, plus a constant. The loop can be ran at once if, each time around:
+ * - the body leaves the stack the same height as it found it
+ * - every value the body works on is either moved along by a constant, or has
+ *   added to it some multiple of the values moved along by a constant
+ * - the value counted to zero depends only on the values moved along by a
+ *   constant, and so moves along by a constant itself
+ *
+ * Such as counting down to zero, or adding up a count as it goes. The number of
+ * times around is then known ahead of time, and the stack it leaves can be
+ * worked out directly: values moved along by a constant move along that many
+ * times over, and the values they're added to gain an arithmetic series.
+ *
+ * The loop is only ran at once when every value it would have worked with along
+ * the way fits in 32 bits, so the result never depends on how the stack handles
+ * overflow. Otherwise, the loop is left to run one time around at a time.
+ */
+public class CountingLoop {
+
+    /**
+     * The most blocks a loop may be made up of
+     */
+    public static final int MAX_BLOCKS = 16;
+
+    /**
+     * The deepest a loop may reach into the stack
+     */
+    public static final int MAX_DEPTH = 64;
+
+    private IrBlock header;
+    private IrBlock latch;
+    private IrBlock exit;
+
+    /**
+     * The direction the latch's branch leaves the Director facing as the loop
+     * ends
+     */
+    private int exitDirection;
+
+    /**
+     * The number of values, from the top of the stack, the loop works on
+     */
+    private int depth;
+
+    /**
+     * The constant added to each value each time around
+     */
+    private long[] constants;
+
+    /**
+     * For each value, the multiple of each value moved along by a constant which
+     * is added to it each time around
+     */
+    private long[][] coefficients;
+
+    /**
+     * The multiple of each value in the value counted to zero
+     */
+    private long[] condition;
+
+    private long conditionConstant;
+
+    /**
+     * The constant the value counted to zero moves along by each time around
+     */
+    private long delta;
+
+    /**
+     * The multiple of each value in every value worked with along the way, with
+     * the constant added last
+     */
+    private long[][] worked;
+
+    private CountingLoop() {
+    }
+
+    public IrBlock getHeader() {
+        return this.header;
+    }
+
+    public IrBlock getLatch() {
+        return this.latch;
+    }
+
+    public IrBlock getExit() {
+        return this.exit;
+    }
+
+    public int getExitDirection() {
+        return this.exitDirection;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Looks for a counting loop ending in the given block.
+     *
+     * @param latch the block which may branch back to the loop's header
+     * @return the loop, or null if the block doesn't end a loop which can be ran
+     *         all at once
+     */
+    public static CountingLoop find(IrBlock latch) {
+
+        if(latch.getExit() != IrBlock.Exit.BRANCH) {
+            return null;
+        }
+
+        IrBlock header = latch.getNext(0);
+        IrBlock exit = latch.getNext(1);
+        if(header == null || exit == null || header == exit) {
+            return null;
+        }
+
+        List<IrBlock> body = new ArrayList<>();
+        IrBlock block = header;
+        while(block != latch) {
+            if(block == null || body.size() >= MAX_BLOCKS || block.getExit() != IrBlock.Exit.JUMP) {
+                return null;
+            }
+            body.add(block);
+            block = block.getNext();
+        }
+        body.add(latch);
+
+        CountingLoop loop = new CountingLoop();
+        loop.header = header;
+        loop.latch = latch;
+        loop.exit = exit;
+        loop.exitDirection = latch.getDirection(1);
+
+        try {
+            return loop.analyze(body) ? loop : null;
+        } catch(ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the loop from the start of a time around until it ends, if it can be
+     * ran all at once from the given stack.
+     *
+     * @param stack the stack the loop runs on
+     * @return false if the loop can't be ran all at once, and the stack was left
+     *         unchanged
+     */
+    public boolean run(PietStack stack) {
+
+        if(stack.getMaxDepth() != PietStack.UNBOUNDED || stack.size() < depth) {
+            return false;
+        }
+
+        long[] start = new long[depth];
+        for(int i = 0; i < depth; i++) {
+            if(!stack.isLong(i)) {
+                return false;
+            }
+            start[i] = stack.peek(i);
+        }
+
+        long[] end;
+        try {
+            end = solve(start);
+        } catch(ArithmeticException e) {
+            return false;
+        }
+        if(end == null) {
+            return false;
+        }
+
+        for(int i = 0; i < depth; i++) {
+            stack.pop();
+        }
+        for(int i = depth - 1; i >= 0; i--) {
+            stack.push(end[i]);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param start the values the loop works on, from the top of the stack down
+     * @return the values the loop leaves, from the top of the stack down, or null
+     *         if the loop never ends or works with values too big along the way
+     */
+    private long[] solve(long[] start) {
+
+        long counted = conditionConstant;
+        for(int i = 0; i < depth; i++) {
+            counted = Math.addExact(counted, Math.multiplyExact(condition[i], start[i]));
+        }
+
+        // the value counted to zero must land on zero, rather than step over it
+        long remaining = Math.negateExact(counted);
+        if(remaining % delta != 0 || remaining / delta < 0) {
+            return null;
+        }
+        long times = Math.addExact(remaining / delta, 1);
+
+        // each value is start + t * rate + curve * t(t - 1) / 2 after t times around
+        long[] rates = new long[depth];
+        long[] curves = new long[depth];
+        for(int j = 0; j < depth; j++) {
+            rates[j] = constants[j];
+            for(int i = 0; i < depth; i++) {
+                rates[j] = Math.addExact(rates[j], Math.multiplyExact(coefficients[j][i], start[i]));
+                curves[j] = Math.addExact(curves[j], Math.multiplyExact(coefficients[j][i], constants[i]));
+            }
+        }
+
+        for(long[] value : worked) {
+            long first = value[depth];
+            long rate = 0;
+            long curve = 0;
+            for(int i = 0; i < depth; i++) {
+                first = Math.addExact(first, Math.multiplyExact(value[i], start[i]));
+                rate = Math.addExact(rate, Math.multiplyExact(value[i], rates[i]));
+                curve = Math.addExact(curve, Math.multiplyExact(value[i], curves[i]));
+            }
+            if(!fits(first, rate, curve, times)) {
+                return null;
+            }
+        }
+
+        long[] end = new long[depth];
+        for(int j = 0; j < depth; j++) {
+            end[j] = valueAt(start[j], rates[j], curves[j], times);
+        }
+        return end;
+    }
+
+    /**
+     * @return true if the value fits in 32 bits for every one of the given times
+     *         around
+     */
+    private static boolean fits(long first, long rate, long curve, long times) {
+
+        long largest = Math.max(magnitude(first), magnitude(valueAt(first, rate, curve, times - 1)));
+
+        if(curve != 0) {
+            // the turning point of the curve, where its steps change sign
+            long turn = Math.floorDiv(Math.negateExact(rate), curve);
+            for(long t = turn; t <= turn + 1; t++) {
+                if(t > 0 && t < times - 1) {
+                    largest = Math.max(largest, magnitude(valueAt(first, rate, curve, t)));
+                }
+            }
+        }
+
+        return largest <= Integer.MAX_VALUE;
+    }
+
+    private static long valueAt(long start, long rate, long curve, long t) {
+        long series = t % 2 == 0
+                ? Math.multiplyExact(t / 2, t - 1)
+                : Math.multiplyExact(t, (t - 1) / 2);
+        return Math.addExact(start, Math.addExact(Math.multiplyExact(t, rate), Math.multiplyExact(curve, series)));
+    }
+
+    private static long magnitude(long value) {
+        return value < 0 ? Math.negateExact(value) : value;
+    }
+
+    /**
+     * Runs the body of the loop symbolically, and works out whether it counts.
+     *
+     * @param body the blocks of the loop, from the header to the latch
+     * @return true if the loop can be ran all at once
+     */
+    private boolean analyze(List<IrBlock> body) {
+
+        Analysis analysis = new Analysis();
+
+        for(IrBlock block : body) {
+            Command[] ops = block.getOps();
+            long[] operands = block.getOperands();
+            for(int i = 0; i < ops.length; i++) {
+                if(!analysis.apply(ops[i], operands[i])) {
+                    return false;
+                }
+            }
+        }
+
+        List<Affine> stack = analysis.stack;
+        if(stack.isEmpty() || !stack.get(stack.size() - 1).negated) {
+            return false;
+        }
+        Affine counted = stack.remove(stack.size() - 1);
+
+        depth = analysis.reached;
+        if(stack.size() != depth) {
+            return false;
+        }
+
+        // each value must keep itself, unscaled, from one time around to the next
+        boolean[] moved = new boolean[depth];
+        for(int j = 0; j < depth; j++) {
+            Affine value = stack.get(depth - 1 - j);
+            if(value.negated || value.coefficients[j] != 1) {
+                return false;
+            }
+            moved[j] = true;
+            for(int i = 0; i < depth; i++) {
+                if(i != j && value.coefficients[i] != 0) {
+                    moved[j] = false;
+                }
+            }
+            analysis.track(value);
+        }
+
+        constants = new long[depth];
+        coefficients = new long[depth][depth];
+        condition = new long[depth];
+        conditionConstant = counted.constant;
+
+        for(int j = 0; j < depth; j++) {
+            Affine value = stack.get(depth - 1 - j);
+            constants[j] = value.constant;
+            for(int i = 0; i < depth; i++) {
+                if(i == j || value.coefficients[i] == 0) {
+                    continue;
+                }
+                if(!moved[i]) {
+                    return false;
+                }
+                coefficients[j][i] = value.coefficients[i];
+            }
+        }
+
+        for(int i = 0; i < depth; i++) {
+            if(counted.coefficients[i] != 0 && !moved[i]) {
+                return false;
+            }
+            condition[i] = counted.coefficients[i];
+            delta = Math.addExact(delta, Math.multiplyExact(condition[i], constants[i]));
+        }
+
+        for(int i = 0; i < depth; i++) {
+            analysis.track(Affine.slot(i));
+        }
+        worked = new long[analysis.worked.size()][];
+        for(int w = 0; w < worked.length; w++) {
+            Affine value = analysis.worked.get(w);
+            worked[w] = Arrays.copyOf(value.coefficients, depth + 1);
+            worked[w][depth] = value.constant;
+        }
+
+        return delta != 0;
+    }
+
+    /**
+     * A value worked with by the loop: a sum of multiples of the values on the
+     * stack at the start of the time around, from the top down, plus a constant.
+     */
+    private static class Affine {
+
+        private long[] coefficients = new long[MAX_DEPTH];
+
+        private long constant;
+
+        /**
+         * Whether the value is {@link Command#NOT} of the sum, rather than the sum
+         * itself
+         */
+        private boolean negated;
+
+        static Affine constant(long value) {
+            Affine affine = new Affine();
+            affine.constant = value;
+            return affine;
+        }
+
+        static Affine slot(int index) {
+            Affine affine = new Affine();
+            affine.coefficients[index] = 1;
+            return affine;
+        }
+
+        boolean isConstant() {
+            if(negated) {
+                return false;
+            }
+            for(long coefficient : coefficients) {
+                if(coefficient != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Affine combine(Affine other, long scale) {
+            Affine result = new Affine();
+            for(int i = 0; i < MAX_DEPTH; i++) {
+                result.coefficients[i] = Math.addExact(coefficients[i], Math.multiplyExact(scale, other.coefficients[i]));
+            }
+            result.constant = Math.addExact(constant, Math.multiplyExact(scale, other.constant));
+            return result;
+        }
+
+        Affine times(long scale) {
+            return constant(0).combine(this, scale);
+        }
+
+        Affine copy() {
+            Affine result = constant(0).combine(this, 1);
+            result.negated = negated;
+            return result;
+        }
+    }
+
+    /**
+     * The state of the symbolic run of the loop's body.
+     */
+    private static class Analysis {
+
+        /**
+         * The values on the stack, from the bottom up. The values from the start
+         * of the time around are brought in underneath as the body reaches them.
+         */
+        private List<Affine> stack = new ArrayList<>();
+
+        /**
+         * The number of values from the start of the time around brought in
+         */
+        private int reached;
+
+        /**
+         * Every value worked out along the way
+         */
+        private List<Affine> worked = new ArrayList<>();
+
+        boolean apply(Command op, long operand) {
+
+            switch(op) {
+                case NOP:
+                    return true;
+                case PUSH:
+                    return push(Affine.constant(operand));
+                case POP:
+                    if(!reach(1)) {
+                        return false;
+                    }
+                    pop();
+                    return true;
+                case DUP:
+                    if(!reach(1)) {
+                        return false;
+                    }
+                    return push(stack.get(stack.size() - 1).copy());
+                case NOT: {
+                    if(!reach(1) || stack.get(stack.size() - 1).negated) {
+                        return false;
+                    }
+                    Affine value = pop();
+                    if(value.isConstant()) {
+                        return push(Affine.constant(value.constant == 0 ? 1 : 0));
+                    }
+                    Affine negated = value.copy();
+                    negated.negated = true;
+                    stack.add(negated);
+                    return true;
+                }
+                case ADD:
+                case SUB:
+                case MULT: {
+                    if(!reach(2)) {
+                        return false;
+                    }
+                    Affine top = pop();
+                    Affine bottom = pop();
+                    if(top.negated || bottom.negated) {
+                        return false;
+                    }
+                    if(op == Command.ADD) {
+                        return push(bottom.combine(top, 1));
+                    }
+                    if(op == Command.SUB) {
+                        return push(bottom.combine(top, -1));
+                    }
+                    if(top.isConstant()) {
+                        return push(bottom.times(top.constant));
+                    }
+                    if(bottom.isConstant()) {
+                        return push(top.times(bottom.constant));
+                    }
+                    return false;
+                }
+                case ROLL:
+                    return roll();
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @see com.frejt.piet.utils.PietStack#roll()
+         */
+        private boolean roll() {
+
+            if(!reach(2)) {
+                return false;
+            }
+            Affine rolls = pop();
+            Affine depth = pop();
+            if(!rolls.isConstant() || !depth.isConstant()) {
+                return false;
+            }
+
+            // a negative depth is ignored, though the depth and rolls are still popped
+            if(depth.constant <= 0) {
+                return true;
+            }
+            if(depth.constant > MAX_DEPTH || !reach((int) depth.constant)) {
+                return false;
+            }
+
+            int turns = (int) Math.floorMod(rolls.constant, depth.constant);
+            int bottom = stack.size() - (int) depth.constant;
+            Collections.rotate(stack.subList(bottom, stack.size()), turns);
+            return true;
+        }
+
+        /**
+         * Brings in values from the start of the time around until the stack holds
+         * at least the given number.
+         *
+         * @return false if the loop would reach too deep
+         */
+        private boolean reach(int count) {
+            while(stack.size() < count) {
+                if(reached == MAX_DEPTH) {
+                    return false;
+                }
+                stack.add(0, Affine.slot(reached++));
+            }
+            return true;
+        }
+
+        private Affine pop() {
+            return stack.remove(stack.size() - 1);
+        }
+
+        private boolean push(Affine value) {
+            track(value);
+            stack.add(value);
+            return true;
+        }
+
+        /**
+         * Keeps track of the value, so that how big it gets can be checked.
+         */
+        void track(Affine value) {
+            worked.add(value);
+        }
+    }
+
+}
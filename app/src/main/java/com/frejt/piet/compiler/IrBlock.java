@@ -0,0 +1,163 @@
+package com.frejt.piet.compiler;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.Director;
+
+/**
+ * A basic block of the {@link IrProgram}: a straight run of stack operations,
+ * followed by a single exit.
+ *
+ * Operations are {@link Command}s. A {@link Command#PUSH} pushes its operand
+ * rather than the size of a colour block, so that pushes of folded constants can
+ * be expressed.
+ *
+ * The exit is one of:
+ * - {@link Exit#HALT}, the program ends
+ * - {@link Exit#JUMP}, the program always carries on in the same block
+ * - {@link Exit#BRANCH}, a {@link Command#POINTER} or {@link Command#SWITCH}
+ *   turns the Director, and the program carries on in the block for the
+ *   direction it's left facing
+ */
+public class IrBlock {
+
+    public enum Exit {
+        HALT,
+        JUMP,
+        BRANCH;
+    }
+
+    /**
+     * The {@link TransitionTable} state the block starts at
+     */
+    private int entry;
+
+    private Command[] ops = new Command[0];
+
+    /**
+     * The value pushed by each {@link Command#PUSH} in {@link #ops}
+     */
+    private long[] operands = new long[0];
+
+    private Exit exit = Exit.HALT;
+
+    /**
+     * The command ran by a {@link Exit#BRANCH}
+     */
+    private Command branch;
+
+    /**
+     * The direction the Director faces when the branch is ran
+     */
+    private int direction;
+
+    /**
+     * For a {@link Exit#JUMP}, the single block the program carries on in. For a
+     * {@link Exit#BRANCH}, the block for each direction the Director can be left
+     * facing, null for the directions the branch can't reach.
+     */
+    private IrBlock[] successors = new IrBlock[0];
+
+    /**
+     * The counting loop this block is the header of, or null if it isn't the
+     * header of one
+     */
+    private CountingLoop loop;
+
+    public IrBlock(int entry) {
+        this.entry = entry;
+    }
+
+    public int getEntry() {
+        return this.entry;
+    }
+
+    public Command[] getOps() {
+        return this.ops;
+    }
+
+    public long[] getOperands() {
+        return this.operands;
+    }
+
+    public void setOps(Command[] ops, long[] operands) {
+        this.ops = ops;
+        this.operands = operands;
+    }
+
+    public Exit getExit() {
+        return this.exit;
+    }
+
+    public Command getBranch() {
+        return this.branch;
+    }
+
+    public int getDirection() {
+        return this.direction;
+    }
+
+    public IrBlock[] getSuccessors() {
+        return this.successors;
+    }
+
+    public CountingLoop getLoop() {
+        return this.loop;
+    }
+
+    public void setLoop(CountingLoop loop) {
+        this.loop = loop;
+    }
+
+    public void halt() {
+        this.exit = Exit.HALT;
+        this.branch = null;
+        this.successors = new IrBlock[0];
+    }
+
+    public void jump(IrBlock successor) {
+        this.exit = Exit.JUMP;
+        this.branch = null;
+        this.successors = new IrBlock[] { successor };
+    }
+
+    /**
+     * @param branch     {@link Command#POINTER} or {@link Command#SWITCH}
+     * @param direction  the direction the Director faces when the branch is ran
+     * @param successors the block for each direction the Director can be left facing
+     */
+    public void branch(Command branch, int direction, IrBlock[] successors) {
+        this.exit = Exit.BRANCH;
+        this.branch = branch;
+        this.direction = direction;
+        this.successors = successors;
+    }
+
+    /**
+     * @return the block the program carries on in after a {@link Exit#JUMP}
+     */
+    public IrBlock getNext() {
+        return this.successors[0];
+    }
+
+    /**
+     * Works out where a branch goes when the value it pops is already known.
+     *
+     * @param value the value the branch pops off the stack
+     * @return the block the program carries on in
+     */
+    public IrBlock getNext(long value) {
+        return this.successors[getDirection(value)];
+    }
+
+    /**
+     * @param value the value the branch pops off the stack
+     * @return the direction the branch leaves the Director facing
+     */
+    public int getDirection(long value) {
+        // only the value modulo 4 matters, which survives truncating to an int
+        return branch == Command.POINTER
+                ? Director.rotateDP(direction, (int) value)
+                : Director.rotateCC(direction, (int) value);
+    }
+
+}
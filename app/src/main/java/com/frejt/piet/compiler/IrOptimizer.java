@@ -0,0 +1,384 @@
+package com.frejt.piet.compiler;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.frejt.piet.command.Command;
+
+/**
+ * The optimization passes ran over an {@link IrProgram}.
+ *
+ * Every pass keeps the program's output the same, provided its stack has no
+ * maximum depth.
+ */
+public class IrOptimizer {
+
+    /**
+     * Folds the constants in a block.
+     *
+     * Pushes are held back rather than written out straight away, for as long as
+     * the values they push are only used by the operations that follow in the
+     * same block:
+     * - arithmetic on values which are all known is done now, and its result held
+     *   back in their place
+     * - a {@link Command#DUP} of a known value holds back a second copy
+     * - a {@link Command#ROLL} within the known values rearranges them now
+     * - a {@link Command#POP} of a known value drops it, along with its push
+     * - a branch popping a known value always goes the same way, and becomes a
+     *   jump
+     *
+     * Any other operation needs the values on the real stack, so the held back
+     * pushes are written out ahead of it. Results are only folded while they fit
+     * in 32 bits, so that folding never depends on how the stack handles
+     * overflow.
+     *
+     * @param block the block to fold
+     */
+    public static void foldConstants(IrBlock block) {
+
+        Command[] ops = block.getOps();
+        long[] operands = block.getOperands();
+
+        Emitter out = new Emitter(ops.length);
+        long[] known = new long[ops.length + 1];
+        int size = 0;
+
+        for(int i = 0; i < ops.length; i++) {
+
+            Command op = ops[i];
+
+            switch(op) {
+                case NOP:
+                    continue;
+                case PUSH:
+                    known[size++] = operands[i];
+                    continue;
+                case POP:
+                    if(size > 0) {
+                        size--;
+                        continue;
+                    }
+                    break;
+                case DUP:
+                    if(size > 0) {
+                        known[size] = known[size - 1];
+                        size++;
+                        continue;
+                    }
+                    break;
+                case NOT:
+                    if(size > 0) {
+                        known[size - 1] = known[size - 1] == 0 ? 1 : 0;
+                        continue;
+                    }
+                    break;
+                case ADD:
+                case SUB:
+                case MULT:
+                case DIV:
+                case MOD:
+                case GREATER:
+                    if(size > 1) {
+                        Long folded = fold(op, known[size - 2], known[size - 1]);
+                        if(folded != null) {
+                            size--;
+                            known[size - 1] = folded;
+                            continue;
+                        }
+                    }
+                    break;
+                case ROLL:
+                    if(size > 1 && roll(known, size)) {
+                        size -= 2;
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            out.flush(known, size);
+            size = 0;
+            out.add(op, operands[i]);
+        }
+
+        if(block.getExit() == IrBlock.Exit.BRANCH && size > 0) {
+            block.jump(block.getNext(known[--size]));
+        }
+
+        out.flush(known, size);
+        block.setOps(out.getOps(), out.getOperands());
+    }
+
+    /**
+     * Removes the operations in a block whose results are never observed.
+     *
+     * A value popped straight after it's made was never needed:
+     * - a {@link Command#POP} of a value pushed or duplicated just before drops
+     *   both
+     * - a POP of the result of a {@link Command#NOT} or {@link Command#GREATER}
+     *   instead pops the values they would have used, which may in turn be
+     *   dropped along with whatever made them
+     *
+     * Both always use their values when there are enough of them, and leave the
+     * stack alone when there aren't, the same as the POPs put in their place. The
+     * other arithmetic is left alone, as a division by zero or an overflow of a
+     * 64 bit stack ignores the command, which a POP in its place wouldn't.
+     *
+     * Once a block halts, nothing can read its stack again, so any operations
+     * after its last input or output which only work on the stack are dropped.
+     *
+     * @param block the block to prune
+     */
+    public static void eliminateDeadCode(IrBlock block) {
+
+        Command[] ops = block.getOps();
+        long[] operands = block.getOperands();
+
+        int end = ops.length;
+        if(block.getExit() == IrBlock.Exit.HALT) {
+            while(end > 0 && isStackOnly(ops[end - 1])) {
+                end--;
+            }
+        }
+
+        Emitter out = new Emitter(end);
+        for(int i = 0; i < end; i++) {
+            if(ops[i] == Command.POP) {
+                pop(out, 1);
+            } else {
+                out.add(ops[i], operands[i]);
+            }
+        }
+
+        block.setOps(out.getOps(), out.getOperands());
+    }
+
+    /**
+     * Skips over blocks which do nothing but jump on to another block.
+     *
+     * @param entry  the block the program starts in
+     * @param blocks every block which can be reached
+     * @return the block the program now starts in
+     */
+    public static IrBlock threadJumps(IrBlock entry, List<IrBlock> blocks) {
+
+        for(IrBlock block : blocks) {
+            IrBlock[] successors = block.getSuccessors();
+            for(int i = 0; i < successors.length; i++) {
+                successors[i] = skip(successors[i], blocks.size());
+            }
+        }
+
+        return skip(entry, blocks.size());
+    }
+
+    /**
+     * Marks the header of every {@link CountingLoop}, so the loop can be ran all
+     * at once when the program reaches it.
+     *
+     * @param blocks every block which can be reached
+     */
+    public static void findCountingLoops(List<IrBlock> blocks) {
+        for(IrBlock block : blocks) {
+            block.setLoop(null);
+        }
+        for(IrBlock block : blocks) {
+            CountingLoop loop = CountingLoop.find(block);
+            if(loop != null) {
+                loop.getHeader().setLoop(loop);
+            }
+        }
+    }
+
+    /**
+     * Pops values off the end of the operations emitted so far, dropping the
+     * operations which made them where that leaves the stack the same.
+     *
+     * @param count the number of values to pop
+     */
+    private static void pop(Emitter out, int count) {
+        for(int i = 0; i < count; i++) {
+            Command last = out.getLast();
+            if(last == Command.PUSH || last == Command.DUP) {
+                out.removeLast();
+            } else if(last == Command.NOT) {
+                out.removeLast();
+                pop(out, 1);
+            } else if(last == Command.GREATER) {
+                out.removeLast();
+                pop(out, 2);
+            } else {
+                out.add(Command.POP, 0);
+            }
+        }
+    }
+
+    /**
+     * @return true if the command does nothing but change the stack
+     */
+    private static boolean isStackOnly(Command command) {
+        switch(command) {
+            case NOP:
+            case PUSH:
+            case POP:
+            case ADD:
+            case SUB:
+            case MULT:
+            case DIV:
+            case MOD:
+            case NOT:
+            case GREATER:
+            case DUP:
+            case ROLL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param limit the most jumps to follow, so that an empty loop is left alone
+     */
+    private static IrBlock skip(IrBlock block, int limit) {
+        for(int i = 0; block != null && i < limit && isEmptyJump(block); i++) {
+            block = block.getNext();
+        }
+        return block;
+    }
+
+    private static boolean isEmptyJump(IrBlock block) {
+        return block.getOps().length == 0 && block.getExit() == IrBlock.Exit.JUMP;
+    }
+
+    /**
+     * @return the result of the arithmetic, or null if it can't be folded
+     */
+    private static Long fold(Command op, long bottom, long top) {
+
+        long result;
+        switch(op) {
+            case ADD:
+                result = bottom + top;
+                break;
+            case SUB:
+                result = bottom - top;
+                break;
+            case MULT:
+                result = bottom * top;
+                break;
+            case DIV:
+                if(top == 0) {
+                    return null;
+                }
+                result = bottom / top;
+                break;
+            case MOD:
+                if(top == 0) {
+                    return null;
+                }
+                result = Math.floorMod(bottom, top);
+                break;
+            case GREATER:
+                result = bottom > top ? 1 : 0;
+                break;
+            default:
+                return null;
+        }
+
+        return result == (int) result ? result : null;
+    }
+
+    /**
+     * Rolls the known values, when the roll doesn't reach any deeper than them.
+     *
+     * @see com.frejt.piet.utils.PietStack#roll()
+     * @return false if the roll can't be done ahead of time
+     */
+    private static boolean roll(long[] known, int size) {
+
+        long depth = known[size - 2];
+        long rolls = known[size - 1];
+        int below = size - 2;
+
+        // a negative depth is ignored, though the depth and rolls are still popped
+        if(depth < 0) {
+            return true;
+        }
+        if(depth > below) {
+            return false;
+        }
+        if(depth == 0) {
+            return true;
+        }
+
+        int turns = (int) Math.floorMod(rolls, depth);
+        int bottom = below - (int) depth;
+        reverse(known, bottom, below);
+        reverse(known, bottom, bottom + turns);
+        reverse(known, bottom + turns, below);
+
+        return true;
+    }
+
+    private static void reverse(long[] values, int from, int to) {
+        for(int i = from, j = to - 1; i < j; i++, j--) {
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    /**
+     * Collects the operations of a folded block.
+     */
+    private static class Emitter {
+
+        private Command[] ops;
+        private long[] operands;
+        private int count;
+
+        Emitter(int capacity) {
+            ops = new Command[Math.max(capacity, 1)];
+            operands = new long[ops.length];
+        }
+
+        void add(Command op, long operand) {
+            if(count == ops.length) {
+                ops = Arrays.copyOf(ops, count * 2);
+                operands = Arrays.copyOf(operands, count * 2);
+            }
+            ops[count] = op;
+            operands[count++] = operand;
+        }
+
+        /**
+         * Writes out pushes of the held back values.
+         */
+        void flush(long[] known, int size) {
+            for(int i = 0; i < size; i++) {
+                add(Command.PUSH, known[i]);
+            }
+        }
+
+        /**
+         * @return the latest operation, or null if there are none
+         */
+        Command getLast() {
+            return count == 0 ? null : ops[count - 1];
+        }
+
+        void removeLast() {
+            count--;
+        }
+
+        Command[] getOps() {
+            return Arrays.copyOf(ops, count);
+        }
+
+        long[] getOperands() {
+            return Arrays.copyOf(operands, count);
+        }
+    }
+
+}
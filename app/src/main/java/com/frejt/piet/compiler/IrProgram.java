@@ -0,0 +1,207 @@
+package com.frejt.piet.compiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.Director;
+
+/**
+ * A Piet program lifted out of its {@link TransitionTable} into a graph of
+ * {@link IrBlock}s.
+ *
+ * Each block starts at a state of the table and follows the program's only way
+ * forward, gathering the commands along the way, until a
+ * {@link Command#POINTER} or {@link Command#SWITCH} makes the way forward
+ * depend on the stack, the program ends, or the block comes back around to a
+ * state it already holds. Moves that slide through white or are turned back by
+ * black and edges have already been resolved by the table, so they run nothing
+ * and disappear from the graph.
+ *
+ * {@link #optimize()} then runs the {@link IrOptimizer} passes over the graph,
+ * and marks the {@link CountingLoop}s which can be ran all at once.
+ */
+public class IrProgram {
+
+    /**
+     * The most operations gathered into a single block before it jumps on to
+     * another
+     */
+    public static final int MAX_OPS = 1024;
+
+    private TransitionTable table;
+
+    private IrBlock entry;
+
+    /**
+     * Every block built, by the state it starts at
+     */
+    private Map<Integer, IrBlock> blocks = new HashMap<>();
+
+    private Deque<IrBlock> unbuilt = new ArrayDeque<>();
+
+    public IrProgram(TransitionTable table) {
+        this.table = table;
+
+        if(table.getStartBlock() != TransitionTable.TERMINAL) {
+            entry = getBlock(TransitionTable.getState(table.getStartBlock(), table.getStartDirection()));
+        }
+
+        while(!unbuilt.isEmpty()) {
+            build(unbuilt.poll());
+        }
+    }
+
+    /**
+     * Wraps a graph of blocks which has already been built.
+     *
+     * @param entry the block the program starts in
+     */
+    public IrProgram(IrBlock entry) {
+        this.entry = entry;
+    }
+
+    /**
+     * @return the block the program starts in, or null if the program ends before
+     *         running anything
+     */
+    public IrBlock getEntry() {
+        return this.entry;
+    }
+
+    /**
+     * @return every block which can be reached from the entry
+     */
+    public List<IrBlock> getBlocks() {
+
+        List<IrBlock> reachable = new ArrayList<>();
+        if(entry == null) {
+            return reachable;
+        }
+
+        Set<IrBlock> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<IrBlock> queue = new ArrayDeque<>();
+        seen.add(entry);
+        queue.add(entry);
+
+        while(!queue.isEmpty()) {
+            IrBlock block = queue.poll();
+            reachable.add(block);
+            for(IrBlock successor : block.getSuccessors()) {
+                if(successor != null && seen.add(successor)) {
+                    queue.add(successor);
+                }
+            }
+        }
+
+        return reachable;
+    }
+
+    /**
+     * @return the number of operations, including branches, in every block which
+     *         can be reached
+     */
+    public int getOperationCount() {
+        int count = 0;
+        for(IrBlock block : getBlocks()) {
+            count += block.getOps().length + (block.getExit() == IrBlock.Exit.BRANCH ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Runs every optimization pass over the program.
+     *
+     * The passes keep the program's output the same, but not how deep its stack
+     * gets along the way, so they should only be ran for a stack with no maximum
+     * depth.
+     */
+    public void optimize() {
+        for(IrBlock block : getBlocks()) {
+            IrOptimizer.foldConstants(block);
+            IrOptimizer.eliminateDeadCode(block);
+        }
+        entry = IrOptimizer.threadJumps(entry, getBlocks());
+        IrOptimizer.findCountingLoops(getBlocks());
+    }
+
+    private IrBlock getBlock(int state) {
+        IrBlock block = blocks.get(state);
+        if(block == null) {
+            block = new IrBlock(state);
+            blocks.put(state, block);
+            unbuilt.add(block);
+        }
+        return block;
+    }
+
+    /**
+     * Gathers the commands along the block's way forward, and works out its exit.
+     */
+    private void build(IrBlock block) {
+
+        Command[] ops = new Command[16];
+        long[] operands = new long[16];
+        int count = 0;
+
+        Set<Integer> visited = new HashSet<>();
+        int state = block.getEntry();
+
+        while(true) {
+
+            int target = table.getTarget(state);
+            if(target == TransitionTable.TERMINAL) {
+                block.halt();
+                break;
+            }
+
+            Command command = table.getCommand(state);
+            int direction = table.getDirection(state);
+
+            if(command == Command.POINTER || command == Command.SWITCH) {
+                IrBlock[] successors = new IrBlock[Director.DIRECTIONS];
+                int turns = command == Command.POINTER ? 4 : 2;
+                for(int turn = 0; turn < turns; turn++) {
+                    int turned = command == Command.POINTER
+                            ? Director.rotateDP(direction, turn)
+                            : Director.rotateCC(direction, turn);
+                    successors[turned] = getBlock(TransitionTable.getState(target, turned));
+                }
+                block.branch(command, direction, successors);
+                break;
+            }
+
+            if(command != null) {
+                if(count == ops.length) {
+                    ops = Arrays.copyOf(ops, count * 2);
+                    operands = Arrays.copyOf(operands, count * 2);
+                }
+                operands[count] = command == Command.PUSH ? table.getBlockMap().getSize(state / Director.DIRECTIONS) : 0;
+                ops[count++] = command;
+            }
+
+            visited.add(state);
+            int next = TransitionTable.getState(target, direction);
+
+            // loops, and runs into states other blocks start at, carry on in a block of their own
+            if(visited.contains(next) || blocks.containsKey(next) || count >= MAX_OPS) {
+                block.jump(getBlock(next));
+                break;
+            }
+
+            state = next;
+        }
+
+        block.setOps(Arrays.copyOf(ops, count), Arrays.copyOf(operands, count));
+    }
+
+}
@@ -0,0 +1,334 @@
+package com.frejt.piet.compiler;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Generates the Java source of a {@link CompiledMachine} that runs a single Piet
+ * program.
+ *
+ * Every state of the program's {@link TransitionTable} which can be reached from
+ * the start becomes a case of a switch, holding its command written out as
+ * plain operations on an <code>int[]</code> stack, followed by a direct jump to
+ * the state that comes next. Only the pointer and switch commands need to work
+ * out their next state while running.
+ *
+ * States are numbered in the order they are reached from the start, so that
+ * states which run near each other are generated near each other. They are
+ * split into chunks of {@link #CHUNK_SIZE}, each in its own method, which keeps
+ * every method small enough for HotSpot to compile.
+ */
+public class JavaSourceGenerator {
+
+    /**
+     * The package every generated class is placed in, alongside {@link CompiledMachine}
+     */
+    public static final String PACKAGE = "com.frejt.piet.compiler";
+
+    private static final int CHUNK_BITS = 6;
+
+    /**
+     * The number of states generated into each method
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private TransitionTable table;
+
+    private String className;
+
+    /**
+     * The most values the generated machine's stack may hold
+     */
+    private int maxDepth;
+
+    /**
+     * The table state of each generated state
+     */
+    private int[] states;
+
+    /**
+     * The generated state of each table state, or {@link CompiledMachine#HALTED}
+     * if it was never reached
+     */
+    private int[] numbers;
+
+    private int count;
+
+    private String source;
+
+    public JavaSourceGenerator(TransitionTable table, String className) {
+        this(table, className, PietStack.UNBOUNDED);
+    }
+
+    public JavaSourceGenerator(TransitionTable table, String className, int maxDepth) {
+        this.table = table;
+        this.className = className;
+        this.maxDepth = maxDepth;
+
+        number();
+        source = generate();
+    }
+
+    public String getClassName() {
+        return this.className;
+    }
+
+    public String getQualifiedName() {
+        return PACKAGE + "." + this.className;
+    }
+
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * @param state a state of the {@link TransitionTable}
+     * @return the generated state standing in for it, or {@link CompiledMachine#HALTED}
+     *         if the state ends the program
+     */
+    public int getGeneratedState(int state) {
+        return state < 0 ? CompiledMachine.HALTED : numbers[state];
+    }
+
+    /**
+     * @param generated a state of the generated machine
+     * @return the {@link TransitionTable} state it stands in for
+     */
+    public int getTableState(int generated) {
+        return states[generated];
+    }
+
+    /**
+     * @return the generated state the program starts in
+     */
+    public int getStartState() {
+        if(table.getStartBlock() == TransitionTable.TERMINAL) {
+            return CompiledMachine.HALTED;
+        }
+        return getGeneratedState(TransitionTable.getState(table.getStartBlock(), table.getStartDirection()));
+    }
+
+    /**
+     * Numbers every state reachable from the start, breadth first. States which
+     * end the program are left as {@link CompiledMachine#HALTED}.
+     */
+    private void number() {
+
+        numbers = new int[table.getStateCount()];
+        Arrays.fill(numbers, CompiledMachine.HALTED);
+        states = new int[16];
+
+        if(table.getStartBlock() == TransitionTable.TERMINAL) {
+            return;
+        }
+
+        Deque<Integer> queue = new ArrayDeque<>();
+        visit(queue, TransitionTable.getState(table.getStartBlock(), table.getStartDirection()));
+
+        while(!queue.isEmpty()) {
+            int state = queue.poll();
+            int target = table.getTarget(state);
+            int direction = table.getDirection(state);
+            Command command = table.getCommand(state);
+
+            if(command == Command.POINTER) {
+                for(int steps = 0; steps < 4; steps++) {
+                    visit(queue, TransitionTable.getState(target, CompiledMachine.pointer(direction, steps)));
+                }
+            } else if(command == Command.SWITCH) {
+                visit(queue, TransitionTable.getState(target, direction));
+                visit(queue, TransitionTable.getState(target, CompiledMachine.toggle(direction, 1)));
+            } else {
+                visit(queue, TransitionTable.getState(target, direction));
+            }
+        }
+    }
+
+    private void visit(Deque<Integer> queue, int state) {
+        if(numbers[state] != CompiledMachine.HALTED || table.getTarget(state) == TransitionTable.TERMINAL) {
+            return;
+        }
+        if(count == states.length) {
+            states = Arrays.copyOf(states, count * 2);
+        }
+        states[count] = state;
+        numbers[state] = count++;
+        queue.add(state);
+    }
+
+    private String generate() {
+
+        StringBuilder src = new StringBuilder();
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        src.append("package ").append(PACKAGE).append(";\n\n");
+        src.append("public final class ").append(className).append(" extends CompiledMachine {\n\n");
+
+        src.append("    public ").append(className).append("() {\n");
+        src.append("        state = ").append(getStartState()).append(";\n");
+        if(maxDepth != PietStack.UNBOUNDED) {
+            src.append("        maxDepth = ").append(maxDepth).append(";\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    public static void main(String[] args) {\n");
+        src.append("        ").append(className).append(" machine = new ").append(className).append("();\n");
+        src.append("        machine.run();\n");
+        src.append("        System.out.print(machine.out);\n");
+        src.append("        System.out.flush();\n");
+        src.append("    }\n\n");
+
+        src.append("    @Override\n");
+        src.append("    public void run() {\n");
+        src.append("        int st = state;\n");
+        src.append("        while (st >= 0 && fuel > 0) {\n");
+        src.append("            switch (st >> ").append(CHUNK_BITS).append(") {\n");
+        for(int chunk = 0; chunk < chunks; chunk++) {
+            src.append("                case ").append(chunk).append(": st = chunk").append(chunk).append("(st); break;\n");
+        }
+        src.append("                default: st = HALTED; break;\n");
+        src.append("            }\n");
+        src.append("        }\n");
+        src.append("        state = st;\n");
+        src.append("    }\n");
+
+        for(int chunk = 0; chunk < chunks; chunk++) {
+            generateChunk(src, chunk);
+        }
+
+        src.append("\n}\n");
+        return src.toString();
+    }
+
+    private void generateChunk(StringBuilder src, int chunk) {
+
+        src.append("\n    private int chunk").append(chunk).append("(int st) {\n");
+        src.append("        int[] s = stack;\n");
+        src.append("        int n = size;\n");
+        src.append("        int m = maxDepth;\n");
+        src.append("        long f = fuel;\n");
+        src.append("        int v;\n");
+        src.append("        loop:\n");
+        src.append("        while (f > 0) {\n");
+        src.append("            f--;\n");
+        src.append("            switch (st) {\n");
+
+        int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+        for(int generated = chunk * CHUNK_SIZE; generated < end; generated++) {
+            generateState(src, generated);
+        }
+
+        src.append("                default:\n");
+        src.append("                    break loop;\n");
+        src.append("            }\n");
+        src.append("            if ((st >> ").append(CHUNK_BITS).append(") != ").append(chunk).append(") {\n");
+        src.append("                break;\n");
+        src.append("            }\n");
+        src.append("        }\n");
+        src.append("        stack = s;\n");
+        src.append("        size = n;\n");
+        src.append("        fuel = f;\n");
+        src.append("        return st;\n");
+        src.append("    }\n");
+    }
+
+    private void generateState(StringBuilder src, int generated) {
+
+        int state = states[generated];
+        int block = state / Director.DIRECTIONS;
+        int target = table.getTarget(state);
+        int direction = table.getDirection(state);
+        Command command = table.getCommand(state);
+        String indent = "                    ";
+
+        src.append("                case ").append(generated).append(": // block ").append(block)
+                .append(" -> ").append(target).append(command == null ? "" : " " + command.getName()).append("\n");
+
+        if(command == Command.POINTER || command == Command.SWITCH) {
+            String turn = command == Command.POINTER ? "pointer" : "toggle";
+            src.append(indent).append("v = ").append(direction).append(";\n");
+            src.append(indent).append("if (n > 0) v = ").append(turn).append("(v, s[--n]);\n");
+            src.append(indent).append("switch (v) {\n");
+            for(int next = 0; next < Director.DIRECTIONS; next++) {
+                int nextState = getGeneratedState(TransitionTable.getState(target, next));
+                src.append(indent).append("    case ").append(next).append(": st = ").append(nextState).append("; break;\n");
+            }
+            src.append(indent).append("    default: st = HALTED; break;\n");
+            src.append(indent).append("}\n");
+            src.append(indent).append("break;\n");
+            return;
+        }
+
+        if(command != null) {
+            generateCommand(src, indent, command, table.getBlockMap().getSize(block));
+        }
+
+        src.append(indent).append("st = ").append(getGeneratedState(TransitionTable.getState(target, direction))).append(";\n");
+        src.append(indent).append("break;\n");
+    }
+
+    /**
+     * Writes out the stack operations of a single command.
+     *
+     * @param size the size of the block being exited, pushed by {@link Command#PUSH}
+     */
+    private void generateCommand(StringBuilder src, String indent, Command command, int size) {
+
+        switch(command) {
+            case PUSH:
+                src.append(indent).append("if (n < m) { if (n == s.length) s = java.util.Arrays.copyOf(s, n << 1); s[n++] = ").append(size).append("; }\n");
+                break;
+            case POP:
+                src.append(indent).append("if (n > 0) n--;\n");
+                break;
+            case ADD:
+                src.append(indent).append("if (n > 1) { s[n - 2] += s[n - 1]; n--; }\n");
+                break;
+            case SUB:
+                src.append(indent).append("if (n > 1) { s[n - 2] -= s[n - 1]; n--; }\n");
+                break;
+            case MULT:
+                src.append(indent).append("if (n > 1) { s[n - 2] *= s[n - 1]; n--; }\n");
+                break;
+            case DIV:
+                src.append(indent).append("if (n > 1 && s[n - 1] != 0) { s[n - 2] /= s[n - 1]; n--; }\n");
+                break;
+            case MOD:
+                src.append(indent).append("if (n > 1 && s[n - 1] != 0) { s[n - 2] = mod(s[n - 2], s[n - 1]); n--; }\n");
+                break;
+            case NOT:
+                src.append(indent).append("if (n > 0) s[n - 1] = s[n - 1] == 0 ? 1 : 0;\n");
+                break;
+            case GREATER:
+                src.append(indent).append("if (n > 1) { s[n - 2] = s[n - 2] > s[n - 1] ? 1 : 0; n--; }\n");
+                break;
+            case DUP:
+                src.append(indent).append("if (n > 0 && n < m) { if (n == s.length) s = java.util.Arrays.copyOf(s, n << 1); s[n] = s[n - 1]; n++; }\n");
+                break;
+            case ROLL:
+                src.append(indent).append("n = roll(s, n);\n");
+                break;
+            case IN_NUM:
+                src.append(indent).append("if (readNumber() && n < m) { if (n == s.length) s = java.util.Arrays.copyOf(s, n << 1); s[n++] = read; }\n");
+                break;
+            case IN_CHAR:
+                src.append(indent).append("if (readChar() && n < m) { if (n == s.length) s = java.util.Arrays.copyOf(s, n << 1); s[n++] = read; }\n");
+                break;
+            case OUT_NUM:
+                src.append(indent).append("if (n > 0) out.append(s[--n]);\n");
+                break;
+            case OUT_CHAR:
+                src.append(indent).append("if (n > 0) out.append((char) s[--n]);\n");
+                break;
+            case NOP:
+            default:
+                break;
+        }
+    }
+
+}
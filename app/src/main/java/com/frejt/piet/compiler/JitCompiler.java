@@ -0,0 +1,174 @@
+package com.frejt.piet.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.frejt.piet.exception.PietExecutionException;
+
+/**
+ * Compiles a Piet program into a JVM class while the application is running.
+ *
+ * The program's {@link TransitionTable} is turned into Java source by the
+ * {@link JavaSourceGenerator}, compiled in memory, and loaded as a hidden class
+ * with {@link MethodHandles.Lookup#defineHiddenClass}. The hidden class can't be
+ * found by name, and is unloaded as soon as nothing holds on to it anymore.
+ *
+ * Once loaded, HotSpot treats the program like any other Java code.
+ */
+public class JitCompiler {
+
+    private static final Logger log = LogManager.getLogger(JitCompiler.class);
+
+    private static final String CLASS_NAME = "PietProgram";
+
+    /**
+     * Compiles the program described by the table into a hidden class.
+     *
+     * @param table the transitions of the program to be compiled
+     * @return the compiled program, which can make any number of machines
+     * @throws PietExecutionException if there is no Java compiler available, or the
+     *                                generated source could not be compiled
+     */
+    public static CompiledProgram compile(TransitionTable table) throws PietExecutionException {
+
+        long startTime = System.currentTimeMillis();
+
+        JavaSourceGenerator generator = new JavaSourceGenerator(table, CLASS_NAME);
+        byte[] bytes = compile(generator);
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(CompiledMachine.class));
+
+            log.debug("Compiled program in " + (System.currentTimeMillis() - startTime) + "ms");
+
+            return new CompiledProgram(generator, constructor);
+        } catch(IllegalAccessException | NoSuchMethodException e) {
+            throw new PietExecutionException("Could not load the compiled program: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles the generated source into class file bytes, without touching the
+     * disk.
+     *
+     * @param generator the generator holding the program's source
+     * @return the bytes of the compiled class
+     * @throws PietExecutionException if the source could not be compiled
+     */
+    public static byte[] compile(JavaSourceGenerator generator) throws PietExecutionException {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null) {
+            throw new PietExecutionException("No Java compiler is available, the program has to be ran on a JDK to be compiled");
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        MemoryFileManager fileManager = new MemoryFileManager(standard);
+
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(System.getProperty("java.class.path"));
+        options.add("-g:none");
+        options.add("-proc:none");
+
+        List<JavaFileObject> sources = new ArrayList<>();
+        sources.add(new SourceFile(generator.getQualifiedName(), generator.getSource()));
+
+        Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+
+        if(!success) {
+            StringBuilder errors = new StringBuilder();
+            for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                errors.append(diagnostic.getMessage(null)).append("\n");
+            }
+            throw new PietExecutionException("Could not compile the program: " + errors);
+        }
+
+        return fileManager.getBytes(generator.getQualifiedName());
+    }
+
+    /**
+     * The generated source, held in memory.
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private String source;
+
+        SourceFile(String qualifiedName, String source) {
+            super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * A compiled class, held in memory.
+     */
+    private static class ClassFile extends SimpleJavaFileObject {
+
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String qualifiedName) {
+            super(URI.create("bytes:///" + qualifiedName.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Hands the compiler in-memory class files to write to, rather than files on disk.
+     */
+    private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private Map<String, ClassFile> classes = new HashMap<>();
+
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile file = new ClassFile(className);
+            classes.put(className, file);
+            return file;
+        }
+
+        byte[] getBytes(String className) {
+            return classes.get(className).bytes.toByteArray();
+        }
+    }
+
+}
@@ -0,0 +1,317 @@
+package com.frejt.piet.compiler;
+
+import java.util.Arrays;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.controller.Program;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * A straight run of commands through a {@link TransitionTable}, fused so that it
+ * can be ran as a single instruction.
+ *
+ * Starting from a state, the run follows each state's only way out for as long
+ * as the commands along the way can't change where the program goes next. It
+ * stops before a {@link Command#POINTER}, {@link Command#SWITCH} or input
+ * command, before the end of the program, or once it comes back around to a
+ * state it already holds.
+ *
+ * Consecutive {@link Command#PUSH}es are fused into a single bulk push. The
+ * run's stack effect is worked out when it's fused: how many values it needs
+ * to find on the stack, and how far it grows the stack. When the stack holds
+ * enough values and has enough room, no command in the run can be ignored for
+ * lack of either, and the run is performed without checking each command.
+ * Otherwise every command is ran on its own, just as the
+ * {@link com.frejt.piet.controller.TableRunner} would.
+ */
+public class Superinstruction {
+
+    /**
+     * The most commands fused into a single run
+     */
+    public static final int MAX_LENGTH = 64;
+
+    /**
+     * Every command in the run, in order, for the program's command list
+     */
+    private Command[] commands;
+
+    /**
+     * The size of the Block each command is ran from
+     */
+    private int[] sizes;
+
+    /**
+     * The run's commands, with consecutive pushes fused into a single PUSH
+     */
+    private Command[] ops;
+
+    /**
+     * The number of values pushed by each fused PUSH in {@link #ops}
+     */
+    private int[] counts;
+
+    /**
+     * The values pushed by the fused pushes, in order
+     */
+    private long[] values;
+
+    /**
+     * The fewest values that must be on the stack for no command to run short
+     */
+    private int need;
+
+    /**
+     * The most the stack grows above its starting depth during the run
+     */
+    private int growth;
+
+    /**
+     * The state the program is in once the run is done
+     */
+    private int next;
+
+    private Superinstruction() {
+    }
+
+    public int getNext() {
+        return this.next;
+    }
+
+    public int getNeed() {
+        return this.need;
+    }
+
+    public int getGrowth() {
+        return this.growth;
+    }
+
+    public int getLength() {
+        return this.commands.length;
+    }
+
+    /**
+     * Fuses the straight run of commands starting at the given state.
+     *
+     * @param table the transitions of the program
+     * @param state the state the run starts at
+     * @return the fused run, or null if fewer than two commands could be fused
+     */
+    public static Superinstruction fuse(TransitionTable table, int state) {
+
+        Command[] commands = new Command[MAX_LENGTH];
+        int[] sizes = new int[MAX_LENGTH];
+        int[] visited = new int[MAX_LENGTH];
+        int length = 0;
+        int states = 0;
+
+        while(states < MAX_LENGTH && length < MAX_LENGTH && !contains(visited, states, state)) {
+
+            int target = table.getTarget(state);
+            Command command = table.getCommand(state);
+
+            if(target == TransitionTable.TERMINAL || !isFusable(command)) {
+                break;
+            }
+
+            visited[states++] = state;
+            if(command != null) {
+                sizes[length] = table.getBlockMap().getSize(state / Director.DIRECTIONS);
+                commands[length++] = command;
+            }
+
+            state = TransitionTable.getState(target, table.getDirection(state));
+        }
+
+        if(length < 2) {
+            return null;
+        }
+
+        Superinstruction fused = new Superinstruction();
+        fused.commands = Arrays.copyOf(commands, length);
+        fused.sizes = Arrays.copyOf(sizes, length);
+        fused.next = state;
+        fused.build();
+
+        return fused;
+    }
+
+    /**
+     * Performs every command in the run, and adds them to the program's list of
+     * commands.
+     *
+     * @param program the program the run is performed on
+     */
+    public void run(Program program) {
+
+        for(Command command : commands) {
+            program.addToCommandList(command);
+        }
+
+        PietStack stack = program.getStack();
+        if(stack.size() < need || stack.getMaxDepth() - stack.size() < growth) {
+            for(int i = 0; i < commands.length; i++) {
+                commands[i].calculate(program, sizes[i]);
+            }
+            return;
+        }
+
+        // an ignored command only ever leaves more values on the stack than
+        // expected (a push is only ignored once the stack is already deeper than
+        // expected), so every pop below still finds a value to take
+        int value = 0;
+        for(int i = 0; i < ops.length; i++) {
+            switch(ops[i]) {
+                case PUSH:
+                    stack.push(values, value, counts[i]);
+                    value += counts[i];
+                    break;
+                case POP:
+                    stack.pop();
+                    break;
+                case ADD:
+                    stack.add();
+                    break;
+                case SUB:
+                    stack.subtract();
+                    break;
+                case MULT:
+                    stack.multiply();
+                    break;
+                case DIV:
+                    stack.divide();
+                    break;
+                case MOD:
+                    stack.mod();
+                    break;
+                case NOT:
+                    stack.not();
+                    break;
+                case GREATER:
+                    stack.greater();
+                    break;
+                case DUP:
+                    stack.dup();
+                    break;
+                case ROLL:
+                    stack.roll();
+                    break;
+                case OUT_NUM:
+                    stack.pop(program.getOutputBuilder());
+                    break;
+                case OUT_CHAR:
+                    program.getOutputBuilder().append((char) stack.pop());
+                    break;
+                case NOP:
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Fuses consecutive pushes and works out the run's stack effect.
+     */
+    private void build() {
+
+        Command[] ops = new Command[commands.length];
+        int[] counts = new int[commands.length];
+        long[] values = new long[commands.length];
+        int opCount = 0;
+        int valueCount = 0;
+
+        int height = 0;
+
+        for(int i = 0; i < commands.length; i++) {
+            Command command = commands[i];
+
+            if(command == Command.PUSH) {
+                if(opCount == 0 || ops[opCount - 1] != Command.PUSH) {
+                    ops[opCount++] = Command.PUSH;
+                }
+                counts[opCount - 1]++;
+                values[valueCount++] = sizes[i];
+            } else {
+                ops[opCount++] = command;
+            }
+
+            height -= pops(command);
+            need = Math.max(need, -height);
+            height += pushes(command);
+            growth = Math.max(growth, height);
+        }
+
+        this.ops = Arrays.copyOf(ops, opCount);
+        this.counts = Arrays.copyOf(counts, opCount);
+        this.values = Arrays.copyOf(values, valueCount);
+    }
+
+    /**
+     * @return true if the command can't change where the program goes next, and
+     *         doesn't wait on input
+     */
+    private static boolean isFusable(Command command) {
+        if(command == null) {
+            return true;
+        }
+        switch(command) {
+            case POINTER:
+            case SWITCH:
+            case IN_NUM:
+            case IN_CHAR:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static int pops(Command command) {
+        switch(command) {
+            case POP:
+            case NOT:
+            case DUP:
+            case OUT_NUM:
+            case OUT_CHAR:
+                return 1;
+            case ADD:
+            case SUB:
+            case MULT:
+            case DIV:
+            case MOD:
+            case GREATER:
+            case ROLL:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    private static int pushes(Command command) {
+        switch(command) {
+            case PUSH:
+            case NOT:
+            case ADD:
+            case SUB:
+            case MULT:
+            case DIV:
+            case MOD:
+            case GREATER:
+                return 1;
+            case DUP:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean contains(int[] states, int count, int state) {
+        for(int i = 0; i < count; i++) {
+            if(states[i] == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,395 @@
+package com.frejt.piet.compiler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.CC;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.exception.PietCommandNotFoundException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.color.PietColor;
+
+/**
+ * A precompiled version of a Piet program's control flow.
+ *
+ * For every state the interpreter can be in - a {@link com.frejt.piet.utils.Block}
+ * id and a {@link Director} direction - the table holds where the interpreter
+ * goes next: the Block it lands in, the {@link Command} to be ran on the way,
+ * and the direction the Director is left facing.
+ *
+ * Everything the interpreter would otherwise work out on every move is resolved
+ * here once, ahead of time:
+ * - finding the exit Codel of the current Block
+ * - the up-to-eight retries when the exit is blocked by black or an edge
+ * - sliding through white blocks, which runs no command
+ * - the program ending when no exit can be found
+ *
+ * States are packed as <code>blockId * {@link Director#DIRECTIONS} + direction</code>.
+ */
+public class TransitionTable {
+
+    /**
+     * Marks a transition which ends the program
+     */
+    public static final int TERMINAL = -1;
+
+    /**
+     * Marks a transition which runs no command, such as sliding through white
+     */
+    public static final int NO_COMMAND = 31;
+
+    private static final Command[] COMMANDS = Command.values();
+
+    private BlockMap blockMap;
+
+    private int sizeRow;
+    private int sizeCol;
+
+    /**
+     * The id of the Block each state moves into, or {@link #TERMINAL}
+     */
+    private int[] targets;
+
+    /**
+     * The Command ordinal (high bits) and resulting direction (low three bits) of
+     * each state's transition
+     */
+    private byte[] actions;
+
+    private int startBlock;
+    private int startDirection;
+
+    /**
+     * The white Block each state's transition slides through, or -1 if it
+     * doesn't slide. A slide never leaves the white Block it starts in, so the
+     * states sliding through a white Block are the only ones an edit to it, or
+     * to a Codel next to it, can change without being next to their own Block.
+     */
+    private int[] slideBlocks;
+
+    /**
+     * The states sliding through each white Block, kept as a linked list: the
+     * first state for each Block, then the next and previous state for each
+     * state, or -1 at the ends
+     */
+    private int[] slideHeads;
+    private int[] slideNext;
+    private int[] slidePrev;
+
+    public TransitionTable(BlockMap blockMap) {
+        this.blockMap = blockMap;
+        this.sizeRow = blockMap.getBoard().getSizeRow();
+        this.sizeCol = blockMap.getBoard().getSizeCol();
+
+        compile();
+    }
+
+    public BlockMap getBlockMap() {
+        return this.blockMap;
+    }
+
+    public int getStateCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * @return the Block the program begins executing in
+     */
+    public int getStartBlock() {
+        return this.startBlock;
+    }
+
+    /**
+     * @return the direction the program begins executing in
+     */
+    public int getStartDirection() {
+        return this.startDirection;
+    }
+
+    public static int getState(int block, int direction) {
+        return block * Director.DIRECTIONS + direction;
+    }
+
+    /**
+     * @param state a packed Block and direction
+     * @return the id of the Block the state moves into, or {@link #TERMINAL}
+     */
+    public int getTarget(int state) {
+        return this.targets[state];
+    }
+
+    /**
+     * @param state a packed Block and direction
+     * @return the Command ran when moving out of the state, or null if none is ran
+     */
+    public Command getCommand(int state) {
+        int ordinal = (this.actions[state] & 0xff) >> 3;
+        return ordinal == NO_COMMAND ? null : COMMANDS[ordinal];
+    }
+
+    /**
+     * @param state a packed Block and direction
+     * @return the direction the Director is facing after moving out of the state
+     */
+    public int getDirection(int state) {
+        return this.actions[state] & 0x7;
+    }
+
+    /**
+     * Resolves the transition of every state in the program.
+     */
+    private void compile() {
+
+        int states = blockMap.getBlockCount() * Director.DIRECTIONS;
+        targets = new int[states];
+        actions = new byte[states];
+        slideBlocks = new int[states];
+        slideNext = new int[states];
+        slidePrev = new int[states];
+        slideHeads = new int[Math.max(blockMap.getBlockCount(), 1)];
+        Arrays.fill(slideBlocks, -1);
+        Arrays.fill(slideHeads, -1);
+
+        for(int block = 0; block < blockMap.getBlockCount(); block++) {
+            for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+                compile(getState(block, direction));
+            }
+        }
+
+        findStart();
+    }
+
+    /**
+     * Resolves the transitions which may have changed after the table's
+     * {@link BlockMap} has been updated.
+     *
+     * Only the states an edit could change are resolved again:
+     * - the states of new and removed Blocks
+     * - the states of the Blocks next to a relabeled Codel, since only they can
+     *   have stepped onto one on their way out
+     * - the states sliding through a removed white Block, or through a white
+     *   Block next to a relabeled Codel, which may be where the slide stopped
+     *
+     * The sliding states are found through the list kept for each white Block, so
+     * the update takes time in proportion to the edit rather than the table.
+     *
+     * @param change what the update relabeled
+     */
+    public void update(BlockMap.Change change) {
+
+        int states = blockMap.getBlockCount() * Director.DIRECTIONS;
+        if(states > targets.length) {
+            int old = targets.length;
+            targets = Arrays.copyOf(targets, states);
+            actions = Arrays.copyOf(actions, states);
+            slideBlocks = Arrays.copyOf(slideBlocks, states);
+            slideNext = Arrays.copyOf(slideNext, states);
+            slidePrev = Arrays.copyOf(slidePrev, states);
+            Arrays.fill(slideBlocks, old, states, -1);
+        }
+        if(blockMap.getBlockCount() > slideHeads.length) {
+            int old = slideHeads.length;
+            slideHeads = Arrays.copyOf(slideHeads, Math.max(blockMap.getBlockCount(), old * 2));
+            Arrays.fill(slideHeads, old, slideHeads.length, -1);
+        }
+
+        Set<Integer> stale = new HashSet<>();
+        for(int block : change.getRemoved()) {
+            addBlock(stale, block);
+            addSlides(stale, block);
+        }
+        for(int block : change.getAdded()) {
+            addBlock(stale, block);
+        }
+        for(int index : change.getCodels()) {
+            int row = blockMap.getRow(index);
+            int col = blockMap.getCol(index);
+            for(DP dp : DP.values()) {
+                int neighborRow = row + dp.getX();
+                int neighborCol = col + dp.getY();
+                if(neighborRow >= 0 && neighborRow < sizeRow && neighborCol >= 0 && neighborCol < sizeCol) {
+                    int neighbor = blockMap.getBlockId(blockMap.index(neighborRow, neighborCol));
+                    addBlock(stale, neighbor);
+                    if(blockMap.getColor(neighbor) == PietColor.WHITE) {
+                        addSlides(stale, neighbor);
+                    }
+                }
+            }
+        }
+
+        for(int state : stale) {
+            compile(state);
+        }
+
+        findStart();
+    }
+
+    private static void addBlock(Set<Integer> stale, int block) {
+        for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+            stale.add(getState(block, direction));
+        }
+    }
+
+    private void addSlides(Set<Integer> stale, int block) {
+        for(int state = slideHeads[block]; state != -1; state = slideNext[state]) {
+            stale.add(state);
+        }
+    }
+
+    /**
+     * Resolves the transition of a single state.
+     */
+    private void compile(int state) {
+
+        unlinkSlide(state);
+
+        int block = state / Director.DIRECTIONS;
+        int direction = state % Director.DIRECTIONS;
+        PietColor color = blockMap.getColor(block);
+
+        // the interpreter can never be inside of black, or come to rest in white or a removed Block
+        if(color == PietColor.BLACK || color == PietColor.WHITE || blockMap.isRemoved(block)) {
+            set(state, TERMINAL, NO_COMMAND, direction);
+            return;
+        }
+
+        resolve(state, block, direction);
+    }
+
+    /**
+     * Adds the state to the list of those sliding through the white Block.
+     */
+    private void linkSlide(int state, int white) {
+        slideBlocks[state] = white;
+        slidePrev[state] = -1;
+        slideNext[state] = slideHeads[white];
+        if(slideHeads[white] != -1) {
+            slidePrev[slideHeads[white]] = state;
+        }
+        slideHeads[white] = state;
+    }
+
+    /**
+     * Takes the state off the list of the white Block it slides through, if any.
+     */
+    private void unlinkSlide(int state) {
+        int white = slideBlocks[state];
+        if(white == -1) {
+            return;
+        }
+        if(slidePrev[state] != -1) {
+            slideNext[slidePrev[state]] = slideNext[state];
+        } else {
+            slideHeads[white] = slideNext[state];
+        }
+        if(slideNext[state] != -1) {
+            slidePrev[slideNext[state]] = slidePrev[state];
+        }
+        slideBlocks[state] = -1;
+    }
+
+    private void findStart() {
+
+        // a program starting in white slides out of it before running anything
+        int first = blockMap.getBlockId(0);
+        if(blockMap.getColor(first) == PietColor.WHITE) {
+            int[] slid = slide(0, Director.getDirection(DP.RIGHT, CC.LEFT));
+            startBlock = slid[0];
+            startDirection = slid[1];
+        } else {
+            startBlock = first;
+            startDirection = Director.getDirection(DP.RIGHT, CC.LEFT);
+        }
+    }
+
+    /**
+     * Finds where the interpreter goes when leaving the Block facing the given
+     * direction, retrying as the spec describes when the way is blocked.
+     */
+    private void resolve(int state, int block, int direction) {
+
+        for(int attempt = 0; attempt < Director.DIRECTIONS; attempt++) {
+
+            DP dp = Director.getDP(direction);
+            int exit = blockMap.getExit(block, BlockMap.getCorner(dp, Director.getCC(direction)));
+            int row = blockMap.getRow(exit) + dp.getX();
+            int col = blockMap.getCol(exit) + dp.getY();
+
+            if(isOpen(row, col)) {
+                int next = blockMap.getBlockId(blockMap.index(row, col));
+                PietColor nextColor = blockMap.getColor(next);
+
+                if(nextColor == PietColor.WHITE) {
+                    linkSlide(state, next);
+                    int[] slid = slide(blockMap.index(row, col), direction);
+                    set(state, slid[0], NO_COMMAND, slid[1]);
+                } else {
+                    set(state, next, commandOrdinal(blockMap.getColor(block), nextColor), direction);
+                }
+                return;
+            }
+
+            // we hit an edge, alternate between toggling the CC and rotating the DP
+            direction = attempt % 2 == 0 ? Director.rotateCC(direction, 1) : Director.rotateDP(direction, 1);
+        }
+
+        set(state, TERMINAL, NO_COMMAND, direction);
+    }
+
+    /**
+     * Slides through white Codels in a straight line until a colored Codel is hit.
+     *
+     * When the slide is restricted by black or an edge, the CC is toggled and the
+     * DP stepped clockwise, and the slide continues from where it stopped.
+     *
+     * @param start     the packed index of the white Codel the slide begins at
+     * @param direction the direction the Director is facing when the slide begins
+     * @return the Block the slide ends in (or {@link #TERMINAL}) and the direction
+     *         the Director is left facing
+     */
+    private int[] slide(int start, int direction) {
+
+        int index = start;
+
+        for(int attempt = 0; attempt <= Director.DIRECTIONS; attempt++) {
+
+            index = blockMap.getSlideEnd(index, Director.getDP(direction));
+
+            int block = blockMap.getBlockId(index);
+            if(blockMap.getColor(block) != PietColor.WHITE) {
+                return new int[] { block, direction };
+            }
+
+            direction = Director.rotateDP(Director.rotateCC(direction, 1), 1);
+        }
+
+        return new int[] { TERMINAL, direction };
+    }
+
+    /**
+     * @return true if the Codel is on the board and not black
+     */
+    private boolean isOpen(int row, int col) {
+        if(row < 0 || row >= sizeRow || col < 0 || col >= sizeCol) {
+            return false;
+        }
+        return blockMap.getColor(blockMap.getBlockId(blockMap.index(row, col))) != PietColor.BLACK;
+    }
+
+    private int commandOrdinal(PietColor older, PietColor newer) {
+        try {
+            return Command.getCommand(older, newer).ordinal();
+        } catch(PietCommandNotFoundException e) {
+            return NO_COMMAND;
+        }
+    }
+
+    private void set(int state, int target, int command, int direction) {
+        targets[state] = target;
+        actions[state] = (byte) (command << 3 | direction);
+    }
+
+}
@@ -3,12 +3,32 @@ package com.frejt.piet.config;
 import java.nio.file.Path;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.frejt.piet.utils.PietStack;
+import com.frejt.piet.utils.reader.PietFileReader;
 
 public class Config {
 
     @JsonProperty
     private HostTypes host;
 
+    @JsonProperty
+    private EngineTypes engine;
+
+    @JsonProperty
+    private Integer maxStackDepth;
+
+    @JsonProperty
+    private NumericTypes numericType;
+
+    @JsonProperty
+    private Boolean detectNonHalting;
+
+    @JsonProperty
+    private NonStandardColorTypes nonStandardColor;
+
+    @JsonProperty
+    private Integer codelSize;
+
     @JsonProperty
     private String azureDBAccountURL;
 
@@ -40,6 +60,51 @@ public class Config {
         return host;
     }
 
+    /**
+     * @return the engine programs are executed with, defaulting to the interpreter
+     */
+    public EngineTypes getEngine() {
+        return engine == null ? EngineTypes.INTERPRETER : engine;
+    }
+
+    /**
+     * @return the most values a program's stack may hold, unbounded by default
+     */
+    public int getMaxStackDepth() {
+        return maxStackDepth == null ? PietStack.UNBOUNDED : maxStackDepth;
+    }
+
+    /**
+     * @return how a program's stack holds its values, defaulting to 32 bit integers
+     */
+    public NumericTypes getNumericType() {
+        return numericType == null ? NumericTypes.INT32 : numericType;
+    }
+
+    /**
+     * @return whether the interpreter stops programs found to never halt, off by
+     *         default
+     */
+    public boolean getDetectNonHalting() {
+        return detectNonHalting != null && detectNonHalting;
+    }
+
+    /**
+     * @return how colors outside of Piet's 20 are read, failing to read them by
+     *         default
+     */
+    public NonStandardColorTypes getNonStandardColor() {
+        return nonStandardColor == null ? NonStandardColorTypes.ERROR : nonStandardColor;
+    }
+
+    /**
+     * @return the size of a codel in pixels along each side, detected from each
+     *         image by default
+     */
+    public int getCodelSize() {
+        return codelSize == null ? PietFileReader.DETECT_CODEL_SIZE : codelSize;
+    }
+
     public String getAzureDBAccountURL() {
         return azureDBAccountURL;
     }
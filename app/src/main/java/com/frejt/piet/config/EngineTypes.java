@@ -0,0 +1,15 @@
+package com.frejt.piet.config;
+
+/**
+ * The ways a Piet program can be executed.
+ */
+public enum EngineTypes {
+    INTERPRETER,
+    STEP,
+    TABLE,
+    FUSED,
+    OPTIMIZED,
+    TIERED,
+    BACKGROUND,
+    JIT;
+}
@@ -0,0 +1,23 @@
+package com.frejt.piet.config;
+
+/**
+ * The ways a color outside of Piet's 20 can be read.
+ */
+public enum NonStandardColorTypes {
+    /**
+     * The color can't be read, and the program isn't ran
+     */
+    ERROR,
+    /**
+     * The color is read as white, so it may be used wherever white is
+     */
+    WHITE,
+    /**
+     * The color is read as black, so it may be used wherever black is
+     */
+    BLACK,
+    /**
+     * The color is read as whichever of Piet's colors is closest to it
+     */
+    NEAREST;
+}
@@ -0,0 +1,19 @@
+package com.frejt.piet.config;
+
+/**
+ * The ways a Piet program's stack can hold its values.
+ */
+public enum NumericTypes {
+    /**
+     * 32 bit integers, where results wrap on overflow
+     */
+    INT32,
+    /**
+     * 64 bit integers, where any command that would overflow is ignored
+     */
+    INT64,
+    /**
+     * Integers of any size
+     */
+    UNBOUNDED;
+}
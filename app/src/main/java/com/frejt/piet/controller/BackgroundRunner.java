@@ -0,0 +1,128 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.utils.BlockMap;
+
+/**
+ * Runs a Piet program straight away, while its {@link TransitionTable} is built
+ * in the background.
+ *
+ * The program starts out stepped through by a {@link StepRunner} over a lazy
+ * {@link BlockMap}, which only labels the Blocks the program actually reaches.
+ * Meanwhile, a background thread labels the whole board and builds the table.
+ * Once the table is ready, the program switches over to walking it between two
+ * steps, carrying over the Block it's in, the direction the Director faces and
+ * its stack.
+ *
+ * The tier the program ended in is kept on the {@link Program}:
+ * {@link ExecutionTier#INTERPRETED} if it ended before the table was ready, or
+ * {@link ExecutionTier#TABLE} if it switched over.
+ */
+public class BackgroundRunner {
+
+    private static final Logger log = LogManager.getLogger(BackgroundRunner.class);
+
+    private Program program;
+    private Director director;
+
+    private Board board;
+
+    public BackgroundRunner(Board board, UUID uuid) {
+
+        program = Programmer.newProgram(uuid);
+        director = program.getDirector();
+
+        this.board = board;
+    }
+
+    /**
+     * Runs the program from the Block holding the upper left Codel until it ends,
+     * switching over to the table once it's been built.
+     */
+    public void runBoard() {
+
+        FutureTask<TransitionTable> build = new FutureTask<>(() -> new TransitionTable(new BlockMap(board)));
+        Thread builder = new Thread(build, "piet-table-builder");
+        builder.setDaemon(true);
+        builder.start();
+
+        program.setTier(ExecutionTier.INTERPRETED);
+
+        BlockMap lazyMap = new BlockMap(board, true);
+        StepRunner stepper = new StepRunner(lazyMap, program);
+        stepper.start();
+
+        while(stepper.step()) {
+            if(build.isDone()) {
+                TransitionTable table = getTable(build);
+                if(table != null) {
+                    // the two maps number their Blocks differently, so carry the Block over by one of its Codels
+                    int codel = lazyMap.getExit(stepper.getBlock(), BlockMap.TOP_LEFT);
+                    walk(table, table.getBlockMap().getBlockId(codel));
+                    return;
+                }
+            }
+        }
+
+        build.cancel(true);
+    }
+
+    /**
+     * @return the built table, or null if it couldn't be built
+     */
+    private TransitionTable getTable(FutureTask<TransitionTable> build) {
+        try {
+            return build.get();
+        } catch(ExecutionException e) {
+            log.warn("Could not build the transition table, carrying on without it: " + e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Walks the table from the given Block, in the direction the Director is
+     * facing, until the program ends.
+     */
+    private void walk(TransitionTable table, int block) {
+
+        log.debug("The transition table is ready, switching over to it");
+        program.setTier(ExecutionTier.TABLE);
+
+        BlockMap blockMap = table.getBlockMap();
+        int state = TransitionTable.getState(block, director.getDirection());
+
+        while(!program.getEnd()) {
+
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                program.end();
+                break;
+            }
+
+            director.setDirection(table.getDirection(state));
+
+            Command command = table.getCommand(state);
+            if(command != null) {
+                program.addToCommandList(command);
+                command.calculate(program, blockMap.getSize(state / Director.DIRECTIONS));
+            }
+
+            // the command may have turned the DP or CC
+            state = TransitionTable.getState(next, director.getDirection());
+        }
+    }
+
+}
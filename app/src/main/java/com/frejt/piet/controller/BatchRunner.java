@@ -0,0 +1,544 @@
+package com.frejt.piet.controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.BlockMap;
+
+/**
+ * Runs a single Piet program over many inputs at once, walking its
+ * {@link TransitionTable} for every input in lockstep.
+ *
+ * Each input runs in a lane of its own, with its own stack and output. The
+ * stacks are kept together, a value at a time: the value at a given depth for
+ * every lane sits side by side, so a command is ran for every lane with one
+ * straight loop over the lanes.
+ *
+ * Lanes stay together in a group for as long as they agree on where the
+ * program goes next. A group splits once its lanes stop agreeing, which only
+ * happens at a command whose effect depends on the values on the stack:
+ * - a {@link Command#POINTER} or {@link Command#SWITCH} turning the Director
+ *   by a different amount
+ * - a {@link Command#DIV} or {@link Command#MOD} by zero, which is ignored
+ * - a {@link Command#IN_NUM} or {@link Command#IN_CHAR} with no input left,
+ *   which is ignored
+ *
+ * A {@link Command#GREATER} doesn't split a group on its own, since its result
+ * is just another value until a branch pops it. Each group then carries on by
+ * itself, all the way down to a single lane. Programs whose control flow doesn't
+ * depend on their input run their every lane for the cost of little more than
+ * a single run.
+ *
+ * Values are 32 bit integers, like the {@link com.frejt.piet.compiler.JitCompiler}'s,
+ * and the stacks have no maximum depth.
+ */
+public class BatchRunner {
+
+    private static final int INITIAL_DEPTH = 16;
+
+    private TransitionTable table;
+    private BlockMap blockMap;
+
+    private int lanes;
+
+    /**
+     * The value at depth d, from the bottom, of lane l's stack is at
+     * <code>d * lanes + l</code>
+     */
+    private int[] values;
+
+    /**
+     * The number of depths {@link #values} has room for
+     */
+    private int depth;
+
+    /**
+     * The size of each lane's stack once its program has ended
+     */
+    private int[] sizes;
+
+    private Scanner[] inputs;
+    private StringBuilder[] outputs;
+
+    private Deque<Group> groups = new ArrayDeque<>();
+
+    /**
+     * The number of times a group split apart
+     */
+    private int splits;
+
+    /**
+     * @param table  the program to run
+     * @param inputs the input given to each lane, one lane per input
+     */
+    public BatchRunner(TransitionTable table, List<String> inputs) {
+
+        this.table = table;
+        this.blockMap = table.getBlockMap();
+
+        this.lanes = inputs.size();
+        this.depth = INITIAL_DEPTH;
+        this.values = new int[depth * lanes];
+        this.sizes = new int[lanes];
+
+        this.inputs = new Scanner[lanes];
+        this.outputs = new StringBuilder[lanes];
+        for(int lane = 0; lane < lanes; lane++) {
+            this.inputs[lane] = new Scanner(inputs.get(lane));
+            this.outputs[lane] = new StringBuilder();
+        }
+    }
+
+    public int getLaneCount() {
+        return this.lanes;
+    }
+
+    public int getSplits() {
+        return this.splits;
+    }
+
+    /**
+     * @return what the lane's program printed
+     */
+    public String getOutput(int lane) {
+        return this.outputs[lane].toString();
+    }
+
+    /**
+     * @return the values left on the lane's stack, from the bottom to the top
+     */
+    public int[] getStack(int lane) {
+        int[] stack = new int[sizes[lane]];
+        for(int d = 0; d < stack.length; d++) {
+            stack[d] = values[d * lanes + lane];
+        }
+        return stack;
+    }
+
+    /**
+     * Runs the program for every lane until each has ended.
+     */
+    public void runBoard() {
+
+        if(lanes == 0 || table.getStartBlock() == TransitionTable.TERMINAL) {
+            return;
+        }
+
+        int[] all = new int[lanes];
+        for(int lane = 0; lane < lanes; lane++) {
+            all[lane] = lane;
+        }
+        groups.add(new Group(all, lanes, table.getStartBlock(), table.getStartDirection(), 0));
+
+        while(!groups.isEmpty()) {
+            run(groups.poll());
+        }
+    }
+
+    /**
+     * Runs a group of lanes until they end, or split apart.
+     */
+    private void run(Group group) {
+
+        while(true) {
+
+            int state = TransitionTable.getState(group.block, group.direction);
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                for(int k = 0; k < group.count; k++) {
+                    sizes[group.lanes[k]] = group.size;
+                }
+                return;
+            }
+
+            group.direction = table.getDirection(state);
+
+            Command command = table.getCommand(state);
+            if(command != null && !calculate(command, group)) {
+                // the group split apart, and its parts carry on from the next block
+                for(Group part : split(group)) {
+                    part.block = next;
+                    groups.add(part);
+                }
+                splits++;
+                return;
+            }
+
+            group.block = next;
+        }
+    }
+
+    /**
+     * Runs a command for every lane in the group.
+     *
+     * @return false if the lanes no longer agree, and the group needs to be split
+     *         by the direction and stack size left for each of its lanes
+     */
+    private boolean calculate(Command command, Group group) {
+
+        int size = group.size;
+        int top = (size - 1) * lanes;
+        int below = (size - 2) * lanes;
+
+        switch(command) {
+            case PUSH:
+                reserve(size + 1);
+                fill(group, size * lanes, blockMap.getSize(group.block));
+                group.size++;
+                return true;
+            case POP:
+                if(size > 0) {
+                    group.size--;
+                }
+                return true;
+            case ADD:
+            case SUB:
+            case MULT:
+            case GREATER:
+                if(size > 1) {
+                    arithmetic(command, group, below, top);
+                    group.size--;
+                }
+                return true;
+            case DIV:
+            case MOD:
+                return size < 2 || divide(command, group, below, top);
+            case NOT:
+                if(size > 0) {
+                    not(group, top);
+                }
+                return true;
+            case DUP:
+                if(size > 0) {
+                    reserve(size + 1);
+                    dup(group, top);
+                    group.size++;
+                }
+                return true;
+            case ROLL:
+                if(size > 1) {
+                    for(int k = 0; k < group.count; k++) {
+                        roll(group.lanes[k], size);
+                    }
+                    group.size -= 2;
+                }
+                return true;
+            case POINTER:
+            case SWITCH:
+                return size < 1 || branch(command, group, top);
+            case IN_NUM:
+            case IN_CHAR:
+                return read(command, group);
+            case OUT_NUM:
+            case OUT_CHAR:
+                if(size > 0) {
+                    for(int k = 0; k < group.count; k++) {
+                        int lane = group.lanes[k];
+                        if(command == Command.OUT_NUM) {
+                            outputs[lane].append(values[top + lane]);
+                        } else {
+                            outputs[lane].append((char) values[top + lane]);
+                        }
+                    }
+                    group.size--;
+                }
+                return true;
+            case NOP:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Runs a command which takes two values and leaves one, the same way for
+     * every lane.
+     */
+    private void arithmetic(Command command, Group group, int below, int top) {
+
+        // a group of every lane covers each depth in one unbroken run
+        if(group.count == lanes) {
+            switch(command) {
+                case ADD:
+                    for(int lane = 0; lane < lanes; lane++) {
+                        values[below + lane] += values[top + lane];
+                    }
+                    break;
+                case SUB:
+                    for(int lane = 0; lane < lanes; lane++) {
+                        values[below + lane] -= values[top + lane];
+                    }
+                    break;
+                case MULT:
+                    for(int lane = 0; lane < lanes; lane++) {
+                        values[below + lane] *= values[top + lane];
+                    }
+                    break;
+                case GREATER:
+                default:
+                    for(int lane = 0; lane < lanes; lane++) {
+                        values[below + lane] = values[below + lane] > values[top + lane] ? 1 : 0;
+                    }
+                    break;
+            }
+            return;
+        }
+
+        for(int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            int bottom = values[below + lane];
+            int value = values[top + lane];
+            switch(command) {
+                case ADD:
+                    values[below + lane] = bottom + value;
+                    break;
+                case SUB:
+                    values[below + lane] = bottom - value;
+                    break;
+                case MULT:
+                    values[below + lane] = bottom * value;
+                    break;
+                case GREATER:
+                default:
+                    values[below + lane] = bottom > value ? 1 : 0;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Divides, or takes the modulus, for every lane not dividing by zero.
+     *
+     * @return false if only some of the lanes divided by zero
+     */
+    private boolean divide(Command command, Group group, int below, int top) {
+
+        int ignored = 0;
+        for(int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            int divisor = values[top + lane];
+            if(divisor == 0) {
+                group.sizes[k] = group.size;
+                ignored++;
+                continue;
+            }
+            int dividend = values[below + lane];
+            values[below + lane] = command == Command.DIV ? dividend / divisor : Math.floorMod(dividend, divisor);
+            group.sizes[k] = group.size - 1;
+        }
+
+        if(ignored == 0) {
+            group.size--;
+            return true;
+        }
+        if(ignored == group.count) {
+            return true;
+        }
+        Arrays.fill(group.directions, 0, group.count, group.direction);
+        return false;
+    }
+
+    private void not(Group group, int top) {
+        if(group.count == lanes) {
+            for(int lane = 0; lane < lanes; lane++) {
+                values[top + lane] = values[top + lane] == 0 ? 1 : 0;
+            }
+            return;
+        }
+        for(int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            values[top + lane] = values[top + lane] == 0 ? 1 : 0;
+        }
+    }
+
+    private void dup(Group group, int top) {
+        if(group.count == lanes) {
+            System.arraycopy(values, top, values, top + lanes, lanes);
+            return;
+        }
+        for(int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            values[top + lanes + lane] = values[top + lane];
+        }
+    }
+
+    private void fill(Group group, int at, int value) {
+        if(group.count == lanes) {
+            Arrays.fill(values, at, at + lanes, value);
+            return;
+        }
+        for(int k = 0; k < group.count; k++) {
+            values[at + group.lanes[k]] = value;
+        }
+    }
+
+    /**
+     * Pops the value turning the Director, for every lane.
+     *
+     * @return false if the lanes were left facing different directions
+     */
+    private boolean branch(Command command, Group group, int top) {
+
+        boolean agree = true;
+        for(int k = 0; k < group.count; k++) {
+            int value = values[top + group.lanes[k]];
+            int turned = command == Command.POINTER
+                    ? Director.rotateDP(group.direction, value)
+                    : Director.rotateCC(group.direction, value);
+            group.directions[k] = turned;
+            group.sizes[k] = group.size - 1;
+            agree &= turned == group.directions[0];
+        }
+
+        group.size--;
+        if(agree) {
+            group.direction = group.directions[0];
+        }
+        return agree;
+    }
+
+    /**
+     * Reads a value for every lane, from the lane's own input.
+     *
+     * @return false if only some of the lanes had input left to read
+     */
+    private boolean read(Command command, Group group) {
+
+        reserve(group.size + 1);
+        int at = group.size * lanes;
+
+        int missing = 0;
+        for(int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            group.sizes[k] = group.size;
+            try {
+                values[at + lane] = command == Command.IN_NUM
+                        ? inputs[lane].nextInt()
+                        : inputs[lane].next().charAt(0);
+                group.sizes[k]++;
+            } catch(NoSuchElementException e) {
+                // †if no input is waiting, or a number read isn't a number, the command is ignored
+                missing++;
+            }
+        }
+
+        if(missing == 0) {
+            group.size++;
+            return true;
+        }
+        if(missing == group.count) {
+            return true;
+        }
+        Arrays.fill(group.directions, 0, group.count, group.direction);
+        return false;
+    }
+
+    /**
+     * @see com.frejt.piet.utils.PietStack#roll()
+     */
+    private void roll(int lane, int size) {
+
+        int rolls = values[(size - 1) * lanes + lane];
+        int count = values[(size - 2) * lanes + lane];
+        size -= 2;
+
+        if(count <= 0 || count > size) {
+            return;
+        }
+
+        int turns = Math.floorMod(rolls, count);
+        int bottom = size - count;
+        reverse(lane, bottom, size);
+        reverse(lane, bottom, bottom + turns);
+        reverse(lane, bottom + turns, size);
+    }
+
+    private void reverse(int lane, int from, int to) {
+        for(int i = from, j = to - 1; i < j; i++, j--) {
+            int tmp = values[i * lanes + lane];
+            values[i * lanes + lane] = values[j * lanes + lane];
+            values[j * lanes + lane] = tmp;
+        }
+    }
+
+    /**
+     * Makes room for every lane's stack to hold the given number of values.
+     */
+    private void reserve(int size) {
+        if(size > depth) {
+            depth = Math.max(depth << 1, size);
+            values = Arrays.copyOf(values, depth * lanes);
+        }
+    }
+
+    /**
+     * Splits a group by the direction and stack size left for each of its lanes.
+     */
+    private List<Group> split(Group group) {
+
+        List<Group> parts = new ArrayList<>();
+        boolean[] taken = new boolean[group.count];
+
+        for(int k = 0; k < group.count; k++) {
+            if(taken[k]) {
+                continue;
+            }
+            int[] members = new int[group.count];
+            int count = 0;
+            for(int j = k; j < group.count; j++) {
+                if(!taken[j] && group.directions[j] == group.directions[k] && group.sizes[j] == group.sizes[k]) {
+                    taken[j] = true;
+                    members[count++] = group.lanes[j];
+                }
+            }
+            parts.add(new Group(Arrays.copyOf(members, count), count, group.block, group.directions[k], group.sizes[k]));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Lanes which are all in the same Block, facing the same direction, with
+     * stacks of the same size.
+     */
+    private static class Group {
+
+        private int[] lanes;
+        private int count;
+
+        private int block;
+        private int direction;
+        private int size;
+
+        /**
+         * The direction left for each lane by a command the lanes may not agree
+         * on
+         */
+        private int[] directions;
+
+        /**
+         * The stack size left for each lane by a command the lanes may not agree
+         * on
+         */
+        private int[] sizes;
+
+        Group(int[] lanes, int count, int block, int direction, int size) {
+            this.lanes = lanes;
+            this.count = count;
+            this.block = block;
+            this.direction = direction;
+            this.size = size;
+            this.directions = new int[count];
+            this.sizes = new int[count];
+        }
+    }
+
+}
@@ -14,6 +14,7 @@ import com.frejt.piet.entity.Codel;
 import com.frejt.piet.exception.PietCommandNotFoundException;
 import com.frejt.piet.exception.PietExecutionException;
 import com.frejt.piet.utils.Block;
+import com.frejt.piet.utils.BlockMap;
 import com.frejt.piet.utils.BlockSet;
 import com.frejt.piet.utils.color.PietColor;
 
@@ -23,21 +24,55 @@ public class BoardRunner {
 
     private Program program;
     private Director director;
+
+    /**
+     * Runs the command between each pair of Blocks, reused for every step
+     */
+    private CommandRunner commandRunner;
     
     private Board board;
 
+    /**
+     * Every Block on the board, labeled once before the run starts
+     */
+    private BlockMap blockMap;
+
+    /**
+     * Watches for the program never halting, null unless asked for
+     */
+    private CycleDetector cycleDetector;
+
     // TOOD: move the UUID to the PietProgramRunner, probably
     private UUID uuid;
 
     public BoardRunner(Board board, UUID uuid) {
+        this(new BlockMap(board), uuid);
+    }
+
+    public BoardRunner(BlockMap blockMap, UUID uuid) {
 
         program = Programmer.newProgram(uuid);
         director = program.getDirector();
+        commandRunner = new CommandRunner(program);
 
-        this.board = board;
+        this.board = blockMap.getBoard();
+        this.blockMap = blockMap;
         this.uuid = uuid;
     }
 
+    public boolean getDetectCycles() {
+        return this.cycleDetector != null;
+    }
+
+    /**
+     * @param detectCycles whether to stop the program, with a status of
+     *                     {@link ExecutionStatus#NON_HALTING}, once it's found to
+     *                     be stuck in a cycle it will never leave
+     */
+    public void setDetectCycles(boolean detectCycles) {
+        this.cycleDetector = detectCycles ? new CycleDetector(program) : null;
+    }
+
     /**
      * Given a {@link Board}, move through the board in order and perform the
      * commands.
@@ -53,31 +88,25 @@ public class BoardRunner {
         // the program will end on it's own (hypothetically)
         while(!program.getEnd()) {
 
-            // get the coords of the next Codel
-            // TODO: probably make this it's own func
-            Block nextBlock = new Block(board, nextCodel);
-            Integer nextSize = findSizeCodel(nextBlock, nextCodel);
-            nextBlock.setSize(nextSize);
-
+            // the blocks were all found before the run started, so just look it up
+            Block nextBlock = blockMap.getBlock(nextCodel);
             blocks.addBlock(nextBlock);
-            board.setVisitedAll(false);
 
             // White codels are a special case
             if (blocks.getLast().getColor().equals(PietColor.WHITE)) {
                 Codel nextNonWhiteCodel = getNextCodelWhite(nextCodel, blocks.getFirst().getRightTop(), 0);
-                Block nextNonWhiteBlock = new Block(board, nextNonWhiteCodel);
-                Integer nextNonWhiteSize = findSizeCodel(nextNonWhiteBlock, nextNonWhiteCodel);
-                nextNonWhiteBlock.setSize(nextNonWhiteSize);
+                if(program.getEnd()) {
+                    break;
+                }
+
+                Block nextNonWhiteBlock = blockMap.getBlock(nextNonWhiteCodel);
 
                 blocks.set(0, nextNonWhiteBlock);
                 blocks.remove(1);
-
-                board.setVisitedAll(false);
             } else {
 
                 try {
-                    CommandRunner runner = new CommandRunner(uuid, program.getStack(), blocks);
-                    runner.run();
+                    commandRunner.run(blocks.getFirst(), blocks.getLast());
                 } catch (PietCommandNotFoundException e) {
                     log.error("Ran into an error during execution: " + e.getMessage());
                     program.end();
@@ -89,6 +118,14 @@ public class BoardRunner {
 
             blocks.rotateBlocks();
 
+            if(cycleDetector != null && !program.getEnd()
+                    && cycleDetector.observe(blockMap.getBlockId(blocks.getFirst().getRightTop()), director.getDirection())) {
+                log.warn("The program is stuck in a cycle, and will never halt");
+                program.setStatus(ExecutionStatus.NON_HALTING);
+                program.end();
+                break;
+            }
+
             nextCodel = getNextCodel(blocks.getFirst(), 0);
         }
 
@@ -97,70 +134,18 @@ public class BoardRunner {
     /**
      * Prepares to run the board by finding the initial block in the program.
      * 
-     * @param board the board being ran during execution
      * @return a list holding the first {@link Block} of the program.
      */
     public BlockSet prepareForRun() {
 
-        BlockSet blockSet;
-
         // The Piet language interpreter begins executing a program in the colour block
         // which includes the upper left codel of the program.
-        Codel first = new Codel(0, 0);
-
-        Block initBlock = new Block(board, first);
-        initBlock.setSize(findSizeCodel(initBlock, first));
-
-        board.setVisitedAll(false);
-
-        blockSet = new BlockSet(initBlock);
+        Block initBlock = blockMap.getBlock(new Codel(0, 0));
 
-        return blockSet;
+        return new BlockSet(initBlock);
 
     }
 
-    /**
-     * Finds the size of a Block of Codels.
-     * TODO: probably move this into the {@link Block} class
-     * 
-     * @param board the Board being used during the traversal of the program
-     * @param block the Block the size is being found for
-     * @param coord the Codel in the block to stat execution from
-     * @return the size of the Block
-     */
-    public Integer findSizeCodel(Block block, Codel coord) {
-        // codel is uninitiated, so I need to set its corners
-        if (block.getRightTop().getX() == -1) {
-            block.setCorner(coord);
-        }
-
-        // Include the color current coordinate
-        Integer count = 1;
-        board.setVisited(coord, true);
-
-        // 4 directions the program will search in for more of the same color
-        Codel newCoordinate;
-
-        for (DP dp : DP.values()) {
-            int x = dp.getX();
-            int y = dp.getY();
-
-            newCoordinate = new Codel(coord.getX() + x, coord.getY() + y);
-
-            // Not valid if not in bounds or previously visited
-            if(!board.isInBounds(newCoordinate) || board.getVisited(newCoordinate)) {
-                continue;
-            }
-
-            if (board.getColor(newCoordinate) == block.getColor()) {
-                block.setCorner(newCoordinate);
-                count += findSizeCodel(block, newCoordinate);
-            }
-        }
-
-        return count;
-    }
-    
     /**
      * Based on the Director's DP and CC values, finds the next codel from the
      * passed in Block's corner Codels.
@@ -209,7 +194,7 @@ public class BoardRunner {
                         currEdge = new Codel(block.getLeftBottom());
                         break;
                     case RIGHT:
-                        currEdge = new Codel(block.getLeftBottom());
+                        currEdge = new Codel(block.getLeftTop());
                         break;
                     default:
                         throw new PietExecutionException("CC was found in an invalid state: " + cc);
@@ -307,39 +292,29 @@ public class BoardRunner {
      */
     public Codel getNextCodelWhite(Codel startCodel, Codel previousColor, int attempt) {
 
+        int index = blockMap.index(startCodel.getX(), startCodel.getY());
+
         // We are not able to find another valid Codel in any of the current
         // blocks Codels.
-        if (attempt > 8) {
-            program.end();
-            return new Codel(-1, -1);
-        }
-
-        DP dp = director.getDP();
+        for(; attempt <= 8; attempt++) {
 
-        int currRow = startCodel.getX();
-        int currCol = startCodel.getY();
-        Codel currCodel = new Codel(startCodel);
+            // The interpreter "slides" across the white block in a straight line, which
+            // the BlockMap has already worked out
+            index = blockMap.getSlideEnd(index, director.getDP());
 
-        // The interpreter "slides" across the white block in a straight line
-        while(board.getColor(currCodel).equals(PietColor.WHITE)) {
-            Codel potentialNext = new Codel(currRow + dp.getX(), currCol + dp.getY());
+            if(blockMap.getColor(blockMap.getBlockId(index)) != PietColor.WHITE) {
+                return blockMap.toCodel(index);
+            }
 
             // If it hits a restriction, the CC is toggled. Since this results in no
             // difference in where the interpreter is trying to go, the DP is immediately
             // stepped clockwise.
-            if(!board.isInBounds(potentialNext) || board.getColor(potentialNext).equals(PietColor.BLACK)) {
-                director.rotateCC(1);
-                director.rotateDP(1);
-                return getNextCodelWhite(currCodel, previousColor, attempt + 1);
-            }
-
-            currRow += dp.getX();
-            currCol += dp.getY();
-            currCodel = potentialNext;
-
+            director.rotateCC(1);
+            director.rotateDP(1);
         }
 
-        return currCodel;
+        program.end();
+        return new Codel(-1, -1);
     }
     
 }
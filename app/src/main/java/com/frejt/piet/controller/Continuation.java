@@ -0,0 +1,85 @@
+package com.frejt.piet.controller;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Everything needed to pick a program back up after it has been suspended by
+ * the {@link SuspendableRunner}: the Block it is in, the direction its
+ * Director faces, its stack, and how much output it has printed so far.
+ *
+ * A continuation belongs to no thread. It can be kept for as long as the
+ * program waits on its input, and resumed on whichever thread the input
+ * arrives on.
+ */
+public class Continuation {
+
+    /**
+     * The Block the program is in, or {@link com.frejt.piet.compiler.TransitionTable#TERMINAL}
+     * once it has ended
+     */
+    private int block;
+
+    /**
+     * The direction the Director faces, holding both the DP and CC
+     */
+    private int direction;
+
+    private PietStack stack;
+
+    /**
+     * The number of characters printed before this continuation's output
+     */
+    private int outputPosition;
+
+    /**
+     * The characters printed since the program was last suspended
+     */
+    private String output;
+
+    /**
+     * The input command the program is waiting to run, or null if it has ended
+     */
+    private Command waitingOn;
+
+    public Continuation(int block, int direction, PietStack stack, int outputPosition, String output, Command waitingOn) {
+        this.block = block;
+        this.direction = direction;
+        this.stack = stack;
+        this.outputPosition = outputPosition;
+        this.output = output;
+        this.waitingOn = waitingOn;
+    }
+
+    public int getBlock() {
+        return this.block;
+    }
+
+    public int getDirection() {
+        return this.direction;
+    }
+
+    public PietStack getStack() {
+        return this.stack;
+    }
+
+    public int getOutputPosition() {
+        return this.outputPosition;
+    }
+
+    public String getOutput() {
+        return this.output;
+    }
+
+    public Command getWaitingOn() {
+        return this.waitingOn;
+    }
+
+    /**
+     * @return true if the program is waiting on input, or false if it has ended
+     */
+    public boolean isWaiting() {
+        return this.waitingOn != null;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.frejt.piet.controller;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Watches a running program for proof that it will never halt.
+ *
+ * Without input, a program is fully determined by where it is (its Block and
+ * the direction the Director faces) and what is on its stack. Once it comes
+ * back to a state it has already been in, it will go around the same way
+ * forever. The detector looks for such a repeat with Brent's algorithm: a
+ * single state is saved at a time, and compared against every state after it,
+ * with a new state saved each time the number of steps since the last doubles.
+ * A cycle is found within a small multiple of the steps it takes to enter it
+ * and go around it once.
+ *
+ * Comparing a state with the saved one is cheap unless it's very nearly the
+ * same: the Block, direction, stack height and length of the output are
+ * compared first. If no command has ran since the state was saved, the program
+ * has only been going around in circles without touching its stack, and the
+ * stack needn't be compared at all.
+ *
+ * Input makes the same state able to lead somewhere new, so once the program
+ * reads any, the detector gives up for the rest of the run.
+ */
+public class CycleDetector {
+
+    private Program program;
+
+    /**
+     * Whether the program has read input, and can no longer be watched
+     */
+    private boolean disabled;
+
+    /**
+     * The number of steps to take before saving a new state
+     */
+    private long power = 1;
+
+    /**
+     * The number of steps taken since the state was saved
+     */
+    private long steps;
+
+    private int savedBlock = -1;
+    private int savedDirection;
+    private int savedOutputLength;
+    private long savedCommandCount;
+    private PietStack savedStack;
+
+    public CycleDetector(Program program) {
+        this.program = program;
+    }
+
+    public boolean isDisabled() {
+        return this.disabled;
+    }
+
+    /**
+     * Takes note of the program's state after a step.
+     *
+     * @param block     the id of the Block the program is in
+     * @param direction the direction the Director faces
+     * @return true if the program has been in the same state before, and so will
+     *         never halt
+     */
+    public boolean observe(int block, int direction) {
+
+        if(disabled) {
+            return false;
+        }
+
+        Command last = program.getLastCommand();
+        if(last == Command.IN_NUM || last == Command.IN_CHAR) {
+            disabled = true;
+            savedStack = null;
+            return false;
+        }
+
+        PietStack stack = program.getStack();
+        int outputLength = program.getOutputBuilder().length();
+        long commandCount = program.getCommandCount();
+
+        if(block == savedBlock && direction == savedDirection && outputLength == savedOutputLength
+                && (commandCount == savedCommandCount || stack.size() == savedStack.size() && stack.equals(savedStack))) {
+            return true;
+        }
+
+        if(++steps == power) {
+            savedBlock = block;
+            savedDirection = direction;
+            savedOutputLength = outputLength;
+            savedCommandCount = commandCount;
+            savedStack = stack.copy();
+            power <<= 1;
+            steps = 0;
+        }
+
+        return false;
+    }
+
+}
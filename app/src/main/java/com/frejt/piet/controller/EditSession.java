@@ -0,0 +1,53 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.utils.BlockMap;
+
+/**
+ * Keeps a {@link TransitionTable} of a board up to date as the board is edited.
+ *
+ * The board is labeled and compiled once up front. After that, edits made with
+ * {@link Board#edit} are only applied the next time the table is needed: the
+ * {@link BlockMap} relabels just the Blocks the edits touched, and the table
+ * resolves just the states those Blocks could change. A board can be edited
+ * and ran again and again without paying for a full rebuild each time.
+ */
+public class EditSession {
+
+    private Board board;
+    private BlockMap blockMap;
+    private TransitionTable table;
+
+    public EditSession(Board board) {
+        this.board = board;
+        this.blockMap = new BlockMap(board);
+        this.table = new TransitionTable(blockMap);
+    }
+
+    public Board getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @return the table of the board as it is now, with any edits applied
+     */
+    public TransitionTable getTable() {
+        if(!board.getDirty().isEmpty()) {
+            table.update(blockMap.update());
+        }
+        return this.table;
+    }
+
+    /**
+     * Runs the board as it is now, with any edits applied.
+     *
+     * @param uuid the id to run the program under
+     */
+    public void run(UUID uuid) {
+        new TableRunner(getTable(), uuid).runBoard();
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.frejt.piet.controller;
+
+/**
+ * The ways a program can finish running.
+ */
+public enum ExecutionStatus {
+    /**
+     * The program ended on its own
+     */
+    HALTED,
+    /**
+     * The program was found to be stuck running forever, and was stopped
+     */
+    NON_HALTING;
+}
@@ -0,0 +1,11 @@
+package com.frejt.piet.controller;
+
+/**
+ * The ways the {@link TieredRunner} can be running a program, from the quickest
+ * to start to the quickest to run.
+ */
+public enum ExecutionTier {
+    INTERPRETED,
+    TABLE,
+    COMPILED;
+}
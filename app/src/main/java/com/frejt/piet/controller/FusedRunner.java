@@ -0,0 +1,100 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.Superinstruction;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.BlockMap;
+
+/**
+ * Runs a Piet program by walking its {@link TransitionTable}, running each
+ * straight run of commands as a single {@link Superinstruction}.
+ *
+ * Runs are fused the first time the program reaches the state they start at,
+ * and kept for every later visit. States which no run can start from, such as
+ * a {@link Command#POINTER}, are stepped through one at a time just as the
+ * {@link TableRunner} does.
+ */
+public class FusedRunner {
+
+    private Program program;
+    private Director director;
+
+    private TransitionTable table;
+    private BlockMap blockMap;
+
+    /**
+     * The run fused at each state, or null if none could be
+     */
+    private Superinstruction[] runs;
+
+    /**
+     * Whether a run has been fused at each state yet
+     */
+    private boolean[] fused;
+
+    public FusedRunner(TransitionTable table, UUID uuid) {
+
+        program = Programmer.newProgram(uuid);
+        director = program.getDirector();
+
+        this.table = table;
+        this.blockMap = table.getBlockMap();
+        this.runs = new Superinstruction[table.getStateCount()];
+        this.fused = new boolean[table.getStateCount()];
+    }
+
+    /**
+     * Walks the {@link TransitionTable} from the first Block of the program,
+     * performing commands, until a terminal state is reached.
+     */
+    public void runBoard() {
+
+        if(table.getStartBlock() == TransitionTable.TERMINAL) {
+            program.end();
+            return;
+        }
+
+        int state = TransitionTable.getState(table.getStartBlock(), table.getStartDirection());
+
+        while(!program.getEnd()) {
+
+            Superinstruction run = getRun(state);
+            if(run != null) {
+                run.run(program);
+                state = run.getNext();
+                continue;
+            }
+
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                program.end();
+                break;
+            }
+
+            director.setDirection(table.getDirection(state));
+
+            Command command = table.getCommand(state);
+            if(command != null) {
+                program.addToCommandList(command);
+                command.calculate(program, blockMap.getSize(state / Director.DIRECTIONS));
+            }
+
+            // the command may have turned the DP or CC
+            state = TransitionTable.getState(next, director.getDirection());
+        }
+
+    }
+
+    private Superinstruction getRun(int state) {
+        if(!fused[state]) {
+            runs[state] = Superinstruction.fuse(table, state);
+            fused[state] = true;
+        }
+        return runs[state];
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.frejt.piet.controller;
 
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -9,10 +10,15 @@ import org.apache.logging.log4j.Logger;
 
 import com.frejt.azure.eventhubs.ServiceBus;
 import com.frejt.azure.storage.BlobStorage;
+import com.frejt.piet.compiler.AotCompiler;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.config.Config;
 import com.frejt.piet.config.ConfigManager;
 import com.frejt.piet.config.HostTypes;
+import com.frejt.piet.config.NumericTypes;
 import com.frejt.piet.entity.Board;
 import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
 import com.frejt.piet.utils.reader.PietFileReader;
 
 /**
@@ -42,10 +48,17 @@ public class Interpreter {
     /**
      * Entry point to the program.
      * 
-     * @param args: args[0] - String holding the program's file path
+     * @param args: args[0] - String holding the program's file path,
+     *              or {@value InterpreterUtils#COMPILE_FLAG} followed by the program's
+     *              file path and, optionally, the path of the JAR to write
      */
     public static void main(String[] args) {
 
+        if(InterpreterUtils.isCompile(args)) {
+            runCompile(args);
+            System.exit(0);
+        }
+
         HostTypes host = ConfigManager.getInstance().getConfig().getHost();
 
         if(host.equals(HostTypes.CLOUD)) {
@@ -77,6 +90,37 @@ public class Interpreter {
 
     }
 
+    /**
+     * Compiles a single Piet program into a runnable JAR, without running it
+     * 
+     * @param args: args[1] - String holding the program's file path
+     *              args[2] - String holding the path of the JAR to write, optional
+     */
+    public static void runCompile(String[] args) {
+
+        Config config = ConfigManager.getInstance().getConfig();
+
+        // compiled programs work on 32 bit integers only, and there is no other engine to fall back to
+        if(config.getNumericType() != NumericTypes.INT32) {
+            log.error("Compiled programs only support " + NumericTypes.INT32 + " values, not " + config.getNumericType());
+            return;
+        }
+
+        try {
+            Path runFile = InterpreterUtils.getRunFile(Arrays.copyOfRange(args, 1, args.length));
+            Path jarFile = InterpreterUtils.getCompileFile(runFile, args);
+
+            PietFileReader fileReader = new PietFileReader(runFile, config.getNonStandardColor());
+            fileReader.setCodelSize(config.getCodelSize());
+            Board board = fileReader.convertFileToBoard();
+
+            AotCompiler.compile(new TransitionTable(new BlockMap(board)), jarFile, config.getMaxStackDepth());
+        } catch(PietExecutionException e) {
+            log.error("Program was unable to be compiled: ", e);
+        }
+
+    }
+
     /**
      * Forever runs service bus that picks up and runs any Piet
      * programs that get sent to it
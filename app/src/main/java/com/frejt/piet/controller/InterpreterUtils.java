@@ -6,6 +6,43 @@ import java.util.Scanner;
 
 class InterpreterUtils {
 
+    /**
+     * The argument asking for a program to be compiled into a JAR instead of ran
+     */
+    public static final String COMPILE_FLAG = "--compile";
+
+    /**
+     * @param args the arguments provided to the program
+     * @return true if the program should be compiled instead of ran
+     */
+    public static boolean isCompile(String[] args) {
+        return args.length > 0 && args[0].equals(COMPILE_FLAG);
+    }
+
+    /**
+     * Gets the JAR a compiled program will be written to.
+     * If the user passed in a path after the program's path, that path is used.
+     * Otherwise, the JAR is written beside the program, with the same name.
+     * 
+     * @param runFile the file holding the Piet board that will be compiled
+     * @param args    the arguments provided to the program
+     * @return a path to the JAR file to write
+     */
+    public static Path getCompileFile(Path runFile, String[] args) {
+
+        if(args.length > 2) {
+            return Paths.get(args[2]);
+        }
+
+        String name = runFile.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        if(extension > 0) {
+            name = name.substring(0, extension);
+        }
+
+        return runFile.resolveSibling(name + ".jar");
+    }
+
     /**
      * Gets the file holding the Piet board that will be run.
      * If the user passed in an argument to the program, interprets the arguments
@@ -0,0 +1,88 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.CountingLoop;
+import com.frejt.piet.compiler.IrBlock;
+import com.frejt.piet.compiler.IrProgram;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Runs a Piet program from its {@link IrProgram}, one {@link IrBlock} at a time.
+ *
+ * Once optimized, the blocks no longer hold the commands the program was
+ * written with, so the program's command list is not recorded.
+ *
+ * A {@link CountingLoop} is ran all at once when the program comes into it from
+ * outside. If it can't be, from the stack it's come into with, it's ran one time
+ * around at a time instead, without trying again until the program next comes
+ * into it from outside.
+ */
+public class IrRunner {
+
+    private Program program;
+    private Director director;
+
+    private IrProgram ir;
+
+    public IrRunner(IrProgram ir, UUID uuid) {
+
+        program = Programmer.newProgram(uuid);
+        director = program.getDirector();
+
+        this.ir = ir;
+    }
+
+    /**
+     * Runs the blocks from the program's entry until one of them halts.
+     */
+    public void runBoard() {
+
+        PietStack stack = program.getStack();
+        IrBlock block = ir.getEntry();
+        IrBlock previous = null;
+
+        while(block != null && !program.getEnd()) {
+
+            CountingLoop loop = block.getLoop();
+            if(loop != null && previous != loop.getLatch() && loop.run(stack)) {
+                director.setDirection(loop.getExitDirection());
+                previous = loop.getLatch();
+                block = loop.getExit();
+                continue;
+            }
+            previous = block;
+
+            Command[] ops = block.getOps();
+            long[] operands = block.getOperands();
+
+            for(int i = 0; i < ops.length; i++) {
+                if(ops[i] == Command.PUSH) {
+                    stack.push(operands[i]);
+                } else {
+                    ops[i].calculate(program, 0);
+                }
+            }
+
+            switch(block.getExit()) {
+                case JUMP:
+                    block = block.getNext();
+                    break;
+                case BRANCH:
+                    director.setDirection(block.getDirection());
+                    block.getBranch().calculate(program, 0);
+                    block = block.getSuccessors()[director.getDirection()];
+                    break;
+                case HALT:
+                default:
+                    block = null;
+                    break;
+            }
+        }
+
+        program.end();
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import com.frejt.piet.compiler.CompiledMachine;
+import com.frejt.piet.compiler.CompiledProgram;
+import com.frejt.piet.compiler.JitCompiler;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.exception.PietExecutionException;
+
+/**
+ * Runs a Piet program by compiling it into a JVM class with the
+ * {@link JitCompiler}, then running that class.
+ *
+ * Commands are ran as plain operations inside the compiled class rather than
+ * through {@link com.frejt.piet.command.Command}, so the program's command list
+ * is not recorded.
+ */
+public class JitRunner {
+
+    private Program program;
+
+    private TransitionTable table;
+
+    public JitRunner(TransitionTable table, UUID uuid) {
+
+        program = Programmer.newProgram(uuid);
+
+        this.table = table;
+    }
+
+    /**
+     * Compiles the program, then runs it from its first Block until it ends.
+     * 
+     * @throws PietExecutionException if the program could not be compiled
+     */
+    public void runBoard() throws PietExecutionException {
+
+        CompiledProgram compiled = JitCompiler.compile(table);
+
+        CompiledMachine machine = compiled.newMachine();
+        machine.out = program.getOutputBuilder();
+        machine.maxDepth = program.getStack().getMaxDepth();
+        machine.run();
+
+        program.end();
+    }
+
+}
@@ -8,11 +8,18 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.frejt.azure.database.CosmosDB;
+import com.frejt.piet.compiler.IrProgram;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.config.Config;
 import com.frejt.piet.config.ConfigManager;
+import com.frejt.piet.config.EngineTypes;
 import com.frejt.piet.config.HostTypes;
+import com.frejt.piet.config.NumericTypes;
 import com.frejt.piet.entity.Board;
 import com.frejt.piet.entity.PietOutput;
 import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.PietStack;
 import com.frejt.piet.utils.reader.PietFileReader;
 
 /**
@@ -53,11 +60,11 @@ public class PietProgramRunner implements Callable<PietOutput> {
 
             long startTime = System.currentTimeMillis();
         
-            PietFileReader fileReader = new PietFileReader(programPath);
+            PietFileReader fileReader = new PietFileReader(programPath, ConfigManager.getInstance().getConfig().getNonStandardColor());
+            fileReader.setCodelSize(ConfigManager.getInstance().getConfig().getCodelSize());
             Board board = fileReader.convertFileToBoard();
 
-            BoardRunner runner = new BoardRunner(board, uuid);
-            runner.runBoard();
+            run(board);
 
             long endTime = System.currentTimeMillis();
 
@@ -65,7 +72,8 @@ public class PietProgramRunner implements Callable<PietOutput> {
 
             log.info("Program took " + runTimeMS + "ms to run");
 
-            pietOutput = new PietOutput(uuid, programPath, Programmer.getProgram(uuid).getCommandList(), null, Programmer.getProgram(uuid).getOutput(), runTimeMS);
+            Program program = Programmer.getProgram(uuid);
+            pietOutput = new PietOutput(uuid, programPath, program.getCommandList(), null, program.getOutput(), runTimeMS, program.getTier(), program.getStatus());
 
             if(ConfigManager.getInstance().getConfig().getHost().equals(HostTypes.CLOUD)) {
                 CosmosDB cosmosDB = new CosmosDB();
@@ -83,4 +91,94 @@ public class PietProgramRunner implements Callable<PietOutput> {
         return pietOutput;
     }
 
+    /**
+     * Runs the program with the engine picked in the config.
+     * 
+     * @param board the program's board
+     */
+    private void run(Board board) throws PietExecutionException {
+
+        Config config = ConfigManager.getInstance().getConfig();
+        EngineTypes engine = config.getEngine();
+
+        // compiled programs work on 32 bit integers only
+        if(engine == EngineTypes.JIT && config.getNumericType() != NumericTypes.INT32) {
+            log.warn("The " + engine + " engine only supports " + NumericTypes.INT32 + " values, falling back to the " + EngineTypes.TABLE + " engine");
+            engine = EngineTypes.TABLE;
+        }
+
+        if(config.getDetectNonHalting() && engine != EngineTypes.INTERPRETER) {
+            log.warn("Only the " + EngineTypes.INTERPRETER + " engine detects programs which never halt");
+        }
+
+        log.debug("Running with the " + engine + " engine");
+
+        // labels the board in the background, so the board mustn't be labeled up front
+        if(engine == EngineTypes.BACKGROUND) {
+            BackgroundRunner backgroundRunner = new BackgroundRunner(board, uuid);
+            setUpStack(config);
+            backgroundRunner.runBoard();
+            return;
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+
+        switch(engine) {
+            case STEP:
+                StepRunner stepRunner = new StepRunner(blockMap, uuid);
+                setUpStack(config);
+                stepRunner.runBoard();
+                break;
+            case TABLE:
+                TableRunner tableRunner = new TableRunner(new TransitionTable(blockMap), uuid);
+                setUpStack(config);
+                tableRunner.runBoard();
+                break;
+            case FUSED:
+                FusedRunner fusedRunner = new FusedRunner(new TransitionTable(blockMap), uuid);
+                setUpStack(config);
+                fusedRunner.runBoard();
+                break;
+            case OPTIMIZED:
+                IrProgram ir = new IrProgram(new TransitionTable(blockMap));
+                // the passes change how deep the stack gets, which only an unbounded stack can't notice
+                if(config.getMaxStackDepth() == PietStack.UNBOUNDED) {
+                    ir.optimize();
+                }
+                IrRunner irRunner = new IrRunner(ir, uuid);
+                setUpStack(config);
+                irRunner.runBoard();
+                break;
+            case TIERED:
+                TieredRunner tieredRunner = new TieredRunner(blockMap, uuid);
+                setUpStack(config);
+                tieredRunner.runBoard();
+                break;
+            case JIT:
+                JitRunner jitRunner = new JitRunner(new TransitionTable(blockMap), uuid);
+                setUpStack(config);
+                jitRunner.runBoard();
+                break;
+            case INTERPRETER:
+            default:
+                BoardRunner boardRunner = new BoardRunner(blockMap, uuid);
+                boardRunner.setDetectCycles(config.getDetectNonHalting());
+                setUpStack(config);
+                boardRunner.runBoard();
+                break;
+        }
+    }
+
+    /**
+     * Gives the program's stack the maximum depth and numeric type picked in the
+     * config.
+     * 
+     * @param config the config the program is being ran with
+     */
+    private void setUpStack(Config config) {
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.setMaxDepth(config.getMaxStackDepth());
+        stack.setNumericType(config.getNumericType());
+    }
+
 }
@@ -1,14 +1,15 @@
 package com.frejt.piet.controller;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.frejt.piet.command.Command;
 import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.PietStack;
 
 /**
  * A class used to keep track of various global variables needed to perform
@@ -18,10 +19,27 @@ public class Program {
 
     private static final Logger log = LogManager.getLogger(Program.class);
 
+    private static final Command[] COMMANDS = Command.values();
+
     /**
-     * Helps keep track of the commands that have taken place
+     * The most commands kept in the history. Once full, the oldest commands are
+     * overwritten, so a program that runs forever keeps a bounded history.
+     */
+    public static final int HISTORY_SIZE = 1 << 16;
+
+    /**
+     * Helps keep track of the commands that have taken place.
+     * 
+     * Kept as Command ordinals in a ring of at most {@link #HISTORY_SIZE}, so that
+     * recording a command allocates nothing beyond the growth of the ring up to
+     * its full size.
      */
-    private List<Command> commandList;
+    private byte[] commands;
+
+    /**
+     * The number of commands that have taken place
+     */
+    private long commandCount;
 
     /**
      * The Director the program uses to keep track of Board traversal
@@ -33,6 +51,16 @@ public class Program {
      */
     private Boolean end;
 
+    /**
+     * The tier the program is running in, when ran by the {@link TieredRunner}
+     */
+    private ExecutionTier tier;
+
+    /**
+     * How the program finished running
+     */
+    private ExecutionStatus status;
+
     /**
      * The end result of the program
      */
@@ -55,27 +83,60 @@ public class Program {
      * 
      * If a finite stack overflows, it should be treated as a runtime error, and
      * handling this will be implementation dependent.
+     * 
+     * The stack is unbounded unless given a maximum depth, in which case pushes
+     * onto a full stack are ignored.
      */
-    private Stack<Integer> stack;
+    private PietStack stack;
 
     public Program() {
-        commandList = new ArrayList<>();
+        commands = new byte[64];
         director = new Director();
         end = false;
+        status = ExecutionStatus.HALTED;
         outputBuilder = new StringBuilder();
-        stack = new Stack<>();
+        stack = new PietStack();
     }
 
+    /**
+     * @return a copy of the commands that have taken place, in order, or the
+     *         latest {@link #HISTORY_SIZE} of them if there have been more
+     */
     public List<Command> getCommandList() {
+        int kept = (int) Math.min(commandCount, commands.length);
+        List<Command> commandList = new ArrayList<>(kept);
+        for(long i = commandCount - kept; i < commandCount; i++) {
+            commandList.add(COMMANDS[commands[(int) (i % commands.length)]]);
+        }
         return commandList;
     }
 
     public void setCommandList(List<Command> commandList) {
-        this.commandList = commandList;
+        this.commands = new byte[64];
+        this.commandCount = 0;
+        for(Command command : commandList) {
+            addToCommandList(command);
+        }
     }
 
     public void addToCommandList(Command command) {
-        this.commandList.add(command);
+        if(commandCount == commands.length && commands.length < HISTORY_SIZE) {
+            commands = Arrays.copyOf(commands, commands.length << 1);
+        }
+        // the history is a power of two long, so wraps around with a mask
+        this.commands[(int) commandCount & (commands.length - 1)] = (byte) command.ordinal();
+        commandCount++;
+    }
+
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * @return the latest command to have taken place, or null if none have
+     */
+    public Command getLastCommand() {
+        return commandCount == 0 ? null : COMMANDS[commands[(int) (commandCount - 1) & (commands.length - 1)]];
     }
 
     public Director getDirector() {
@@ -90,6 +151,22 @@ public class Program {
         this.end = end;
     }
 
+    public ExecutionTier getTier() {
+        return tier;
+    }
+
+    public void setTier(ExecutionTier tier) {
+        this.tier = tier;
+    }
+
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExecutionStatus status) {
+        this.status = status;
+    }
+
     public String getOutput() {
         return output;
     }
@@ -98,10 +175,14 @@ public class Program {
         return outputBuilder;
     }
 
-    public Stack<Integer> getStack() {
+    public PietStack getStack() {
         return stack;
     }
 
+    public void setStack(PietStack stack) {
+        this.stack = stack;
+    }
+
     public void end() {
         setEnd(true);
         log.debug("Done");
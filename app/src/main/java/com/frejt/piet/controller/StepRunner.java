@@ -0,0 +1,231 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.exception.PietCommandNotFoundException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.color.PietColor;
+
+/**
+ * Runs a Piet program by stepping through its {@link BlockMap}, following the
+ * same rules as the {@link BoardRunner}.
+ *
+ * Where the BoardRunner builds {@link com.frejt.piet.entity.Codel}s and
+ * {@link com.frejt.piet.utils.Block}s as it goes, this runner only ever holds
+ * Block ids, packed Codel indexes and the Director's packed direction, so once
+ * the run has started a step allocates nothing.
+ */
+public class StepRunner {
+
+    private static final Logger log = LogManager.getLogger(StepRunner.class);
+
+    /**
+     * The exit corner of a Block for each packed direction
+     */
+    private static final int[] CORNERS = new int[Director.DIRECTIONS];
+
+    /**
+     * How far a single move in each packed direction changes the row and column
+     */
+    private static final int[] ROW_STEPS = new int[Director.DIRECTIONS];
+    private static final int[] COL_STEPS = new int[Director.DIRECTIONS];
+
+    static {
+        for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+            DP dp = Director.getDP(direction);
+            CORNERS[direction] = BlockMap.getCorner(dp, Director.getCC(direction));
+            ROW_STEPS[direction] = dp.getX();
+            COL_STEPS[direction] = dp.getY();
+        }
+    }
+
+    private Program program;
+    private Director director;
+
+    private BlockMap blockMap;
+
+    private int sizeRow;
+    private int sizeCol;
+
+    /**
+     * The id of the Block the program is currently in
+     */
+    private int block;
+
+    public StepRunner(BlockMap blockMap, UUID uuid) {
+        this(blockMap, Programmer.newProgram(uuid));
+    }
+
+    /**
+     * @param blockMap the labeled Blocks of the program
+     * @param program  the program to step, which may already be running under
+     *                 another runner
+     */
+    public StepRunner(BlockMap blockMap, Program program) {
+
+        this.program = program;
+        director = program.getDirector();
+
+        this.blockMap = blockMap;
+        this.sizeRow = blockMap.getBoard().getSizeRow();
+        this.sizeCol = blockMap.getBoard().getSizeCol();
+    }
+
+    /**
+     * Steps through the program from the Block holding the upper left Codel until
+     * the program ends.
+     */
+    public void runBoard() {
+
+        start();
+
+        while(step()) {
+            // every step is done by step() itself
+        }
+
+    }
+
+    /**
+     * Places the program in the Block holding the upper left Codel. A program
+     * starting in white slides out of it before running anything.
+     */
+    public void start() {
+
+        block = blockMap.getBlockId(0);
+
+        if(blockMap.getColor(block) == PietColor.WHITE && !slide(0)) {
+            program.end();
+        }
+    }
+
+    /**
+     * Moves the program out of its current Block, performing the command between
+     * the two Blocks.
+     *
+     * @return false if the program has ended
+     */
+    public boolean step() {
+
+        if(program.getEnd()) {
+            return false;
+        }
+
+        int direction = director.getDirection();
+
+        for(int attempt = 0; attempt < Director.DIRECTIONS; attempt++) {
+
+            int exit = blockMap.getExit(block, CORNERS[direction]);
+            int row = blockMap.getRow(exit) + ROW_STEPS[direction];
+            int col = blockMap.getCol(exit) + COL_STEPS[direction];
+
+            if(isOpen(row, col)) {
+                director.setDirection(direction);
+                return enter(blockMap.index(row, col));
+            }
+
+            // we hit an edge, alternate between toggling the CC and rotating the DP
+            direction = attempt % 2 == 0 ? Director.rotateCC(direction, 1) : Director.rotateDP(direction, 1);
+        }
+
+        director.setDirection(direction);
+        program.end();
+        return false;
+    }
+
+    public int getBlock() {
+        return this.block;
+    }
+
+    /**
+     * @return the Block the program is in and the direction it's facing, packed
+     *         the same way as a {@link TransitionTable} state
+     */
+    public int getState() {
+        return TransitionTable.getState(block, director.getDirection());
+    }
+
+    /**
+     * Moves into the Block holding the given Codel, sliding through it if it's
+     * white, or running the command between the two Blocks if it's not.
+     *
+     * @param index the packed index of the Codel being moved into
+     * @return false if the program has ended
+     */
+    private boolean enter(int index) {
+
+        int next = blockMap.getBlockId(index);
+        PietColor nextColor = blockMap.getColor(next);
+
+        if(nextColor == PietColor.WHITE) {
+            if(!slide(index)) {
+                program.end();
+                return false;
+            }
+            return true;
+        }
+
+        try {
+            Command command = Command.getCommand(blockMap.getColor(block), nextColor);
+            program.addToCommandList(command);
+            command.calculate(program, blockMap.getSize(block));
+        } catch(PietCommandNotFoundException e) {
+            log.error("Ran into an error during execution: " + e.getMessage());
+            program.end();
+            return false;
+        }
+
+        block = next;
+        return !program.getEnd();
+    }
+
+    /**
+     * Slides through white Codels in a straight line until a colored Codel is hit.
+     *
+     * When the slide is restricted by black or an edge, the CC is toggled and the
+     * DP stepped clockwise, and the slide continues from where it stopped. Each
+     * straight line is looked up in the {@link BlockMap} rather than walked.
+     *
+     * @param start the packed index of the white Codel the slide begins at
+     * @return false if the slide could not escape the white area
+     */
+    private boolean slide(int start) {
+
+        int index = start;
+        int direction = director.getDirection();
+
+        for(int attempt = 0; attempt <= Director.DIRECTIONS; attempt++) {
+
+            index = blockMap.getSlideEnd(index, Director.getDP(direction));
+
+            int next = blockMap.getBlockId(index);
+            if(blockMap.getColor(next) != PietColor.WHITE) {
+                block = next;
+                director.setDirection(direction);
+                return true;
+            }
+
+            direction = Director.rotateDP(Director.rotateCC(direction, 1), 1);
+        }
+
+        director.setDirection(direction);
+        return false;
+    }
+
+    /**
+     * @return true if the Codel is on the board and not black
+     */
+    private boolean isOpen(int row, int col) {
+        if(row < 0 || row >= sizeRow || col < 0 || col >= sizeCol) {
+            return false;
+        }
+        return blockMap.getColor(blockMap.getBlockId(blockMap.index(row, col))) != PietColor.BLACK;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.frejt.piet.controller;
+
+import java.util.Scanner;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.command.CommandController;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.config.NumericTypes;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Runs a Piet program by walking its {@link TransitionTable}, suspending it
+ * whenever it comes to an input command instead of waiting on STDIN.
+ *
+ * Each run carries on until the program either ends or needs input, then hands
+ * back a {@link Continuation} holding all that's needed to carry on, along with
+ * what was printed along the way. Once the input arrives, the continuation is
+ * resumed with it, on any thread. No thread is held while a program waits, so
+ * a service can keep many interactive programs open at once.
+ *
+ * The runner holds nothing but the table and how its stacks are set up, so a
+ * single runner may be shared by every session running the same program.
+ *
+ * Nothing in the service feeds programs their input yet, so the runner is
+ * only used through this API for now.
+ */
+public class SuspendableRunner {
+
+    private TransitionTable table;
+    private BlockMap blockMap;
+
+    /**
+     * The most values each program's stack may hold
+     */
+    private int maxDepth;
+
+    private NumericTypes numericType;
+
+    /**
+     * @param table       the transitions of the program to be ran
+     * @param maxDepth    the most values each program's stack may hold, or
+     *                    {@link PietStack#UNBOUNDED}
+     * @param numericType how each program's stack handles overflow
+     */
+    public SuspendableRunner(TransitionTable table, int maxDepth, NumericTypes numericType) {
+        this.table = table;
+        this.blockMap = table.getBlockMap();
+        this.maxDepth = maxDepth;
+        this.numericType = numericType;
+    }
+
+    /**
+     * Runs the program from its first Block until it ends or needs input.
+     *
+     * @return where the program stopped
+     */
+    public Continuation start() {
+        Program program = new Program();
+        program.setStack(new PietStack(maxDepth, numericType));
+
+        return run(program, table.getStartBlock(), table.getStartDirection(), 0);
+    }
+
+    /**
+     * Runs the input command the program was suspended at with the given input,
+     * then carries on until the program ends or needs input again.
+     *
+     * †If an integer read does not receive an integer value, this is an error and
+     * the command is ignored. The same goes for input with nothing in it.
+     *
+     * The continuation itself is left untouched, so it may be resumed again.
+     *
+     * @param continuation where the program was suspended
+     * @param input        the input the program was waiting on
+     * @return where the program stopped next
+     */
+    public Continuation resume(Continuation continuation, String input) {
+
+        if(!continuation.isWaiting()) {
+            return continuation;
+        }
+
+        Program program = new Program();
+        program.setStack(continuation.getStack().copy());
+        program.getDirector().setDirection(continuation.getDirection());
+        program.addToCommandList(continuation.getWaitingOn());
+
+        try(Scanner s = new Scanner(input)) {
+            if(continuation.getWaitingOn() == Command.IN_NUM) {
+                CommandController.inNum(program, s);
+            } else {
+                CommandController.inChar(program, s);
+            }
+        }
+
+        int outputPosition = continuation.getOutputPosition() + continuation.getOutput().length();
+        return run(program, continuation.getBlock(), continuation.getDirection(), outputPosition);
+    }
+
+    /**
+     * Walks the table from the given Block until the program ends or comes to an
+     * input command.
+     */
+    private Continuation run(Program program, int block, int direction, int outputPosition) {
+
+        Director director = program.getDirector();
+
+        while(block != TransitionTable.TERMINAL) {
+
+            int state = TransitionTable.getState(block, direction);
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                break;
+            }
+
+            director.setDirection(table.getDirection(state));
+
+            Command command = table.getCommand(state);
+            if(command == Command.IN_NUM || command == Command.IN_CHAR) {
+                // an input command turns neither the DP nor the CC, so the program carries on from the next Block
+                return new Continuation(next, director.getDirection(), program.getStack(), outputPosition,
+                        program.getOutputBuilder().toString(), command);
+            }
+            if(command != null) {
+                program.addToCommandList(command);
+                command.calculate(program, blockMap.getSize(block));
+            }
+
+            // the command may have turned the DP or CC
+            direction = director.getDirection();
+            block = next;
+        }
+
+        program.end();
+        return new Continuation(TransitionTable.TERMINAL, direction, program.getStack(), outputPosition,
+                program.getOutput(), null);
+    }
+
+}
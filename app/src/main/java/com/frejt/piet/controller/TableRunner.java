@@ -0,0 +1,73 @@
+package com.frejt.piet.controller;
+
+import java.util.UUID;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.BlockMap;
+
+/**
+ * Runs a Piet program by walking its precompiled {@link TransitionTable}.
+ *
+ * All of the Block, edge and white space handling done by {@link BoardRunner} on
+ * every step has already been resolved into the table, so each step is a table
+ * lookup followed by the step's {@link Command}.
+ */
+public class TableRunner {
+
+    private Program program;
+    private Director director;
+
+    private TransitionTable table;
+    private BlockMap blockMap;
+
+    public TableRunner(TransitionTable table, UUID uuid) {
+
+        program = Programmer.newProgram(uuid);
+        director = program.getDirector();
+
+        this.table = table;
+        this.blockMap = table.getBlockMap();
+    }
+
+    /**
+     * Walks the {@link TransitionTable} from the first Block of the program,
+     * performing commands, until a terminal state is reached.
+     */
+    public void runBoard() {
+
+        int block = table.getStartBlock();
+        int direction = table.getStartDirection();
+
+        while(!program.getEnd()) {
+
+            if(block == TransitionTable.TERMINAL) {
+                program.end();
+                break;
+            }
+
+            int state = TransitionTable.getState(block, direction);
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                program.end();
+                break;
+            }
+
+            director.setDirection(table.getDirection(state));
+
+            Command command = table.getCommand(state);
+            if(command != null) {
+                program.addToCommandList(command);
+                command.calculate(program, blockMap.getSize(block));
+            }
+
+            // the command may have turned the DP or CC
+            direction = director.getDirection();
+            block = next;
+        }
+
+    }
+
+}
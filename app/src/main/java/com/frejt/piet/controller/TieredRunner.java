@@ -0,0 +1,213 @@
+package com.frejt.piet.controller;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.CompiledMachine;
+import com.frejt.piet.compiler.CompiledProgram;
+import com.frejt.piet.compiler.JitCompiler;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.config.NumericTypes;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.PietStack;
+
+/**
+ * Runs a Piet program in tiers, moving it up to a faster way of running once it
+ * has shown it runs long enough to be worth it.
+ *
+ * - {@link ExecutionTier#INTERPRETED}: the program starts straight away, stepped
+ *   through by a {@link StepRunner}, while every visit to each state (a Block
+ *   and the direction the Director is facing) is counted
+ * - {@link ExecutionTier#TABLE}: once any state has been visited
+ *   {@link #getTableThreshold()} times, the program's {@link TransitionTable} is
+ *   built and the program carries on walking it, still counting visits
+ * - {@link ExecutionTier#COMPILED}: once any state has been visited
+ *   {@link #getCompileThreshold()} times, the program is compiled by the
+ *   {@link JitCompiler}, and the compiled machine picks up from the same state,
+ *   with the same stack
+ *
+ * The whole program moves up a tier at once. A program which can't be compiled,
+ * such as one using anything but {@link NumericTypes#INT32} values, stays in the
+ * table tier. The tier the program ended in is kept on the {@link Program}.
+ */
+public class TieredRunner {
+
+    private static final Logger log = LogManager.getLogger(TieredRunner.class);
+
+    public static final int DEFAULT_TABLE_THRESHOLD = 1_000;
+
+    public static final int DEFAULT_COMPILE_THRESHOLD = 100_000;
+
+    private Program program;
+    private Director director;
+
+    private BlockMap blockMap;
+
+    private int tableThreshold;
+    private int compileThreshold;
+
+    /**
+     * The number of visits to each state, in the tier currently running
+     */
+    private int[] visits;
+
+    public TieredRunner(BlockMap blockMap, UUID uuid) {
+        this(blockMap, uuid, DEFAULT_TABLE_THRESHOLD, DEFAULT_COMPILE_THRESHOLD);
+    }
+
+    /**
+     * @param tableThreshold   the visits to a single state before moving up to the
+     *                         table tier
+     * @param compileThreshold the visits to a single state, once in the table
+     *                         tier, before moving up to the compiled tier
+     */
+    public TieredRunner(BlockMap blockMap, UUID uuid, int tableThreshold, int compileThreshold) {
+
+        program = Programmer.newProgram(uuid);
+        director = program.getDirector();
+
+        this.blockMap = blockMap;
+        this.tableThreshold = tableThreshold;
+        this.compileThreshold = compileThreshold;
+        this.visits = new int[blockMap.getBlockCount() * Director.DIRECTIONS];
+    }
+
+    public int getTableThreshold() {
+        return this.tableThreshold;
+    }
+
+    public int getCompileThreshold() {
+        return this.compileThreshold;
+    }
+
+    /**
+     * Runs the program from the Block holding the upper left Codel until it ends,
+     * moving up tiers along the way.
+     */
+    public void runBoard() {
+
+        program.setTier(ExecutionTier.INTERPRETED);
+
+        int state = interpret();
+        if(program.getEnd()) {
+            return;
+        }
+
+        log.debug("State " + state + " is hot, moving up to the " + ExecutionTier.TABLE + " tier");
+        program.setTier(ExecutionTier.TABLE);
+
+        TransitionTable table = new TransitionTable(blockMap);
+        state = walk(table, state, program.getStack().getNumericType() == NumericTypes.INT32);
+        if(program.getEnd()) {
+            return;
+        }
+
+        log.debug("State " + state + " is hot, moving up to the " + ExecutionTier.COMPILED + " tier");
+
+        try {
+            CompiledProgram compiled = JitCompiler.compile(table);
+            program.setTier(ExecutionTier.COMPILED);
+            runCompiled(compiled, state);
+        } catch(PietExecutionException e) {
+            log.warn("Could not compile the program, staying in the " + ExecutionTier.TABLE + " tier: " + e.getMessage());
+            program.setTier(ExecutionTier.TABLE);
+            walk(table, state, false);
+        }
+    }
+
+    /**
+     * Steps through the program until it ends or a state gets hot.
+     *
+     * @return the state the program is in
+     */
+    private int interpret() {
+
+        StepRunner stepper = new StepRunner(blockMap, program);
+        stepper.start();
+
+        while(stepper.step()) {
+            int state = stepper.getState();
+            if(++visits[state] >= tableThreshold) {
+                return state;
+            }
+        }
+
+        return TransitionTable.TERMINAL;
+    }
+
+    /**
+     * Walks the program's {@link TransitionTable} from the given state until the
+     * program ends, or a state gets hot enough and the program can be compiled.
+     *
+     * @param compilable whether the program may move up to the compiled tier
+     * @return the state the program is in
+     */
+    private int walk(TransitionTable table, int state, boolean compilable) {
+
+        Arrays.fill(visits, 0);
+
+        while(!program.getEnd()) {
+
+            int next = table.getTarget(state);
+
+            if(next == TransitionTable.TERMINAL) {
+                program.end();
+                break;
+            }
+
+            director.setDirection(table.getDirection(state));
+
+            Command command = table.getCommand(state);
+            if(command != null) {
+                program.addToCommandList(command);
+                command.calculate(program, blockMap.getSize(state / Director.DIRECTIONS));
+            }
+
+            // the command may have turned the DP or CC
+            state = TransitionTable.getState(next, director.getDirection());
+
+            if(compilable && ++visits[state] >= compileThreshold) {
+                return state;
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Hands the program's state and stack over to a compiled machine, and runs it
+     * until the program ends. Commands ran by the machine are not recorded.
+     */
+    private void runCompiled(CompiledProgram compiled, int state) throws PietExecutionException {
+
+        PietStack stack = program.getStack();
+
+        CompiledMachine machine = compiled.newMachine();
+        machine.state = compiled.getGenerator().getGeneratedState(state);
+        machine.out = program.getOutputBuilder();
+        machine.maxDepth = stack.getMaxDepth();
+
+        long[] values = stack.toArray();
+        machine.stack = new int[Math.max(16, values.length)];
+        for(int i = 0; i < values.length; i++) {
+            machine.stack[i] = (int) values[i];
+        }
+        machine.size = values.length;
+
+        machine.run();
+
+        stack.clear();
+        for(int i = 0; i < machine.size; i++) {
+            stack.push(machine.stack[i]);
+        }
+
+        program.end();
+    }
+
+}
@@ -1,7 +1,5 @@
 package com.frejt.piet.director;
 
-import com.frejt.piet.command.CommandController;
-
 /**
  * †The Piet language interpreter beings executing a program in the colour block
  * which includes the upper left codel of the program.
@@ -38,120 +36,163 @@ import com.frejt.piet.command.CommandController;
  */
 public class Director {
 
-    private CC cc;
-    private DP dp;
+    /**
+     * The number of distinct DP/CC combinations a Director can be in
+     */
+    public static final int DIRECTIONS = 8;
+
+    /**
+     * The DP values in clockwise order, starting from the initial direction
+     */
+    private static final DP[] CLOCKWISE = { DP.RIGHT, DP.DOWN, DP.LEFT, DP.UP };
+
+    private static final CC[] CHOOSERS = CC.values();
+
+    /**
+     * The direction reached by rotating the DP of each direction clockwise 0 to 3
+     * times, indexed by <code>direction * 4 + steps</code>
+     */
+    private static final int[] ROTATIONS = new int[DIRECTIONS * 4];
+
+    static {
+        for(int direction = 0; direction < DIRECTIONS; direction++) {
+            for(int steps = 0; steps < 4; steps++) {
+                ROTATIONS[direction * 4 + steps] = (((direction >> 1) + steps) % 4) << 1 | (direction & 1);
+            }
+        }
+    }
+
+    /**
+     * The DP and CC, packed as described by {@link #getDirection(DP, CC)}
+     */
+    private int direction;
 
     public Director() {
-        dp = DP.RIGHT;
-        cc = CC.LEFT;
+        direction = getDirection(DP.RIGHT, CC.LEFT);
     }
 
     public CC getCC() {
-        return this.cc;
+        return getCC(this.direction);
     }
 
     public DP getDP() {
-        return this.dp;
+        return getDP(this.direction);
     }
 
     /**
-     * Rotates the director's DP or CC, based on how many attempts have been tried.
+     * Gets the current DP and CC packed into a single direction index.
      * 
-     * @param attempt how many attempts have been tried so far
+     * @return a value from 0 to {@link #DIRECTIONS} - 1
+     * @see #getDirection(DP, CC)
      */
-    public void rotateByAttempt(Integer attempt) {
-        if(attempt % 2 == 0) {
-            rotateCC(1);
-        } else {
-            rotateDP(1);
-        }
+    public int getDirection() {
+        return this.direction;
     }
 
     /**
-     * Toggles the CC.
+     * Sets the DP and CC from a packed direction index.
      * 
-     * @param val - the number of times to toggle the CC
+     * @param direction a value from 0 to {@link #DIRECTIONS} - 1
      */
-    public void rotateCC(Integer val) {
-        if (CommandController.correctMod(val, 2) == 0) {
-            return;
-        } else {
-            if (this.cc == CC.RIGHT) {
-                cc = CC.LEFT;
-            } else {
-                cc = CC.RIGHT;
-            }
-        }
+    public void setDirection(int direction) {
+        this.direction = direction;
     }
 
     /**
-     * Rotates the DP clockwise if val is positive (anticlockwise if val is
-     * negative).
+     * Packs a DP and CC into a single index, where the DP's clockwise position
+     * (starting from {@link DP#RIGHT}) is the high part and the CC is the low bit.
      * 
-     * @param val - the number of times to rotate the DP
+     * @param dp the direction pointer
+     * @param cc the codel chooser
+     * @return a value from 0 to {@link #DIRECTIONS} - 1
      */
-    public void rotateDP(Integer val) {
-        if (val == 0) {
-            return;
-        }
-
-        if (val > 0) {
-            while (val > 0) {
-                rotateDPClockwise();
-                val--;
-            }
-        }
-
-        if (val < 0) {
-            while (val < 0) {
-                rotateDPAnticlockwise();
-                val++;
-            }
-        }
-    }
-
-    /**
-     * Rotates the DP once clockwise.
-     */
-    private void rotateDPClockwise() {
-        switch (dp) {
+    public static int getDirection(DP dp, CC cc) {
+        int clockwise;
+        switch(dp) {
             case RIGHT:
-                dp = DP.DOWN;
+                clockwise = 0;
                 break;
             case DOWN:
-                dp = DP.LEFT;
+                clockwise = 1;
                 break;
             case LEFT:
-                dp = DP.UP;
+                clockwise = 2;
                 break;
             case UP:
-                dp = DP.RIGHT;
-                break;
             default:
+                clockwise = 3;
                 break;
         }
+        return clockwise * 2 + cc.ordinal();
+    }
+
+    public static DP getDP(int direction) {
+        return CLOCKWISE[direction >> 1];
+    }
+
+    public static CC getCC(int direction) {
+        return CHOOSERS[direction & 1];
     }
 
     /**
-     * Rotates teh DP once anticlockwise.
+     * Rotates the DP of a packed direction clockwise if steps is positive
+     * (anticlockwise if steps is negative).
+     * 
+     * Four rotations leave the DP where it started, so only the steps modulo 4
+     * matter, and the rotation takes the same time however many steps are asked for.
+     * 
+     * @param direction a value from 0 to {@link #DIRECTIONS} - 1
+     * @param steps     the number of times to rotate the DP
+     * @return the rotated direction
      */
-    private void rotateDPAnticlockwise() {
-        switch (dp) {
-            case RIGHT:
-                dp = DP.UP;
-                break;
-            case UP:
-                dp = DP.LEFT;
-                break;
-            case LEFT:
-                dp = DP.DOWN;
-                break;
-            case DOWN:
-                dp = DP.RIGHT;
-                break;
-            default:
-                break;
+    public static int rotateDP(int direction, int steps) {
+        return ROTATIONS[direction * 4 + Math.floorMod(steps, 4)];
+    }
+
+    /**
+     * Toggles the CC of a packed direction.
+     * 
+     * Toggling twice leaves the CC where it started, so only the times modulo 2
+     * matter.
+     * 
+     * @param direction a value from 0 to {@link #DIRECTIONS} - 1
+     * @param times     the number of times to toggle the CC
+     * @return the toggled direction
+     */
+    public static int rotateCC(int direction, int times) {
+        return direction ^ Math.floorMod(times, 2);
+    }
+
+    /**
+     * Rotates the director's DP or CC, based on how many attempts have been tried.
+     * 
+     * @param attempt how many attempts have been tried so far
+     */
+    public void rotateByAttempt(int attempt) {
+        if(attempt % 2 == 0) {
+            rotateCC(1);
+        } else {
+            rotateDP(1);
         }
     }
+
+    /**
+     * Toggles the CC.
+     * 
+     * @param val - the number of times to toggle the CC
+     */
+    public void rotateCC(int val) {
+        direction = rotateCC(direction, val);
+    }
+
+    /**
+     * Rotates the DP clockwise if val is positive (anticlockwise if val is
+     * negative).
+     * 
+     * @param val - the number of times to rotate the DP
+     */
+    public void rotateDP(int val) {
+        direction = rotateDP(direction, val);
+    }
     
 }
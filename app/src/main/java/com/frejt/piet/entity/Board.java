@@ -1,5 +1,8 @@
 package com.frejt.piet.entity;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.frejt.piet.utils.color.PietColor;
 
 /**
@@ -23,6 +26,11 @@ import com.frejt.piet.utils.color.PietColor;
  *    ...
  *  sizeRow
  * </pre>
+ *
+ * Once read, a board may be edited a Codel at a time with
+ * {@link #edit(Codel, PietColor)}. Edited Codels are kept track of as dirty, so
+ * that a {@link com.frejt.piet.utils.BlockMap} of the board can relabel only
+ * what the edits touched.
  */
 public class Board {
 
@@ -32,6 +40,11 @@ public class Board {
     private Integer sizeRow;
     private Integer sizeCol;
 
+    /**
+     * The Codels edited since the board was last relabeled
+     */
+    private List<Codel> dirty = new ArrayList<>();
+
     public Board(PPMMetadata metadata) {
         this.sizeRow = metadata.getRow();
         this.sizeCol = metadata.getColumn();
@@ -54,10 +67,38 @@ public class Board {
         this.board[coordinate.getX()][coordinate.getY()] = color;
     }
 
+    /**
+     * Changes the color of a Codel, marking it as dirty if the color is different.
+     *
+     * @param coordinate the Codel to change
+     * @param color      the Codel's new color
+     */
+    public void edit(Codel coordinate, PietColor color) {
+        if(getColor(coordinate) != color) {
+            setColor(coordinate, color);
+            dirty.add(coordinate);
+        }
+    }
+
+    /**
+     * @return the Codels edited since the dirty Codels were last cleared
+     */
+    public List<Codel> getDirty() {
+        return this.dirty;
+    }
+
+    public void clearDirty() {
+        this.dirty = new ArrayList<>();
+    }
+
     public PietColor getColor(Codel coordinate) {
         return this.board[coordinate.getX()][coordinate.getY()];
     }
 
+    public PietColor getColor(int row, int col) {
+        return this.board[row][col];
+    }
+
     public void setVisited(Codel coordinate, Boolean visited) {
         this.visited[coordinate.getX()][coordinate.getY()] = visited;
     }
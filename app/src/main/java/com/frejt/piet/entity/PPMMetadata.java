@@ -7,7 +7,8 @@ public class PPMMetadata {
 
     /**
      * A "magic number" for identifying the file type. A ppm image's magic number is
-     * the two characters "P6".
+     * the two characters "P6", or "P3" for a plain ppm image, written in ASCII
+     * decimal.
      */
     private String magicNumber;
 
@@ -25,7 +26,6 @@ public class PPMMetadata {
      * The maximum color value (Maxval), again in ASCII decimal. 
      * Must be less than 65536 and more than zero.
      */
-    @SuppressWarnings("unused")
     private Integer maxVal;
 
     public PPMMetadata(String magicNumber, Integer column, Integer row, Integer maxVal) {
@@ -58,5 +58,27 @@ public class PPMMetadata {
     public void setRow(Integer row) {
         this.row = row;
     }
+
+    public Integer getMaxVal() {
+        return this.maxVal;
+    }
+
+    public void setMaxVal(Integer maxVal) {
+        this.maxVal = maxVal;
+    }
+
+    /**
+     * Scales a color value read from the file to the 0-255 range Piet's colors
+     * are defined in.
+     *
+     * @param value a color value from 0 to {@link #maxVal}
+     * @return the value scaled to 0-255, rounded to the nearest
+     */
+    public int scale(int value) {
+        if(maxVal == 255) {
+            return value;
+        }
+        return (value * 255 + maxVal / 2) / maxVal;
+    }
     
 }
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.UUID;
 
 import com.frejt.piet.command.Command;
+import com.frejt.piet.controller.ExecutionStatus;
+import com.frejt.piet.controller.ExecutionTier;
 
 /**
  * Data that gets written to a database on program completion
@@ -33,7 +35,25 @@ public class PietOutput {
 
     private long runTimeMS;
 
+    /**
+     * The tier the program ended in, or null if it wasn't ran by the tiered engine
+     */
+    private ExecutionTier tier;
+
+    /**
+     * How the program finished running
+     */
+    private ExecutionStatus status;
+
     public PietOutput(UUID uuid, Path programPath, List<Command> commandList, List<String> stdIn, String stdOut, long runTimeMS) {
+        this(uuid, programPath, commandList, stdIn, stdOut, runTimeMS, null);
+    }
+
+    public PietOutput(UUID uuid, Path programPath, List<Command> commandList, List<String> stdIn, String stdOut, long runTimeMS, ExecutionTier tier) {
+        this(uuid, programPath, commandList, stdIn, stdOut, runTimeMS, tier, ExecutionStatus.HALTED);
+    }
+
+    public PietOutput(UUID uuid, Path programPath, List<Command> commandList, List<String> stdIn, String stdOut, long runTimeMS, ExecutionTier tier, ExecutionStatus status) {
         this.id = uuid;
         this.inputPath = programPath;
         this.programName = programPath.getFileName().toString();
@@ -41,6 +61,8 @@ public class PietOutput {
         this.stdIn = stdIn;
         this.stdOut = stdOut;
         this.runTimeMS = runTimeMS;
+        this.tier = tier;
+        this.status = status;
     }
 
     public String getInputPath() {
@@ -71,10 +93,18 @@ public class PietOutput {
         return runTimeMS;
     }
 
+    public ExecutionTier getTier() {
+        return tier;
+    }
+
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
     @Override
     public String toString() {
         return "PietOutput [id=" + id + ", inputPath=" + inputPath + ", programName=" + programName + ", commandList="
-                + commandList + ", stdIn=" + stdIn + ", stdOut=" + stdOut + ", runTimeMS=" + runTimeMS + "]";
+                + commandList + ", stdIn=" + stdIn + ", stdOut=" + stdOut + ", runTimeMS=" + runTimeMS + ", tier=" + tier + ", status=" + status + "]";
     }
 
 }
@@ -0,0 +1,720 @@
+package com.frejt.piet.utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.frejt.piet.director.CC;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.utils.color.PietColor;
+
+/**
+ * A labeled view of a {@link Board}, where every {@link Codel} is tagged with the
+ * id of the colour {@link Block} it belongs to.
+ *
+ * The labeling is done once, up front, so that the interpreter can look a Block
+ * up by any of its Codels instead of rediscovering it on every step.
+ *
+ * Codels are addressed by a packed index of <code>row * sizeCol + col</code>.
+ *
+ * For every Block, the map keeps its size, its color, and the eight exit Codels
+ * the interpreter may leave the Block from (one for each DP/CC combination).
+ *
+ * For every Codel, the map also keeps where a slide through white space
+ * starting from it would stop in each DP direction, so that crossing a white
+ * area of any width is a single lookup.
+ *
+ * A map may instead be made lazy, labeling nothing up front. Each Block is then
+ * flood filled the first time one of its Codels is looked up, and slides are
+ * walked rather than looked up, so a program can start running on a huge board
+ * straight away. A lazy map is meant for a single thread.
+ */
+public class BlockMap {
+
+    /**
+     * The number of exit Codels kept for each Block
+     */
+    public static final int EXITS = 8;
+
+    private static final int DIRECTIONS = DP.values().length;
+
+    public static final int RIGHT_TOP = 0;
+    public static final int RIGHT_BOTTOM = 1;
+    public static final int BOTTOM_RIGHT = 2;
+    public static final int BOTTOM_LEFT = 3;
+    public static final int LEFT_BOTTOM = 4;
+    public static final int LEFT_TOP = 5;
+    public static final int TOP_LEFT = 6;
+    public static final int TOP_RIGHT = 7;
+
+    private Board board;
+
+    private int sizeRow;
+    private int sizeCol;
+
+    /**
+     * The id of the Block each Codel belongs to, indexed by packed Codel index
+     */
+    private int[] ids;
+
+    private int blockCount;
+
+    private int[] sizes;
+
+    private PietColor[] colors;
+
+    /**
+     * The packed index of each Block's exit Codels, {@link #EXITS} per Block
+     */
+    private int[] exits;
+
+    /**
+     * Where a slide from each Codel stops, one per {@link DP} (by ordinal) for each
+     * Codel
+     */
+    private int[] slides;
+
+    /**
+     * Blocks handed out by {@link #getBlock(int)}, built the first time they're asked for
+     */
+    private Block[] blocks;
+
+    /**
+     * Work list for flood filling a Block, kept between Blocks
+     */
+    private int[] work;
+
+    /**
+     * The ids freed by an {@link #update()}, handed out again before any new id
+     */
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    public BlockMap(Board board) {
+        this(board, false);
+    }
+
+    /**
+     * @param board the board to label
+     * @param lazy  whether to label each Block only once it's first looked up
+     */
+    public BlockMap(Board board, boolean lazy) {
+        this.board = board;
+        this.sizeRow = board.getSizeRow();
+        this.sizeCol = board.getSizeCol();
+
+        setUp();
+        if(!lazy) {
+            label();
+            buildSlides();
+        }
+    }
+
+    public Board getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @return the number of Block ids handed out so far, which for a lazy map is
+     *         only those which have been looked up. After an {@link #update()},
+     *         some of them may be removed.
+     */
+    public int getBlockCount() {
+        return this.blockCount;
+    }
+
+    public int getBlockId(int index) {
+        int id = this.ids[index];
+        return id == -1 ? fill(index) : id;
+    }
+
+    public int getBlockId(Codel codel) {
+        return getBlockId(index(codel.getX(), codel.getY()));
+    }
+
+    public int getSize(int id) {
+        return this.sizes[id];
+    }
+
+    public PietColor getColor(int id) {
+        return this.colors[id];
+    }
+
+    /**
+     * @param id     the id of the Block
+     * @param corner one of the exit constants, such as {@link #RIGHT_TOP}
+     * @return the packed index of the Block's exit Codel
+     */
+    public int getExit(int id, int corner) {
+        return this.exits[id * EXITS + corner];
+    }
+
+    /**
+     * Gets the {@link Block} containing the given {@link Codel}.
+     *
+     * @param codel a Codel on the board
+     * @return the Block the Codel belongs to
+     */
+    public Block getBlock(Codel codel) {
+        return getBlock(getBlockId(codel));
+    }
+
+    /**
+     * Gets the {@link Block} with the given id, with its size and corners already
+     * filled in.
+     *
+     * @param id the id of the Block
+     * @return the Block with that id
+     */
+    public Block getBlock(int id) {
+
+        Block block = blocks[id];
+        if(block != null) {
+            return block;
+        }
+
+        int base = id * EXITS;
+
+        block = new Block(board, toCodel(exits[base + TOP_LEFT]));
+        block.setSize(sizes[id]);
+
+        block.setRightTop(toCodel(exits[base + RIGHT_TOP]));
+        block.setRightBottom(toCodel(exits[base + RIGHT_BOTTOM]));
+        block.setBottomRight(toCodel(exits[base + BOTTOM_RIGHT]));
+        block.setBottomLeft(toCodel(exits[base + BOTTOM_LEFT]));
+        block.setLeftBottom(toCodel(exits[base + LEFT_BOTTOM]));
+        block.setLeftTop(toCodel(exits[base + LEFT_TOP]));
+        block.setTopLeft(toCodel(exits[base + TOP_LEFT]));
+        block.setTopRight(toCodel(exits[base + TOP_RIGHT]));
+
+        blocks[id] = block;
+        return block;
+    }
+
+    /**
+     * Gets where the interpreter stops when sliding through white in a straight
+     * line from the given Codel.
+     *
+     * The slide stops at the first non-white Codel it reaches, or at the last white
+     * Codel before it would hit black or an edge. A slide starting from a non-white
+     * Codel stops where it is.
+     *
+     * @param index the packed index of the Codel the slide starts from
+     * @param dp    the direction of the slide
+     * @return the packed index of the Codel the slide stops at
+     */
+    public int getSlideEnd(int index, DP dp) {
+        if(slides == null) {
+            return walkSlide(index, dp);
+        }
+        return this.slides[index * DIRECTIONS + dp.ordinal()];
+    }
+
+    public int index(int row, int col) {
+        return row * sizeCol + col;
+    }
+
+    public int getRow(int index) {
+        return index / sizeCol;
+    }
+
+    public int getCol(int index) {
+        return index % sizeCol;
+    }
+
+    public Codel toCodel(int index) {
+        return new Codel(getRow(index), getCol(index));
+    }
+
+    /**
+     * Gets which of the exit Codels the interpreter leaves a Block from for a given
+     * DP and CC.
+     *
+     * The interpreter finds the edge of the Block furthest in the direction of the
+     * DP, then the Codel on that edge furthest to the CC's direction of the DP's
+     * direction of travel.
+     *
+     * @param dp the direction the interpreter is moving
+     * @param cc the side of the edge the interpreter chooses
+     * @return one of the exit constants, such as {@link #RIGHT_TOP}
+     */
+    public static int getCorner(DP dp, CC cc) {
+        boolean left = cc == CC.LEFT;
+        switch(dp) {
+            case RIGHT:
+                return left ? RIGHT_TOP : RIGHT_BOTTOM;
+            case DOWN:
+                return left ? BOTTOM_RIGHT : BOTTOM_LEFT;
+            case LEFT:
+                return left ? LEFT_BOTTOM : LEFT_TOP;
+            case UP:
+            default:
+                return left ? TOP_LEFT : TOP_RIGHT;
+        }
+    }
+
+    /**
+     * @return true if the Block was removed by an {@link #update()}, and its id
+     *         is no longer in use
+     */
+    public boolean isRemoved(int id) {
+        return this.sizes[id] == 0;
+    }
+
+    /**
+     * Relabels the Blocks touched by the board's dirty Codels, then clears them.
+     *
+     * An edit can change the Block holding the edited Codel, and any Block next to
+     * it, which may now join up with it or be split apart by it. Only those Blocks
+     * are relabeled: their ids are removed, and their Codels flood filled again,
+     * reusing the removed ids before handing out new ones. Every other Block keeps
+     * its id. Slides are worked out again only from the white Codels leading up
+     * to an edited Codel, so an update takes time in proportion to the Blocks
+     * and white runs the edits touch, not to the board.
+     *
+     * @return what was relabeled
+     */
+    public Change update() {
+
+        List<Codel> dirty = board.getDirty();
+
+        Set<Integer> touched = new HashSet<>();
+        for(Codel codel : dirty) {
+            int index = index(codel.getX(), codel.getY());
+            int row = codel.getX();
+            int col = codel.getY();
+            touched.add(ids[index]);
+            if(row > 0) {
+                touched.add(ids[index - sizeCol]);
+            }
+            if(row < sizeRow - 1) {
+                touched.add(ids[index + sizeCol]);
+            }
+            if(col > 0) {
+                touched.add(ids[index - 1]);
+            }
+            if(col < sizeCol - 1) {
+                touched.add(ids[index + 1]);
+            }
+        }
+        // a lazy map may not have labeled every Block next to an edit yet
+        touched.remove(-1);
+
+        int[] codels = new int[16];
+        int count = 0;
+        int[] removed = new int[touched.size()];
+        int removedCount = 0;
+
+        for(int id : touched) {
+
+            // the Block's exits are all Codels within it
+            int start = exits[id * EXITS];
+            int top = 0;
+            work[top++] = start;
+            ids[start] = -1;
+
+            while(top > 0) {
+                int index = work[--top];
+                int row = getRow(index);
+                int col = getCol(index);
+                if(count == codels.length) {
+                    codels = Arrays.copyOf(codels, count * 2);
+                }
+                codels[count++] = index;
+
+                if(work.length < top + 4) {
+                    work = Arrays.copyOf(work, work.length * 2);
+                }
+                if(row > 0) {
+                    top = unlabel(work, top, index - sizeCol, id);
+                }
+                if(row < sizeRow - 1) {
+                    top = unlabel(work, top, index + sizeCol, id);
+                }
+                if(col > 0) {
+                    top = unlabel(work, top, index - 1, id);
+                }
+                if(col < sizeCol - 1) {
+                    top = unlabel(work, top, index + 1, id);
+                }
+            }
+
+            sizes[id] = 0;
+            blocks[id] = null;
+            removed[removedCount++] = id;
+            free(id);
+        }
+
+        int[] added = new int[Math.max(removedCount, 1)];
+        int addedCount = 0;
+        for(int i = 0; i < count; i++) {
+            if(ids[codels[i]] == -1) {
+                if(addedCount == added.length) {
+                    added = Arrays.copyOf(added, addedCount * 2);
+                }
+                added[addedCount++] = fill(codels[i]);
+            }
+        }
+
+        if(slides != null) {
+            for(Codel codel : dirty) {
+                refreshSlides(index(codel.getX(), codel.getY()));
+            }
+        }
+
+        board.clearDirty();
+
+        return new Change(Arrays.copyOf(codels, count), removed, Arrays.copyOf(added, addedCount));
+    }
+
+    /**
+     * Makes room for the labels, with every Codel unlabeled.
+     */
+    private void setUp() {
+
+        int area = sizeRow * sizeCol;
+
+        ids = new int[area];
+        Arrays.fill(ids, -1);
+
+        // generously sized up front, grown if the board has more blocks than expected
+        int capacity = Math.max(16, area / 64);
+        sizes = new int[capacity];
+        colors = new PietColor[capacity];
+        exits = new int[capacity * EXITS];
+        blocks = new Block[capacity];
+
+        work = new int[Math.max(16, Math.min(area, 1024))];
+    }
+
+    /**
+     * Labels every Codel on the board with the id of its Block, in a single pass.
+     *
+     * Each Block is flood filled from the first unlabeled Codel found in row-major
+     * order.
+     */
+    private void label() {
+
+        int area = sizeRow * sizeCol;
+
+        for(int start = 0; start < area; start++) {
+            if(ids[start] == -1) {
+                fill(start);
+            }
+        }
+    }
+
+    /**
+     * Flood fills the Block holding the given Codel, labeling each of its Codels
+     * with a new id. The fill uses an explicit work list rather than recursion, so
+     * large single color areas cannot overflow the call stack.
+     *
+     * @param start the packed index of an unlabeled Codel
+     * @return the id given to the Block
+     */
+    private int fill(int start) {
+
+        int id;
+        if(freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = blockCount++;
+            if(id == sizes.length) {
+                grow();
+            }
+        }
+
+        PietColor color = board.getColor(getRow(start), getCol(start));
+        colors[id] = color;
+
+        int base = id * EXITS;
+        for(int corner = 0; corner < EXITS; corner++) {
+            exits[base + corner] = start;
+        }
+
+        int size = 0;
+        int top = 0;
+        work[top++] = start;
+        ids[start] = id;
+
+        while(top > 0) {
+            int index = work[--top];
+            int row = getRow(index);
+            int col = getCol(index);
+
+            size++;
+            setCorners(base, index, row, col);
+
+            if(work.length < top + 4) {
+                work = Arrays.copyOf(work, work.length * 2);
+            }
+
+            if(row > 0) {
+                top = visit(work, top, index - sizeCol, id, color);
+            }
+            if(row < sizeRow - 1) {
+                top = visit(work, top, index + sizeCol, id, color);
+            }
+            if(col > 0) {
+                top = visit(work, top, index - 1, id, color);
+            }
+            if(col < sizeCol - 1) {
+                top = visit(work, top, index + 1, id, color);
+            }
+        }
+
+        sizes[id] = size;
+        return id;
+    }
+
+    /**
+     * Works out where a slide stops from every Codel in every direction.
+     *
+     * Each line of the board is walked once per direction, starting from the end
+     * the slide moves towards, so every Codel's stop is either itself or the stop
+     * of the Codel next to it.
+     */
+    private void buildSlides() {
+
+        slides = new int[sizeRow * sizeCol * DIRECTIONS];
+
+        for(int row = 0; row < sizeRow; row++) {
+            buildRowSlides(row);
+        }
+        for(int col = 0; col < sizeCol; col++) {
+            buildColumnSlides(col);
+        }
+    }
+
+    /**
+     * Works out where a slide stops from every Codel in the row, moving left or
+     * right.
+     */
+    private void buildRowSlides(int row) {
+        for(int col = sizeCol - 1; col >= 0; col--) {
+            setSlide(index(row, col), col < sizeCol - 1 ? index(row, col + 1) : -1, DP.RIGHT);
+        }
+        for(int col = 0; col < sizeCol; col++) {
+            setSlide(index(row, col), col > 0 ? index(row, col - 1) : -1, DP.LEFT);
+        }
+    }
+
+    /**
+     * Works out where a slide stops from every Codel in the column, moving up or
+     * down.
+     */
+    private void buildColumnSlides(int col) {
+        for(int row = sizeRow - 1; row >= 0; row--) {
+            setSlide(index(row, col), row < sizeRow - 1 ? index(row + 1, col) : -1, DP.DOWN);
+        }
+        for(int row = 0; row < sizeRow; row++) {
+            setSlide(index(row, col), row > 0 ? index(row - 1, col) : -1, DP.UP);
+        }
+    }
+
+    /**
+     * @param index the packed index of the Codel
+     * @param next  the packed index of the Codel next to it in the direction of
+     *              the slide, or -1 if it's off the board
+     * @param dp    the direction of the slide
+     */
+    private void setSlide(int index, int next, DP dp) {
+        int slot = index * DIRECTIONS + dp.ordinal();
+        if(colors[ids[index]] != PietColor.WHITE || next == -1 || colors[ids[next]] == PietColor.BLACK) {
+            slides[slot] = index;
+        } else {
+            slides[slot] = slides[next * DIRECTIONS + dp.ordinal()];
+        }
+    }
+
+    /**
+     * Walks a slide one Codel at a time, for a lazy map which has no slides
+     * worked out.
+     *
+     * @see #getSlideEnd(int, DP)
+     */
+    private int walkSlide(int index, DP dp) {
+
+        int row = getRow(index);
+        int col = getCol(index);
+
+        while(board.getColor(row, col) == PietColor.WHITE) {
+            int nextRow = row + dp.getX();
+            int nextCol = col + dp.getY();
+            if(nextRow < 0 || nextRow >= sizeRow || nextCol < 0 || nextCol >= sizeCol
+                    || board.getColor(nextRow, nextCol) == PietColor.BLACK) {
+                break;
+            }
+            row = nextRow;
+            col = nextCol;
+        }
+
+        return index(row, col);
+    }
+
+    /**
+     * Adds the Codel to the work list if it is unlabeled and the same color as the
+     * Block currently being filled.
+     *
+     * @return the new top of the work list
+     */
+    private int visit(int[] work, int top, int index, int id, PietColor color) {
+        if(ids[index] == -1 && board.getColor(getRow(index), getCol(index)) == color) {
+            ids[index] = id;
+            work[top++] = index;
+        }
+        return top;
+    }
+
+    /**
+     * For each exit, checks whether the Codel is further in that exit's direction
+     * than the one currently held, and replaces it if so.
+     */
+    private void setCorners(int base, int index, int row, int col) {
+
+        // furthest right, then furthest up/down
+        int rightTop = exits[base + RIGHT_TOP];
+        if(col > getCol(rightTop) || (col == getCol(rightTop) && row < getRow(rightTop))) {
+            exits[base + RIGHT_TOP] = index;
+        }
+        int rightBottom = exits[base + RIGHT_BOTTOM];
+        if(col > getCol(rightBottom) || (col == getCol(rightBottom) && row > getRow(rightBottom))) {
+            exits[base + RIGHT_BOTTOM] = index;
+        }
+
+        // furthest down, then furthest right/left
+        int bottomRight = exits[base + BOTTOM_RIGHT];
+        if(row > getRow(bottomRight) || (row == getRow(bottomRight) && col > getCol(bottomRight))) {
+            exits[base + BOTTOM_RIGHT] = index;
+        }
+        int bottomLeft = exits[base + BOTTOM_LEFT];
+        if(row > getRow(bottomLeft) || (row == getRow(bottomLeft) && col < getCol(bottomLeft))) {
+            exits[base + BOTTOM_LEFT] = index;
+        }
+
+        // furthest left, then furthest down/up
+        int leftBottom = exits[base + LEFT_BOTTOM];
+        if(col < getCol(leftBottom) || (col == getCol(leftBottom) && row > getRow(leftBottom))) {
+            exits[base + LEFT_BOTTOM] = index;
+        }
+        int leftTop = exits[base + LEFT_TOP];
+        if(col < getCol(leftTop) || (col == getCol(leftTop) && row < getRow(leftTop))) {
+            exits[base + LEFT_TOP] = index;
+        }
+
+        // furthest up, then furthest left/right
+        int topLeft = exits[base + TOP_LEFT];
+        if(row < getRow(topLeft) || (row == getRow(topLeft) && col < getCol(topLeft))) {
+            exits[base + TOP_LEFT] = index;
+        }
+        int topRight = exits[base + TOP_RIGHT];
+        if(row < getRow(topRight) || (row == getRow(topRight) && col > getCol(topRight))) {
+            exits[base + TOP_RIGHT] = index;
+        }
+    }
+
+    /**
+     * Adds the Codel to the work list, unlabeling it, if it belongs to the Block
+     * being removed.
+     *
+     * @return the new top of the work list
+     */
+    private int unlabel(int[] work, int top, int index, int id) {
+        if(ids[index] == id) {
+            ids[index] = -1;
+            work[top++] = index;
+        }
+        return top;
+    }
+
+    private void free(int id) {
+        if(freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Works out the slides from an edited Codel again, along with those from the
+     * white Codels leading up to it, whose slides may have run through it.
+     *
+     * @param index the packed index of the edited Codel
+     */
+    private void refreshSlides(int index) {
+
+        int row = getRow(index);
+        int col = getCol(index);
+
+        for(DP dp : DP.values()) {
+            int nextRow = row + dp.getX();
+            int nextCol = col + dp.getY();
+            int next = nextRow >= 0 && nextRow < sizeRow && nextCol >= 0 && nextCol < sizeCol ? index(nextRow, nextCol) : -1;
+            setSlide(index, next, dp);
+
+            // a slide from a Codel that isn't white stops where it is, so the walk back ends there
+            int current = index;
+            int prevRow = row - dp.getX();
+            int prevCol = col - dp.getY();
+            while(prevRow >= 0 && prevRow < sizeRow && prevCol >= 0 && prevCol < sizeCol) {
+                int prev = index(prevRow, prevCol);
+                if(colors[ids[prev]] != PietColor.WHITE) {
+                    break;
+                }
+                setSlide(prev, current, dp);
+                current = prev;
+                prevRow -= dp.getX();
+                prevCol -= dp.getY();
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = sizes.length * 2;
+        sizes = Arrays.copyOf(sizes, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        exits = Arrays.copyOf(exits, capacity * EXITS);
+        blocks = Arrays.copyOf(blocks, capacity);
+    }
+
+    /**
+     * What an {@link BlockMap#update()} relabeled.
+     */
+    public static class Change {
+
+        private int[] codels;
+        private int[] removed;
+        private int[] added;
+
+        public Change(int[] codels, int[] removed, int[] added) {
+            this.codels = codels;
+            this.removed = removed;
+            this.added = added;
+        }
+
+        /**
+         * @return the packed index of every Codel which was relabeled
+         */
+        public int[] getCodels() {
+            return this.codels;
+        }
+
+        /**
+         * @return the ids of the Blocks which were removed, some of which may have
+         *         been given to new Blocks
+         */
+        public int[] getRemoved() {
+            return this.removed;
+        }
+
+        /**
+         * @return the ids given to new Blocks
+         */
+        public int[] getAdded() {
+            return this.added;
+        }
+    }
+
+}
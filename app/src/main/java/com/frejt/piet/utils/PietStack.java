@@ -0,0 +1,612 @@
+package com.frejt.piet.utils;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.frejt.piet.config.NumericTypes;
+
+/**
+ * †Piet uses a stack for storage of all data values.
+ *
+ * A growable stack of primitive <code>long</code>s, holding the data values of a
+ * running {@link com.frejt.piet.controller.Program}.
+ *
+ * †The stack is notionally infinitely deep, but implementations may elect to
+ * provide a finite maximum stack size.
+ *
+ * A stack may be given a maximum depth. Following the interpreter's policy of
+ * ignoring any command which cannot be performed, a push onto a full stack is
+ * ignored and leaves the stack unchanged.
+ *
+ * The arithmetic commands are performed by the stack itself, following its
+ * {@link NumericTypes}:
+ * - {@link NumericTypes#INT32} wraps every result to 32 bits
+ * - {@link NumericTypes#INT64} ignores any command whose result overflows 64 bits
+ * - {@link NumericTypes#UNBOUNDED} keeps any value too big for 64 bits as a
+ *   {@link BigInteger}
+ *
+ * Values are kept in a <code>long</code> slot wherever they fit, so arithmetic
+ * only allocates once a value has outgrown 64 bits.
+ */
+public class PietStack {
+
+    /**
+     * The maximum depth of a stack which has no limit
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] values;
+
+    /**
+     * The values too big to fit in a long, null for every slot that does fit. Left
+     * null until a value first outgrows 64 bits.
+     */
+    private BigInteger[] bigs;
+
+    private int size;
+
+    private int maxDepth;
+
+    private NumericTypes numericType;
+
+    public PietStack() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * @param maxDepth the most values the stack may hold at once
+     */
+    public PietStack(int maxDepth) {
+        this(maxDepth, NumericTypes.INT32);
+    }
+
+    /**
+     * @param maxDepth    the most values the stack may hold at once
+     * @param numericType how the stack's arithmetic handles overflow
+     */
+    public PietStack(int maxDepth, NumericTypes numericType) {
+        this.values = new long[INITIAL_CAPACITY];
+        this.maxDepth = maxDepth;
+        this.numericType = numericType;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public NumericTypes getNumericType() {
+        return this.numericType;
+    }
+
+    public void setNumericType(NumericTypes numericType) {
+        this.numericType = numericType;
+    }
+
+    /**
+     * Pushes a value on to the top of the stack.
+     *
+     * @param value the value to push
+     * @return false if the stack is full and the push was ignored
+     */
+    public boolean push(long value) {
+        if(size >= maxDepth) {
+            return false;
+        }
+        if(size == values.length) {
+            grow();
+        }
+        size++;
+        set(size - 1, value);
+        return true;
+    }
+
+    /**
+     * Pushes a run of values on to the stack, in order, as if each had been pushed
+     * on its own. Once the stack is full, the rest of the values are ignored.
+     *
+     * @param values the array holding the values to push
+     * @param from   the index of the first value to push
+     * @param count  the number of values to push
+     * @return false if the stack filled up and some of the values were ignored
+     */
+    public boolean push(long[] values, int from, int count) {
+        int room = maxDepth - size;
+        int pushed = Math.min(count, Math.max(room, 0));
+        while(size + pushed > this.values.length) {
+            grow();
+        }
+        System.arraycopy(values, from, this.values, size, pushed);
+        if(bigs != null) {
+            Arrays.fill(bigs, size, size + pushed, null);
+        }
+        size += pushed;
+        return pushed == count;
+    }
+
+    /**
+     * Pushes a value on to the top of the stack, following the stack's
+     * {@link NumericTypes} if it doesn't fit in 64 bits.
+     *
+     * @param value the value to push
+     * @return false if the stack is full, or the value is too big for the stack,
+     *         and the push was ignored
+     */
+    public boolean push(BigInteger value) {
+        if(size >= maxDepth || (!fitsLong(value) && numericType == NumericTypes.INT64)) {
+            return false;
+        }
+        if(size == values.length) {
+            grow();
+        }
+        size++;
+        set(size - 1, value);
+        return true;
+    }
+
+    /**
+     * Removes the top value of the stack. The caller is expected to have checked
+     * that the stack isn't empty.
+     *
+     * A value too big for a long is truncated to its lowest 64 bits.
+     *
+     * @return the value that was on top of the stack
+     */
+    public long pop() {
+        long value = isBig(size - 1) ? bigs[size - 1].longValue() : values[size - 1];
+        drop(1);
+        return value;
+    }
+
+    /**
+     * Removes the top value of the stack and appends it to the output as a
+     * number, in full.
+     *
+     * @param output where the value is written
+     */
+    public void pop(StringBuilder output) {
+        if(isBig(size - 1)) {
+            output.append(bigs[size - 1]);
+        } else {
+            output.append(values[size - 1]);
+        }
+        drop(1);
+    }
+
+    /**
+     * @return the value on top of the stack, without removing it
+     */
+    public long peek() {
+        return peek(0);
+    }
+
+    /**
+     * A value too big for a long is truncated to its lowest 64 bits.
+     *
+     * @param depth how far below the top of the stack to look, the top being 0
+     * @return the value at that depth, without removing it
+     */
+    public long peek(int depth) {
+        int index = size - 1 - depth;
+        return isBig(index) ? bigs[index].longValue() : values[index];
+    }
+
+    /**
+     * @param depth how far below the top of the stack to look, the top being 0
+     * @return true if the value at that depth fits in a long, and so can be
+     *         peeked without being truncated
+     */
+    public boolean isLong(int depth) {
+        return !isBig(size - 1 - depth);
+    }
+
+    /**
+     * Pushes a copy of the top value on to the stack.
+     *
+     * @return false if the stack is empty or full, and nothing was pushed
+     */
+    public boolean dup() {
+        if(size == 0) {
+            return false;
+        }
+        if(isBig(size - 1)) {
+            return push(bigs[size - 1]);
+        }
+        return push(values[size - 1]);
+    }
+
+    /**
+     * Replaces the top two values with the second top value plus the top value.
+     *
+     * @return false if the command was ignored
+     */
+    public boolean add() {
+        if(size < 2) {
+            return false;
+        }
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            long bottom = values[size - 2];
+            long top = values[size - 1];
+            long sum = bottom + top;
+            if(((bottom ^ sum) & (top ^ sum)) >= 0) {
+                return replace(sum);
+            }
+        }
+        return replace(getBig(size - 2).add(getBig(size - 1)));
+    }
+
+    /**
+     * Replaces the top two values with the second top value minus the top value.
+     *
+     * @return false if the command was ignored
+     */
+    public boolean subtract() {
+        if(size < 2) {
+            return false;
+        }
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            long bottom = values[size - 2];
+            long top = values[size - 1];
+            long difference = bottom - top;
+            if(((bottom ^ top) & (bottom ^ difference)) >= 0) {
+                return replace(difference);
+            }
+        }
+        return replace(getBig(size - 2).subtract(getBig(size - 1)));
+    }
+
+    /**
+     * Replaces the top two values with the second top value times the top value.
+     *
+     * @return false if the command was ignored
+     */
+    public boolean multiply() {
+        if(size < 2) {
+            return false;
+        }
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            long bottom = values[size - 2];
+            long top = values[size - 1];
+            long high = Math.multiplyHigh(bottom, top);
+            long product = bottom * top;
+            if((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+                return replace(product);
+            }
+        }
+        return replace(getBig(size - 2).multiply(getBig(size - 1)));
+    }
+
+    /**
+     * Replaces the top two values with the integer division of the second top
+     * value by the top value.
+     *
+     * @return false if the top value is zero, or the command was otherwise ignored
+     */
+    public boolean divide() {
+        if(size < 2 || isZero(size - 1)) {
+            return false;
+        }
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            long bottom = values[size - 2];
+            long top = values[size - 1];
+            if(bottom != Long.MIN_VALUE || top != -1) {
+                return replace(bottom / top);
+            }
+        }
+        return replace(getBig(size - 2).divide(getBig(size - 1)));
+    }
+
+    /**
+     * Replaces the top two values with the second top value modulo the top value,
+     * taking the sign of the top value.
+     *
+     * @return false if the top value is zero, or the command was otherwise ignored
+     */
+    public boolean mod() {
+        if(size < 2 || isZero(size - 1)) {
+            return false;
+        }
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            return replace(Math.floorMod(values[size - 2], values[size - 1]));
+        }
+        BigInteger divisor = getBig(size - 1);
+        BigInteger remainder = getBig(size - 2).mod(divisor.abs());
+        if(divisor.signum() < 0 && remainder.signum() != 0) {
+            remainder = remainder.add(divisor);
+        }
+        return replace(remainder);
+    }
+
+    /**
+     * Replaces the top value with 1 if it's 0, or 0 otherwise.
+     *
+     * @return false if the stack is empty and the command was ignored
+     */
+    public boolean not() {
+        if(size == 0) {
+            return false;
+        }
+        set(size - 1, isZero(size - 1) ? 1 : 0);
+        return true;
+    }
+
+    /**
+     * Replaces the top two values with 1 if the second top value is greater than
+     * the top value, or 0 otherwise.
+     *
+     * @return false if the stack doesn't hold two values and the command was ignored
+     */
+    public boolean greater() {
+        if(size < 2) {
+            return false;
+        }
+        boolean greater;
+        if(!isBig(size - 2) && !isBig(size - 1)) {
+            greater = values[size - 2] > values[size - 1];
+        } else {
+            greater = getBig(size - 2).compareTo(getBig(size - 1)) > 0;
+        }
+        drop(1);
+        set(size - 1, greater ? 1 : 0);
+        return true;
+    }
+
+    /**
+     * Pops the number of rolls, then the depth, off the stack, and rolls the values
+     * left on the stack.
+     *
+     * @return false if the roll was ignored, though the two values are popped
+     *         regardless
+     * @see #roll(int, long)
+     */
+    public boolean roll() {
+
+        if(size < 2) {
+            return false;
+        }
+
+        boolean bigDepth = isBig(size - 2);
+        long depth = values[size - 2];
+
+        // reduce the rolls before popping them, so a huge roll never needs truncating
+        long rolls = 0;
+        boolean valid = !bigDepth && depth > 0 && depth <= size - 2;
+        if(valid) {
+            rolls = isBig(size - 1) ? getBig(size - 1).mod(BigInteger.valueOf(depth)).longValue() : values[size - 1];
+        }
+
+        drop(2);
+
+        if(bigDepth) {
+            return false;
+        }
+        return roll((int) Math.max(Math.min(depth, Integer.MAX_VALUE), -1), rolls);
+    }
+
+    /**
+     * Rolls the top values of the stack.
+     *
+     * A single roll to depth n buries the top value n deep, bringing all the values
+     * above it up by one place. A negative number of rolls rolls in the opposite
+     * direction.
+     *
+     * Rolling n values n times leaves them where they started, so the number of
+     * rolls is first reduced modulo the depth. The remaining rotation is done in
+     * place with three reversals, taking time in proportion to the depth no matter
+     * how many rolls were asked for.
+     *
+     * @param depth the number of values to roll
+     * @param rolls the number of times to roll them
+     * @return false if the depth is negative or deeper than the stack, and the roll
+     *         was ignored
+     */
+    public boolean roll(int depth, long rolls) {
+
+        if(depth < 0 || depth > size) {
+            return false;
+        }
+        if(depth == 0) {
+            return true;
+        }
+
+        int turns = (int) Math.floorMod(rolls, (long) depth);
+        if(turns == 0) {
+            return true;
+        }
+
+        int bottom = size - depth;
+        reverse(bottom, size);
+        reverse(bottom, bottom + turns);
+        reverse(bottom + turns, size);
+
+        return true;
+    }
+
+    /**
+     * @return a stack holding the same values, with the same maximum depth and
+     *         {@link NumericTypes}
+     */
+    public PietStack copy() {
+        PietStack copy = new PietStack(maxDepth, numericType);
+        copy.values = Arrays.copyOf(values, values.length);
+        copy.bigs = bigs == null ? null : Arrays.copyOf(bigs, bigs.length);
+        copy.size = size;
+        return copy;
+    }
+
+    public void clear() {
+        drop(size);
+    }
+
+    /**
+     * Values too big for a long are truncated to their lowest 64 bits.
+     *
+     * @return the values on the stack, from the bottom to the top
+     */
+    public long[] toArray() {
+        long[] array = new long[size];
+        for(int i = 0; i < size; i++) {
+            array[i] = isBig(i) ? bigs[i].longValue() : values[i];
+        }
+        return array;
+    }
+
+    /**
+     * Replaces the top two values with a single result, following the stack's
+     * {@link NumericTypes}.
+     */
+    private boolean replace(long result) {
+        drop(1);
+        set(size - 1, numericType == NumericTypes.INT32 ? (int) result : result);
+        return true;
+    }
+
+    /**
+     * Replaces the top two values with a result which may not fit in a long,
+     * following the stack's {@link NumericTypes}.
+     */
+    private boolean replace(BigInteger result) {
+        if(fitsLong(result)) {
+            return replace(result.longValue());
+        }
+        switch(numericType) {
+            case INT32:
+                return replace((long) result.intValue());
+            case INT64:
+                return false;
+            case UNBOUNDED:
+            default:
+                drop(1);
+                set(size - 1, result);
+                return true;
+        }
+    }
+
+    private void set(int index, long value) {
+        values[index] = value;
+        if(bigs != null) {
+            bigs[index] = null;
+        }
+    }
+
+    private void set(int index, BigInteger value) {
+        if(fitsLong(value)) {
+            set(index, value.longValue());
+            return;
+        }
+        if(bigs == null) {
+            bigs = new BigInteger[values.length];
+        }
+        bigs[index] = value;
+    }
+
+    /**
+     * Removes the given number of values from the top of the stack.
+     */
+    private void drop(int count) {
+        if(bigs != null) {
+            Arrays.fill(bigs, size - count, size, null);
+        }
+        size -= count;
+    }
+
+    private boolean isBig(int index) {
+        return bigs != null && bigs[index] != null;
+    }
+
+    private boolean isZero(int index) {
+        return !isBig(index) && values[index] == 0;
+    }
+
+    private BigInteger getBig(int index) {
+        return isBig(index) ? bigs[index] : BigInteger.valueOf(values[index]);
+    }
+
+    private static boolean fitsLong(BigInteger value) {
+        return value.bitLength() < Long.SIZE;
+    }
+
+    private void grow() {
+        values = Arrays.copyOf(values, values.length << 1);
+        if(bigs != null) {
+            bigs = Arrays.copyOf(bigs, values.length);
+        }
+    }
+
+    private void reverse(int from, int to) {
+        for(int i = from, j = to - 1; i < j; i++, j--) {
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+            if(bigs != null) {
+                BigInteger big = bigs[i];
+                bigs[i] = bigs[j];
+                bigs[j] = big;
+            }
+        }
+    }
+
+    /**
+     * Two stacks are equal if they hold the same values in the same order,
+     * regardless of their maximum depths.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if(this == other) {
+            return true;
+        }
+        if(!(other instanceof PietStack)) {
+            return false;
+        }
+        PietStack stack = (PietStack) other;
+        if(size != stack.size) {
+            return false;
+        }
+        // the top of the stack is the likeliest to differ
+        for(int i = size - 1; i >= 0; i--) {
+            if(isBig(i) || stack.isBig(i)) {
+                if(!getBig(i).equals(stack.getBig(i))) {
+                    return false;
+                }
+            } else if(values[i] != stack.values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++) {
+            hash = 31 * hash + getBig(i).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for(int i = 0; i < size; i++) {
+            if(i > 0) {
+                builder.append(", ");
+            }
+            builder.append(getBig(i));
+        }
+        return builder.append("]").toString();
+    }
+
+}
@@ -1,5 +1,8 @@
 package com.frejt.piet.utils.color;
 
+import java.util.Arrays;
+
+import com.frejt.piet.config.NonStandardColorTypes;
 import com.frejt.piet.exception.PietColorNotFoundException;
 
 /**
@@ -19,11 +22,13 @@ import com.frejt.piet.exception.PietColorNotFoundException;
  * Additional colours (such as orange, brown) may be used, 
  * though their effect is implementation-dependent. 
  * 
- * TODO: In the simplest case, non-standard colours are treated by the 
+ * †In the simplest case, non-standard colours are treated by the 
  * language interpreter as the same as white, so may be used freely 
  * wherever white is used. 
  * 
  * (Another possibility is that they are treated the same as black.)
+ * 
+ * Which of these is done, if either, is chosen by a {@link NonStandardColorTypes}.
  */
 public enum PietColor {
 
@@ -63,6 +68,32 @@ public enum PietColor {
     private PietHue hue;
     private PietLight light;
 
+    private static final PietColor[] COLORS = values();
+
+    /**
+     * Each of a color's channels is one of 0x00, 0xC0 or 0xFF. Maps a channel's
+     * value to which of the three it is, or -1 if it's none of them.
+     */
+    private static final byte[] LEVELS = new byte[256];
+
+    /**
+     * The color for each combination of channel levels, indexed by
+     * <code>red * 9 + green * 3 + blue</code>, or null for the combinations which
+     * aren't one of Piet's colors
+     */
+    private static final PietColor[] BY_LEVELS = new PietColor[27];
+
+    static {
+        Arrays.fill(LEVELS, (byte) -1);
+        LEVELS[0x00] = 0;
+        LEVELS[0xC0] = 1;
+        LEVELS[0xFF] = 2;
+
+        for(PietColor color : COLORS) {
+            BY_LEVELS[LEVELS[color.red] * 9 + LEVELS[color.green] * 3 + LEVELS[color.blue]] = color;
+        }
+    }
+
     PietColor(PietLight light, PietHue hue, Integer red, Integer green, Integer blue) {
         this.light = light;
         this.hue = hue;
@@ -115,15 +146,71 @@ public enum PietColor {
      * @throws ColorNotFoundException if the RGB values could not be matched to a Color
      */
     public static PietColor getColorFromValues(Integer red, Integer green, Integer blue) throws PietColorNotFoundException {
-        String rgb = PietColor.getColorFromRGB(red, green, blue);
+        return getColor(red << 16 | green << 8 | blue, NonStandardColorTypes.ERROR);
+    }
+
+    /**
+     * Given a packed RGB value, returns the {@link PietColor} matching it.
+     * 
+     * Each channel is looked up in a table of the three values Piet's channels can
+     * take, and the three levels found pick the color, so nothing is allocated.
+     * 
+     * @param rgb    the color, packed as <code>0xRRGGBB</code>; any higher bits
+     *               are ignored
+     * @param policy how to read the color if it isn't one of Piet's
+     * @return the Color represented by the packed value
+     * @throws PietColorNotFoundException if the color isn't one of Piet's, and the
+     *                                    policy is {@link NonStandardColorTypes#ERROR}
+     */
+    public static PietColor getColor(int rgb, NonStandardColorTypes policy) throws PietColorNotFoundException {
+
+        int red = LEVELS[rgb >> 16 & 0xff];
+        int green = LEVELS[rgb >> 8 & 0xff];
+        int blue = LEVELS[rgb & 0xff];
+
+        if((red | green | blue) >= 0) {
+            PietColor color = BY_LEVELS[red * 9 + green * 3 + blue];
+            if(color != null) {
+                return color;
+            }
+        }
+
+        switch(policy) {
+            case WHITE:
+                return WHITE;
+            case BLACK:
+                return BLACK;
+            case NEAREST:
+                return getNearest(rgb);
+            case ERROR:
+            default:
+                throw new PietColorNotFoundException("Value " + getColorFromRGB(rgb >> 16 & 0xff, rgb >> 8 & 0xff, rgb & 0xff) + " at is not a defined color!");
+        }
+    }
+
+    /**
+     * @param rgb the color, packed as <code>0xRRGGBB</code>
+     * @return the color closest to the packed value, by the distance between
+     *         their channels
+     */
+    private static PietColor getNearest(int rgb) {
+
+        PietColor nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+
+        for(PietColor color : COLORS) {
+            int red = (rgb >> 16 & 0xff) - color.red;
+            int green = (rgb >> 8 & 0xff) - color.green;
+            int blue = (rgb & 0xff) - color.blue;
 
-        for (PietColor c : PietColor.values()) {
-            if (c.rgb.equals(rgb)) {
-                return c;
+            int distance = red * red + green * green + blue * blue;
+            if(distance < nearestDistance) {
+                nearest = color;
+                nearestDistance = distance;
             }
         }
 
-        throw new PietColorNotFoundException("Value " + rgb + " at is not a defined color!");
+        return nearest;
     }
 
     /**
@@ -0,0 +1,99 @@
+package com.frejt.piet.utils.reader;
+
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+
+/**
+ * †Piet code takes the form of graphics made up of the recognised colours.
+ * Individual pixels of colour are significant in the language, so it is common
+ * for programs to be enlarged for viewing so that the details are easily
+ * visible. In such enlarged programs, the term "codel" is used to mean a block
+ * of colour equivalent to a single pixel of code.
+ *
+ * An image read pixel for pixel is brought back down to one pixel a codel here.
+ */
+public class CodelSize {
+
+    private CodelSize() {
+    }
+
+    /**
+     * Finds the largest codel size the image could have been enlarged by.
+     *
+     * Every run of a single color along a row or a column of an enlarged image is
+     * a whole number of codels long, so the codel size is the greatest common
+     * divisor of the lengths of all of the runs. When every run along every row
+     * and column breaks on a multiple of the size, each square of that size is a
+     * single color, and so the image is made up of codels of that size.
+     *
+     * @param board the image, read a pixel to a Codel
+     * @return the size of a codel, in pixels along each side
+     */
+    public static int detect(Board board) {
+
+        int rows = board.getSizeRow();
+        int cols = board.getSizeCol();
+        int size = gcd(rows, cols);
+
+        for(int i = 0; i < rows && size > 1; i++) {
+            int run = 1;
+            for(int j = 1; j < cols; j++) {
+                if(board.getColor(i, j) == board.getColor(i, j - 1)) {
+                    run++;
+                } else {
+                    size = gcd(size, run);
+                    run = 1;
+                }
+            }
+        }
+
+        for(int j = 0; j < cols && size > 1; j++) {
+            int run = 1;
+            for(int i = 1; i < rows; i++) {
+                if(board.getColor(i, j) == board.getColor(i - 1, j)) {
+                    run++;
+                } else {
+                    size = gcd(size, run);
+                    run = 1;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Shrinks an image down to one Codel for each codel of the given size, taking
+     * the color of each codel's upper left pixel.
+     *
+     * @param board the image, read a pixel to a Codel
+     * @param size  the size of a codel, in pixels along each side
+     * @return the image with a Codel for each codel, or the image itself if the
+     *         size is 1
+     */
+    public static Board downsample(Board board, int size) {
+
+        if(size == 1) {
+            return board;
+        }
+
+        Board codels = new Board(board.getSizeRow() / size, board.getSizeCol() / size);
+        for(int i = 0; i < codels.getSizeRow(); i++) {
+            for(int j = 0; j < codels.getSizeCol(); j++) {
+                codels.setColor(new Codel(i, j), board.getColor(i * size, j * size));
+            }
+        }
+
+        return codels;
+    }
+
+    private static int gcd(int a, int b) {
+        while(b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.frejt.piet.utils.reader;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+import com.frejt.piet.config.NonStandardColorTypes;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.exception.PietColorNotFoundException;
+import com.frejt.piet.utils.color.PietColor;
+
+/**
+ * Turns a decoded image into a {@link Board}, reading its pixels straight out of
+ * its {@link Raster} where the layout is a common one.
+ *
+ * - Indexed images, as saved by most editors, have each palette entry classified
+ *   once, after which every pixel is a lookup of its index.
+ * - Packed int and interleaved byte layouts are read from their data buffers,
+ *   one packed RGB value per pixel, without any color model conversion.
+ * - Anything else is read a row at a time through {@link BufferedImage#getRGB}.
+ */
+public class PNGDecoder {
+
+    /**
+     * How colors outside of Piet's 20 are read
+     */
+    private NonStandardColorTypes colorPolicy;
+
+    public PNGDecoder(NonStandardColorTypes colorPolicy) {
+        this.colorPolicy = colorPolicy;
+    }
+
+    /**
+     * @param image the decoded image
+     * @return a Board representation of the image
+     * @throws PietColorNotFoundException if a pixel's color can't be read
+     */
+    public Board decode(BufferedImage image) throws PietColorNotFoundException {
+
+        Board board = new Board(image.getHeight(), image.getWidth());
+
+        if(image.getColorModel() instanceof IndexColorModel) {
+            decodeIndexed(image, board);
+            return board;
+        }
+
+        switch(image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                decodePackedInts(image.getRaster(), board);
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                decodeInterleavedBytes(image.getRaster(), board);
+                break;
+            default:
+                decodeRows(image, board);
+                break;
+        }
+
+        return board;
+    }
+
+    /**
+     * Classifies each palette entry once, then maps each pixel's index straight to
+     * its color. An entry outside of Piet's colors is only a problem if a pixel
+     * actually uses it.
+     */
+    private void decodeIndexed(BufferedImage image, Board board) throws PietColorNotFoundException {
+
+        IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+        PietColor[] palette = new PietColor[colorModel.getMapSize()];
+        for(int entry = 0; entry < palette.length; entry++) {
+            try {
+                palette[entry] = PietColor.getColor(colorModel.getRGB(entry), colorPolicy);
+            } catch(PietColorNotFoundException e) {
+                // left empty, and only reported if used
+            }
+        }
+
+        Raster raster = image.getRaster();
+        int width = raster.getWidth();
+        int[] indices = new int[width];
+
+        for(int i = 0; i < raster.getHeight(); i++) {
+            raster.getSamples(raster.getMinX(), raster.getMinY() + i, width, 1, 0, indices);
+            for(int j = 0; j < width; j++) {
+                PietColor color = palette[indices[j]];
+                if(color == null) {
+                    // reports the color that couldn't be read
+                    color = PietColor.getColor(colorModel.getRGB(indices[j]), colorPolicy);
+                }
+                board.setColor(new Codel(i, j), color);
+            }
+        }
+    }
+
+    /**
+     * Reads pixels packed as <code>0xAARRGGBB</code> ints straight from the data
+     * buffer. The alpha channel is ignored.
+     */
+    private void decodePackedInts(Raster raster, Board board) throws PietColorNotFoundException {
+
+        SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+        int[] data = buffer.getData();
+        int scanline = sampleModel.getScanlineStride();
+        int origin = buffer.getOffset()
+                - raster.getSampleModelTranslateY() * scanline - raster.getSampleModelTranslateX();
+
+        for(int i = 0; i < raster.getHeight(); i++) {
+            int row = origin + (raster.getMinY() + i) * scanline + raster.getMinX();
+            for(int j = 0; j < raster.getWidth(); j++) {
+                board.setColor(new Codel(i, j), PietColor.getColor(data[row + j], colorPolicy));
+            }
+        }
+    }
+
+    /**
+     * Reads pixels stored as interleaved bytes straight from the data buffer, in
+     * whichever order the sample model puts the red, green and blue bands. Any
+     * alpha band is ignored.
+     */
+    private void decodeInterleavedBytes(Raster raster, Board board) throws PietColorNotFoundException {
+
+        ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        byte[] data = buffer.getData();
+        int scanline = sampleModel.getScanlineStride();
+        int pixelStride = sampleModel.getPixelStride();
+        int[] bandOffsets = sampleModel.getBandOffsets();
+        int red = bandOffsets[0];
+        int green = bandOffsets[1];
+        int blue = bandOffsets[2];
+        int origin = buffer.getOffset()
+                - raster.getSampleModelTranslateY() * scanline - raster.getSampleModelTranslateX() * pixelStride;
+
+        for(int i = 0; i < raster.getHeight(); i++) {
+            int pixel = origin + (raster.getMinY() + i) * scanline + raster.getMinX() * pixelStride;
+            for(int j = 0; j < raster.getWidth(); j++, pixel += pixelStride) {
+                int rgb = (data[pixel + red] & 0xff) << 16 | (data[pixel + green] & 0xff) << 8 | data[pixel + blue] & 0xff;
+                board.setColor(new Codel(i, j), PietColor.getColor(rgb, colorPolicy));
+            }
+        }
+    }
+
+    /**
+     * Reads a row of pixels at a time, converted to packed RGB by the image's
+     * color model.
+     */
+    private void decodeRows(BufferedImage image, Board board) throws PietColorNotFoundException {
+
+        int width = image.getWidth();
+        int[] row = new int[width];
+
+        for(int i = 0; i < image.getHeight(); i++) {
+            image.getRGB(0, i, width, 1, row, 0, width);
+            for(int j = 0; j < width; j++) {
+                board.setColor(new Codel(i, j), PietColor.getColor(row[j], colorPolicy));
+            }
+        }
+    }
+
+}
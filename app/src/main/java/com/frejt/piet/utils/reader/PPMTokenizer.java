@@ -0,0 +1,239 @@
+package com.frejt.piet.utils.reader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.frejt.piet.exception.PietFileNotReadException;
+
+/**
+ * Reads the ASCII parts of a PPM file straight from its bytes.
+ *
+ * Tokens are separated by any amount of whitespace, and a '#' starts a comment
+ * running to the end of its line, anywhere in the file. Only absolute reads
+ * are made on the buffer, so the samples of a large plain PPM file can be read
+ * in chunks on several threads at once.
+ */
+public class PPMTokenizer {
+
+    /**
+     * The fewest bytes of samples worth reading on a thread of their own
+     */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    private ByteBuffer buffer;
+
+    /**
+     * The index of the next byte to read
+     */
+    private int position;
+
+    public PPMTokenizer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Reads the two characters of the magic number, which starts the file.
+     *
+     * @return the magic number, such as "P3" or "P6"
+     * @throws PietFileNotReadException if the file is too short to have one
+     */
+    public String nextMagicNumber() throws PietFileNotReadException {
+        if(buffer.limit() < 2) {
+            throw new PietFileNotReadException("The file is too short to be a PPM file");
+        }
+        position = 2;
+        return "" + (char) buffer.get(0) + (char) buffer.get(1);
+    }
+
+    /**
+     * Reads the next ASCII decimal number, skipping any whitespace and comments
+     * before it. The byte ending the number is not read.
+     *
+     * @return the number read
+     * @throws PietFileNotReadException if the next token isn't a number
+     */
+    public int nextInt() throws PietFileNotReadException {
+
+        position = skip(buffer, position, buffer.limit());
+        if(position == buffer.limit()) {
+            throw new PietFileNotReadException("Expected a number, but the file ended");
+        }
+
+        long value = 0;
+        int start = position;
+        while(position < buffer.limit() && isDigit(buffer.get(position))) {
+            value = value * 10 + (buffer.get(position++) - '0');
+            if(value > Integer.MAX_VALUE) {
+                throw new PietFileNotReadException("The number at byte " + start + " is too large");
+            }
+        }
+        if(position == start) {
+            throw new PietFileNotReadException("Expected a number at byte " + start + ", but found '" + (char) buffer.get(start) + "'");
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads the single whitespace character which ends the header of a binary PPM
+     * file.
+     */
+    public void skipSeparator() throws PietFileNotReadException {
+        if(position == buffer.limit()) {
+            throw new PietFileNotReadException("The header is cut short");
+        }
+        position++;
+    }
+
+    /**
+     * Reads the given number of ASCII decimal samples, from here to the end of the
+     * file.
+     *
+     * Large enough files are split into chunks at line breaks, which can never
+     * fall inside of a number or a comment, and the chunks are read in parallel
+     * on the common {@link ForkJoinPool}.
+     *
+     * @param count the number of samples expected
+     * @return the samples, in order
+     * @throws PietFileNotReadException if a token isn't a number, or there are
+     *                                  fewer samples than expected
+     */
+    public int[] nextInts(int count) throws PietFileNotReadException {
+
+        List<Chunk> chunks = new ArrayList<>();
+        int start = position;
+        int end = buffer.limit();
+        while(start < end) {
+            int split = end - start > 2 * CHUNK_SIZE ? nextLineStart(start + CHUNK_SIZE, end) : end;
+            chunks.add(new Chunk(buffer, start, split));
+            start = split;
+        }
+        position = end;
+
+        if(chunks.size() > 1) {
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+        } else {
+            chunks.forEach(Chunk::compute);
+        }
+
+        int[] samples = new int[count];
+        int read = 0;
+        for(Chunk chunk : chunks) {
+            if(chunk.error != null) {
+                throw new PietFileNotReadException(chunk.error);
+            }
+            int copied = Math.min(chunk.count, count - read);
+            System.arraycopy(chunk.samples, 0, samples, read, copied);
+            read += copied;
+        }
+        if(read < count) {
+            throw new PietFileNotReadException("Expected " + count + " samples, but found " + read);
+        }
+
+        return samples;
+    }
+
+    /**
+     * @return the index just after the first line break at or after from, or end
+     *         if there is none
+     */
+    private int nextLineStart(int from, int end) {
+        for(int i = from; i < end; i++) {
+            if(buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the first byte at or after from that is neither
+     *         whitespace nor in a comment, or end if there is none
+     */
+    private static int skip(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        while(i < end) {
+            byte next = buffer.get(i);
+            if(next == '#') {
+                while(i < end && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                    i++;
+                }
+            } else if(next == ' ' || next == '\t' || next == '\n' || next == '\r' || next == '\f' || next == 0x0b) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * The samples between two line breaks of the file.
+     */
+    private static class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private ByteBuffer buffer;
+        private int start;
+        private int end;
+
+        private int[] samples = new int[64];
+        private int count;
+        private String error;
+
+        Chunk(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            int i = skip(buffer, start, end);
+            while(i < end) {
+
+                if(!isDigit(buffer.get(i))) {
+                    error = "Expected a number at byte " + i + ", but found '" + (char) buffer.get(i) + "'";
+                    return;
+                }
+
+                int value = 0;
+                while(i < end && isDigit(buffer.get(i))) {
+                    value = value * 10 + (buffer.get(i++) - '0');
+                    if(value > 65535) {
+                        error = "The sample ending at byte " + i + " is larger than any Maxval";
+                        return;
+                    }
+                }
+
+                if(count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+                samples[count++] = value;
+
+                i = skip(buffer, i, end);
+            }
+        }
+
+    }
+
+}
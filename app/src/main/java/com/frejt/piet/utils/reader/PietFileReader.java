@@ -1,15 +1,17 @@
 package com.frejt.piet.utils.reader;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Scanner;
+import java.nio.file.StandardOpenOption;
 import java.awt.image.BufferedImage;
 import java.io.FileInputStream;
 
 import javax.imageio.ImageIO;
 
+import com.frejt.piet.config.NonStandardColorTypes;
 import com.frejt.piet.entity.Board;
 import com.frejt.piet.entity.Codel;
 import com.frejt.piet.entity.PPMMetadata;
@@ -25,13 +27,46 @@ public class PietFileReader {
 
     private Path path;
 
+    /**
+     * How colors outside of Piet's 20 are read
+     */
+    private NonStandardColorTypes colorPolicy;
+
+    /**
+     * The size of a codel in pixels along each side, or {@link #DETECT_CODEL_SIZE}
+     * to work it out from the image
+     */
+    private int codelSize = DETECT_CODEL_SIZE;
+
+    /**
+     * Marks the codel size as one to be worked out from the image
+     */
+    public static final int DETECT_CODEL_SIZE = 0;
+
     public PietFileReader(Path path) {
+        this(path, NonStandardColorTypes.ERROR);
+    }
+
+    public PietFileReader(Path path, NonStandardColorTypes colorPolicy) {
         this.path = path;
+        this.colorPolicy = colorPolicy;
+    }
+
+    public int getCodelSize() {
+        return this.codelSize;
+    }
+
+    public void setCodelSize(int codelSize) {
+        this.codelSize = codelSize;
     }
 
 	/**
 	 * Converts a file of a known {@link ContentType} into a {@link Board}.
 	 * 
+	 * The file is read a pixel to a {@link Codel}, then shrunk down to one Codel
+	 * for each codel of the {@link #codelSize}, detected by {@link CodelSize} unless
+	 * one was given.
+	 * 
 	 * @return a Board representing the {@link #path}s file.
 	 * @throws FileNotReadException if the file was, for any reason, not able to be read
 	 */
@@ -39,15 +74,25 @@ public class PietFileReader {
 
         ContentType contentType = getFileType();
 
+        Board pixels;
         switch(contentType) {
             case PPM:
-                return readPPM();
+                pixels = readPPM();
+                break;
             case PNG:
-                return readPNG();
+                pixels = readPNG();
+                break;
             default:
                 throw new PietFileNotReadException(contentType + " is not a supported content type");
         }
 
+        int size = codelSize == DETECT_CODEL_SIZE ? CodelSize.detect(pixels) : codelSize;
+        if(size < 1 || pixels.getSizeRow() % size != 0 || pixels.getSizeCol() % size != 0) {
+            throw new PietFileNotReadException("A " + pixels.getSizeCol() + "x" + pixels.getSizeRow()
+                    + " image can't be made of codels of size " + size);
+        }
+
+        return CodelSize.downsample(pixels, size);
     }
 
     /**
@@ -75,47 +120,123 @@ public class PietFileReader {
      * Using the {@link #path} to a PPM file provided to this PietFileReader, converts
      * the file into a {@link Board}
      * 
+     * The file is mapped into memory and read straight from its bytes by a
+     * {@link PPMTokenizer}. Binary "P6" files are read by
+     * {@link #readBinaryPPM(MappedByteBuffer, PPMTokenizer, PPMMetadata)}, while
+     * plain "P3" files are read as ASCII decimal.
+     * 
      * @return a Board representation of the PPM file
      * @throws PietFileNotReadException
      */
     private Board readPPM() throws PietColorNotFoundException, PietFileNotReadException {
 
-        Board board;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            PPMTokenizer tokenizer = new PPMTokenizer(buffer);
 
-        try(Scanner sc = new Scanner(path.toFile())) {
+            String magicNumber = tokenizer.nextMagicNumber();
+            int columns = tokenizer.nextInt();
+            int rows = tokenizer.nextInt();
+            int maxVal = tokenizer.nextInt();
 
-            String magicNumber = sc.next();
-            Integer columns = sc.nextInt();
-            Integer rows = sc.nextInt();
-            Integer maxVal = sc.nextInt();
+            if(maxVal <= 0 || maxVal >= 65536) {
+                throw new PietFileNotReadException("Maxval must be between 1 and 65535, but was " + maxVal);
+            }
 
             PPMMetadata metadata = new PPMMetadata(magicNumber, columns, rows, maxVal);
-            board = new Board(metadata);
 
-            for(int i = 0; i < board.getSizeRow(); i++) {
-                for(int j = 0; j < board.getSizeCol(); j++) {
-                    Integer red, blue, green;
+            switch(magicNumber) {
+                case "P6":
+                    return readBinaryPPM(buffer, tokenizer, metadata);
+                case "P3":
+                    return readPlainPPM(tokenizer, metadata);
+                default:
+                    throw new PietFileNotReadException(magicNumber + " is not a supported PPM magic number");
+            }
 
-                    red = sc.nextInt();
-                    green = sc.nextInt();
-                    blue = sc.nextInt();
+        } catch(IOException e) {
+            throw new PietFileNotReadException(e.getMessage());
+        }
+    }
 
-                    Codel coordinate = new Codel(i, j);
-                    PietColor color = PietColor.getColorFromValues(red, green, blue);
-                    board.setColor(coordinate, color);
-                }
+    /**
+     * Reads the raster of a plain "P3" PPM file, which is written as ASCII decimal,
+     * three samples to a pixel. Samples are scaled to 0-255 by the Maxval.
+     * 
+     * @return a Board representation of the PPM file
+     * @throws PietFileNotReadException if the raster couldn't be read, or is cut short
+     */
+    private Board readPlainPPM(PPMTokenizer tokenizer, PPMMetadata metadata) throws PietColorNotFoundException, PietFileNotReadException {
+
+        Board board = new Board(metadata);
+
+        int[] samples = tokenizer.nextInts(board.getSizeRow() * board.getSizeCol() * 3);
+
+        int sample = 0;
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                int red = metadata.scale(samples[sample++]);
+                int green = metadata.scale(samples[sample++]);
+                int blue = metadata.scale(samples[sample++]);
+
+                board.setColor(new Codel(i, j), PietColor.getColor(red << 16 | green << 8 | blue, colorPolicy));
             }
+        }
 
-            return board;
+        return board;
+    }
 
-        } catch(FileNotFoundException e) {
-            throw new PietFileNotReadException(e.getMessage());
+    /**
+     * Reads the raster of a binary "P6" PPM file, decoding it straight from the
+     * mapped bytes.
+     * 
+     * The header ends with a single whitespace character, after which each pixel
+     * is three samples: one byte each when the Maxval is below 256, or two bytes
+     * each, most significant first, when it isn't. Samples are scaled to 0-255 by
+     * the Maxval.
+     * 
+     * @return a Board representation of the PPM file
+     * @throws PietFileNotReadException if the raster is cut short
+     */
+    private Board readBinaryPPM(MappedByteBuffer buffer, PPMTokenizer tokenizer, PPMMetadata metadata) throws PietColorNotFoundException, PietFileNotReadException {
+
+        tokenizer.skipSeparator();
+        buffer.position(tokenizer.getPosition());
+
+        Board board = new Board(metadata);
+        int rows = board.getSizeRow();
+        int columns = board.getSizeCol();
+
+        boolean wide = metadata.getMaxVal() > 255;
+        long needed = (long) rows * columns * 3 * (wide ? 2 : 1);
+        if(buffer.remaining() < needed) {
+            throw new PietFileNotReadException("The raster is cut short: expected " + needed + " bytes, but found " + buffer.remaining());
         }
+
+        for(int i = 0; i < rows; i++) {
+            for(int j = 0; j < columns; j++) {
+                int red, green, blue;
+                if(wide) {
+                    red = metadata.scale(buffer.getShort() & 0xffff);
+                    green = metadata.scale(buffer.getShort() & 0xffff);
+                    blue = metadata.scale(buffer.getShort() & 0xffff);
+                } else {
+                    red = metadata.scale(buffer.get() & 0xff);
+                    green = metadata.scale(buffer.get() & 0xff);
+                    blue = metadata.scale(buffer.get() & 0xff);
+                }
+
+                board.setColor(new Codel(i, j), PietColor.getColor(red << 16 | green << 8 | blue, colorPolicy));
+            }
+        }
+
+        return board;
     }
 
     /**
      * Using the {@link #path} to a PNG file proivded to this PietFileReader, converts 
-     * the file into a {@link Board}
+     * the file into a {@link Board}, whose pixels are read by a {@link PNGDecoder}
      * 
      * @return a Board representation of the PNG file
      * @throws PietFileNotReadException
@@ -124,21 +245,7 @@ public class PietFileReader {
 
         try {
             BufferedImage image = ImageIO.read(new FileInputStream(path.toFile()));
-            Board board = new Board(image.getHeight(), image.getWidth());
-
-            for(int i = 0; i < image.getHeight(); i++) {
-                for(int j = 0; j < image.getWidth(); j++) {
-                    Integer color = image.getRGB(j, i);
-                    Integer red = (color & 0x00ff0000) >> 16;
-                    Integer green = (color & 0x0000ff00) >> 8;
-                    Integer blue = color & 0x000000ff;
-
-                    PietColor pietColor = PietColor.getColorFromValues(red, green, blue);
-                    Codel coordinate = new Codel(i, j);
-                    board.setColor(coordinate, pietColor);
-                }
-            }
-            return board;
+            return new PNGDecoder(colorPolicy).decode(image);
         } catch(IOException e) {
             throw new PietFileNotReadException(e.getMessage());
         }
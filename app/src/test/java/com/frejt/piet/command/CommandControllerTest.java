@@ -7,7 +7,7 @@ import static org.mockito.Mockito.when;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
-import java.util.Stack;
+import java.util.Scanner;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +20,7 @@ import com.frejt.piet.director.DP;
 import com.frejt.piet.director.Director;
 import com.frejt.piet.utils.Block;
 import com.frejt.piet.utils.BlockSet;
+import com.frejt.piet.utils.PietStack;
 
 import org.mockito.Mock;
 import org.mockito.internal.util.reflection.Whitebox;
@@ -27,7 +28,7 @@ import org.mockito.internal.util.reflection.Whitebox;
 public class CommandControllerTest {
 
     @Mock
-    private static Stack<Integer> stack;
+    private static PietStack stack;
 
     @Mock
     private static CommandRunner runner;
@@ -46,7 +47,7 @@ public class CommandControllerTest {
     @BeforeEach
     void init() {
 
-        stack = new Stack<>();
+        stack = new PietStack();
 
         older = mock(Block.class);
         newer = mock(Block.class);
@@ -59,7 +60,7 @@ public class CommandControllerTest {
         program = mock(Program.class);
         when(program.getStack()).thenReturn(stack);
 
-        runner = new CommandRunner(uuid, stack, blocks);
+        runner = new CommandRunner(Programmer.getProgram(uuid), blocks);
 
     }
 
@@ -70,15 +71,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Nop_DoesNothing() {
 
-        Stack<Integer> stack = new Stack<>();
+        PietStack stack = new PietStack();
 
         Whitebox.setInternalState(runner, "command", Command.NOP);
 
-        @SuppressWarnings("unchecked")
-        Stack<Integer> expected = (Stack<Integer>) stack.clone();
+        PietStack expected = new PietStack();
+        for(long value : stack.toArray()) {
+            expected.push(value);
+        }
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -95,11 +98,11 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.PUSH);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(5);
+        PietStack expected = new PietStack();
+        expected.push(5);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -112,20 +115,19 @@ public class CommandControllerTest {
     @Test
     void runCommand_Pop_PopsTopValue() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
-        stack.add(2);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
+        stack.push(2);
 
         Whitebox.setInternalState(runner, "command", Command.POP);
-        Whitebox.setInternalState(runner, "uuid", uuid);
 
         when(program.getStack()).thenReturn(stack);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -140,10 +142,10 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.POP);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -157,16 +159,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Add_StackHasOnlyOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.ADD);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -180,17 +182,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Add_AddsTwoValues() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
-        stack.add(2);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
+        stack.push(2);
 
         Whitebox.setInternalState(runner, "command", Command.ADD);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(3);
+        PietStack expected = new PietStack();
+        expected.push(3);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -204,16 +206,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Subtract_StackOnlyHasOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.SUB);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -227,17 +229,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Subtract_SubtractsValue() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
-        stack.add(2);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
+        stack.push(2);
 
         Whitebox.setInternalState(runner, "command", Command.SUB);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(-1);
+        PietStack expected = new PietStack();
+        expected.push(-1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -251,16 +253,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Multiply_StackOnlyHasOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.MULT);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -275,17 +277,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Multiply_MultipliesValue() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(2);
-        stack.add(2);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(2);
+        stack.push(2);
 
         Whitebox.setInternalState(runner, "command", Command.MULT);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(4);
+        PietStack expected = new PietStack();
+        expected.push(4);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -299,16 +301,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Divide_StackOnlyHasOneValue_DoesNothing() {
         
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.DIV);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -322,17 +324,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Divide_DividesValues() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(4);
-        stack.add(2);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(4);
+        stack.push(2);
 
         Whitebox.setInternalState(runner, "command", Command.DIV);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(2);
+        PietStack expected = new PietStack();
+        expected.push(2);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -346,16 +348,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Modulus_StackOnlyHasOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(1);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.MOD);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -369,17 +371,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Modulus_ModsValues() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(7);
-        stack.add(3);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(7);
+        stack.push(3);
 
         Whitebox.setInternalState(runner, "command", Command.MOD);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -395,10 +397,10 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.NOT);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -411,16 +413,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Not_ZeroValue_ReplacesWithOne() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(0);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(0);
 
         Whitebox.setInternalState(runner, "command", Command.NOT);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -433,16 +435,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Not_NonZeroValue_ReplacesWithOne() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(5);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(5);
 
         Whitebox.setInternalState(runner, "command", Command.NOT);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(0);
+        PietStack expected = new PietStack();
+        expected.push(0);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -456,16 +458,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Greater_StackOnlyHasOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(5);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(5);
 
         Whitebox.setInternalState(runner, "command", Command.GREATER);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(5);
+        PietStack expected = new PietStack();
+        expected.push(5);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
         
@@ -479,17 +481,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Greater_OlderIsGreater_OneIsPushed() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(10);
-        stack.add(5);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(10);
+        stack.push(5);
 
         Whitebox.setInternalState(runner, "command", Command.GREATER);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(1);
+        PietStack expected = new PietStack();
+        expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -503,17 +505,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_Greater_NewerIsGreater_OneIsPushed() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(5);
-        stack.add(10);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(5);
+        stack.push(10);
 
         Whitebox.setInternalState(runner, "command", Command.GREATER);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(0);
+        PietStack expected = new PietStack();
+        expected.push(0);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -531,15 +533,15 @@ public class CommandControllerTest {
 
         Director director = program.getDirector();
 
-        Stack<Integer> stack = program.getStack();
-        stack.add(3);
+        PietStack stack = program.getStack();
+        stack.push(3);
 
         Whitebox.setInternalState(runner, "command", Command.POINTER);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
         assertEquals(director.getDP(), DP.UP);
@@ -558,16 +560,16 @@ public class CommandControllerTest {
 
         Director director = program.getDirector();
 
-        Stack<Integer> stack = program.getStack();
-        stack.add(-3);
+        PietStack stack = program.getStack();
+        stack.push(-3);
 
         Whitebox.setInternalState(runner, "command", Command.POINTER);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
 
-        Stack<Integer> actual = program.getStack();
+        PietStack actual = program.getStack();
 
         assertEquals(expected, actual);
         assertEquals(director.getDP(), DP.DOWN);
@@ -586,15 +588,15 @@ public class CommandControllerTest {
 
         Director director = program.getDirector();
 
-        Stack<Integer> stack = program.getStack();
-        stack.add(1);
+        PietStack stack = program.getStack();
+        stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.SWITCH);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
         assertEquals(director.getCC(), CC.RIGHT);
@@ -613,15 +615,15 @@ public class CommandControllerTest {
 
         Director director = program.getDirector();
 
-        Stack<Integer> stack = new Stack<>();
-        stack.add(-2);
+        PietStack stack = new PietStack();
+        stack.push(-2);
 
         Whitebox.setInternalState(runner, "command", Command.SWITCH);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
         assertEquals(director.getCC(), CC.LEFT);
@@ -638,10 +640,10 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.DUP);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -655,17 +657,17 @@ public class CommandControllerTest {
     @Test
     void runCommand_duplicate_ValueDuplicated() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
-        stack.add(5);
+        PietStack stack = Programmer.getProgram(uuid).getStack();
+        stack.push(5);
 
         Whitebox.setInternalState(runner, "command", Command.DUP);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(5);
-        expected.add(5);
+        PietStack expected = new PietStack();
+        expected.push(5);
+        expected.push(5);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -679,16 +681,16 @@ public class CommandControllerTest {
     @Test
     void runCommand_Roll_StackOnlyHasOneValue_DoesNothing() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
+        PietStack stack = Programmer.getProgram(uuid).getStack();
         stack.push(1);
 
         Whitebox.setInternalState(runner, "command", Command.ROLL);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
         expected.push(1);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -703,7 +705,7 @@ public class CommandControllerTest {
     @Test
     void runCommand_Roll_ChangesOrder() {
 
-        Stack<Integer> stack = Programmer.getProgram(uuid).getStack();
+        PietStack stack = Programmer.getProgram(uuid).getStack();
         stack.push(1);
         stack.push(2);
         stack.push(3);
@@ -712,13 +714,13 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.ROLL);
 
-        Stack<Integer> expected = new Stack<>();
+        PietStack expected = new PietStack();
         expected.push(3);
         expected.push(1);
         expected.push(2);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -739,11 +741,11 @@ public class CommandControllerTest {
         
         Whitebox.setInternalState(runner, "command", Command.IN_NUM);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(65);
+        PietStack expected = new PietStack();
+        expected.push(65);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
 
         assertEquals(expected, actual);
 
@@ -763,11 +765,41 @@ public class CommandControllerTest {
 
         Whitebox.setInternalState(runner, "command", Command.IN_CHAR);
 
-        Stack<Integer> expected = new Stack<>();
-        expected.add(65);
+        PietStack expected = new PietStack();
+        expected.push(65);
 
         runner.runCommand();
-        Stack<Integer> actual = Programmer.getProgram(uuid).getStack();
+        PietStack actual = Programmer.getProgram(uuid).getStack();
+
+        assertEquals(expected, actual);
+
+    }
+
+    /**
+     * Asserts that, when a number is read from input which doesn't hold a
+     * number, the command is ignored.
+     */
+    @Test
+    void inNum_NotANumber_CommandIgnored() {
+
+        PietStack expected = new PietStack();
+
+        PietStack actual = CommandController.inNum(program, new Scanner("A"));
+
+        assertEquals(expected, actual);
+
+    }
+
+    /**
+     * Asserts that, when a character is read from empty input, the command is
+     * ignored.
+     */
+    @Test
+    void inChar_NoInput_CommandIgnored() {
+
+        PietStack expected = new PietStack();
+
+        PietStack actual = CommandController.inChar(program, new Scanner(""));
 
         assertEquals(expected, actual);
 
@@ -829,5 +861,23 @@ public class CommandControllerTest {
         assertEquals(expected, actual);
 
     }
+
+    /**
+     * Asserts that, when a dividend far below zero is "modded", the result is
+     * calculated straight away rather than by stepping up towards zero.
+     */
+    @Test
+    void correctMod_MinimumDividend_CorrectlyModded() {
+
+        Integer dividend = Integer.MIN_VALUE;
+        Integer divisor = 3;
+
+        Integer expected = 1;
+
+        Integer actual = CommandController.correctMod(dividend, divisor);
+
+        assertEquals(expected, actual);
+
+    }
     
 }
\ No newline at end of file
@@ -6,7 +6,6 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeAll;
@@ -18,6 +17,7 @@ import com.frejt.piet.director.Director;
 import com.frejt.piet.exception.PietCommandNotFoundException;
 import com.frejt.piet.utils.Block;
 import com.frejt.piet.utils.BlockSet;
+import com.frejt.piet.utils.PietStack;
 import com.frejt.piet.utils.color.PietColor;
 
 /**
@@ -29,7 +29,7 @@ public class CommandRunnerTest {
     private static Director director;
 
     @Mock
-    private static Stack<Integer> stack;
+    private static PietStack stack;
 
     @Mock
     private static List<Command> commandList;
@@ -48,7 +48,7 @@ public class CommandRunnerTest {
 
         director = mock(Director.class);
 
-        stack = new Stack<>();
+        stack = new PietStack();
         commandList = new ArrayList<>();
 
         older = mock(Block.class);
@@ -59,7 +59,7 @@ public class CommandRunnerTest {
         UUID uuid = UUID.randomUUID();
         Programmer.newProgram(uuid);
 
-        runner = new CommandRunner(uuid, stack, blocks);
+        runner = new CommandRunner(Programmer.getProgram(uuid), blocks);
 
     }
     
@@ -0,0 +1,56 @@
+package com.frejt.piet.command;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.controller.Program;
+import com.frejt.piet.exception.PietCommandNotFoundException;
+import com.frejt.piet.utils.color.PietColor;
+import com.frejt.piet.utils.color.PietHue;
+
+/**
+ * {@link Command}
+ */
+public class CommandTest {
+
+    /**
+     * Asserts that, for every pair of colors on the Hue and Lightness Cycles, the
+     * precomputed transition gives the Command matching the steps between them.
+     */
+    @Test
+    void getCommand_EveryColorPair_MatchesCycleSteps() throws PietCommandNotFoundException {
+
+        for(PietColor older : PietColor.values()) {
+            for(PietColor newer : PietColor.values()) {
+                if(older.getHue() == PietHue.BLACK || older.getHue() == PietHue.WHITE
+                        || newer.getHue() == PietHue.BLACK || newer.getHue() == PietHue.WHITE) {
+                    continue;
+                }
+
+                int hue = Math.floorMod(newer.getHue().getValue() - older.getHue().getValue(), 6);
+                int light = Math.floorMod(newer.getLight().getValue() - older.getLight().getValue(), 3);
+
+                assertEquals(Command.getCommand(hue, light), Command.getCommand(older, newer));
+            }
+        }
+
+    }
+
+    /**
+     * Asserts that, when {@link Command#PUSH} is ran against a program, the size of
+     * the Block being exited is pushed onto the program's stack.
+     */
+    @Test
+    void calculate_Push_PushesSize() {
+
+        Program program = new Program();
+
+        Command.PUSH.calculate(program, 7);
+
+        assertArrayEquals(new long[] {7}, program.getStack().toArray());
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.frejt.piet.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.controller.BoardRunner;
+import com.frejt.piet.controller.Programmer;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.reader.PietFileReader;
+
+public class AotCompilerTest {
+
+    private static final Path EXAMPLES = Paths.get(System.getProperty("user.dir"), "examples");
+
+    /**
+     * Asserts that, when a program is compiled into a JAR, the JAR names the
+     * generated class as its main class, and the class prints the same output as
+     * the {@link BoardRunner}.
+     */
+    @Test
+    void compile_Program_WritesRunnableJar() throws Exception {
+
+        Board board = new PietFileReader(EXAMPLES.resolve(Paths.get("ppm", "nfib.ppm"))).convertFileToBoard();
+        BlockMap blockMap = new BlockMap(board);
+
+        UUID expectedUUID = UUID.randomUUID();
+        new BoardRunner(blockMap, expectedUUID).runBoard();
+
+        Path jar = Files.createTempFile("nfib", ".jar");
+        AotCompiler.compile(new TransitionTable(blockMap), jar);
+
+        try(JarFile jarFile = new JarFile(jar.toFile())) {
+            String mainClass = jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+            assertEquals(JavaSourceGenerator.PACKAGE + "." + AotCompiler.CLASS_NAME, mainClass);
+        }
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, null)) {
+            Class<?> program = loader.loadClass(JavaSourceGenerator.PACKAGE + "." + AotCompiler.CLASS_NAME);
+            Runnable machine = (Runnable) program.getConstructor().newInstance();
+            machine.run();
+
+            Object out = program.getField("out").get(machine);
+            assertEquals(Programmer.getProgram(expectedUUID).getOutput(), out.toString());
+        }
+
+        Files.delete(jar);
+    }
+
+    /**
+     * Asserts that, when a program is compiled with a bounded stack, the
+     * generated machine starts with that bound.
+     */
+    @Test
+    void compile_BoundedStack_SetsMaxDepth() throws Exception {
+
+        Board board = new PietFileReader(EXAMPLES.resolve(Paths.get("ppm", "hi.ppm"))).convertFileToBoard();
+
+        Path jar = Files.createTempFile("hi", ".jar");
+        AotCompiler.compile(new TransitionTable(new BlockMap(board)), jar, 8);
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, null)) {
+            Class<?> program = loader.loadClass(JavaSourceGenerator.PACKAGE + "." + AotCompiler.CLASS_NAME);
+            Object machine = program.getConstructor().newInstance();
+
+            assertEquals(8, program.getField("maxDepth").get(machine));
+        }
+
+        Files.delete(jar);
+    }
+
+    /**
+     * Asserts that, when a compiled JAR which reads numbers is ran with nothing on
+     * stdin, it ignores the reads and prints the same output as the
+     * {@link BoardRunner}, rather than ending with an exception.
+     */
+    @Test
+    void compile_EmptyInput_JarIgnoresReads() throws Exception {
+
+        Board board = new PietFileReader(EXAMPLES.resolve(Paths.get("png", "adder.png"))).convertFileToBoard();
+        BlockMap blockMap = new BlockMap(board);
+
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        UUID expectedUUID = UUID.randomUUID();
+        try {
+            new BoardRunner(blockMap, expectedUUID).runBoard();
+        } finally {
+            System.setIn(stdin);
+        }
+
+        Path jar = Files.createTempFile("adder", ".jar");
+        AotCompiler.compile(new TransitionTable(blockMap), jar);
+
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-jar", jar.toString()).start();
+        process.getOutputStream().close();
+
+        String out = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(0, process.waitFor());
+        assertEquals(Programmer.getProgram(expectedUUID).getOutput(), out);
+
+        Files.delete(jar);
+    }
+
+}
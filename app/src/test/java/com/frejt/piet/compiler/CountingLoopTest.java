@@ -0,0 +1,148 @@
+package com.frejt.piet.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.controller.IrRunner;
+import com.frejt.piet.controller.Programmer;
+import com.frejt.piet.director.CC;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.utils.PietStack;
+
+public class CountingLoopTest {
+
+    private static final int RIGHT = Director.getDirection(DP.RIGHT, CC.LEFT);
+
+    /**
+     * Asserts that, when a loop adds a count to a total while counting the count
+     * down to zero, the loop is ran all at once, leaving the total of the series
+     * and a count of zero.
+     */
+    @Test
+    void run_SumLoop_LeavesSeriesTotal() {
+
+        CountingLoop loop = CountingLoop.find(sumLoop(new IrBlock(1)));
+        assertNotNull(loop);
+
+        PietStack stack = new PietStack();
+        stack.push(0);
+        stack.push(60_000);
+
+        assertTrue(loop.run(stack));
+        assertArrayEquals(new long[] { 1_800_030_000L, 0 }, stack.toArray());
+
+    }
+
+    /**
+     * Asserts that, when the total of the series wouldn't fit in 32 bits, the loop
+     * isn't ran all at once and the stack is left unchanged.
+     */
+    @Test
+    void run_TotalTooBig_LeavesStackUnchanged() {
+
+        CountingLoop loop = CountingLoop.find(sumLoop(new IrBlock(1)));
+        assertNotNull(loop);
+
+        PietStack stack = new PietStack();
+        stack.push(0);
+        stack.push(100_000);
+
+        assertFalse(loop.run(stack));
+        assertArrayEquals(new long[] { 0, 100_000 }, stack.toArray());
+
+    }
+
+    /**
+     * Asserts that, when a loop's body does anything but affine arithmetic, such
+     * as dividing, it isn't a counting loop.
+     */
+    @Test
+    void find_DividingLoop_ReturnsNull() {
+
+        IrBlock latch = new IrBlock(0);
+        latch.setOps(
+            new Command[] { Command.PUSH, Command.DIV, Command.DUP, Command.NOT },
+            new long[] { 2, 0, 0, 0 });
+        latch.branch(Command.POINTER, RIGHT, successors(latch, new IrBlock(1)));
+
+        assertNull(CountingLoop.find(latch));
+
+    }
+
+    /**
+     * Asserts that, when the {@link IrRunner} comes into a counting loop, it
+     * prints the same output as when the loop is ran one time around at a time.
+     */
+    @Test
+    void runBoard_SumLoop_MatchesLoopRanOneTimeAroundAtATime() {
+
+        UUID expectedUUID = UUID.randomUUID();
+        new IrRunner(sumProgram(), expectedUUID).runBoard();
+
+        IrProgram ir = sumProgram();
+        ir.optimize();
+        assertNotNull(ir.getEntry().getNext().getLoop());
+
+        UUID actualUUID = UUID.randomUUID();
+        new IrRunner(ir, actualUUID).runBoard();
+
+        assertEquals("500500", Programmer.getProgram(actualUUID).getOutput());
+        assertEquals(Programmer.getProgram(expectedUUID).getOutput(), Programmer.getProgram(actualUUID).getOutput());
+
+    }
+
+    /**
+     * Pushes a total of 0 and a count of 1000, sums the count down to zero, then
+     * prints the total.
+     */
+    private static IrProgram sumProgram() {
+
+        IrBlock exit = new IrBlock(2);
+        exit.setOps(new Command[] { Command.POP, Command.OUT_NUM }, new long[] { 0, 0 });
+
+        IrBlock entry = new IrBlock(0);
+        entry.setOps(new Command[] { Command.PUSH, Command.PUSH }, new long[] { 0, 1000 });
+        entry.jump(sumLoop(exit));
+
+        return new IrProgram(entry);
+    }
+
+    /**
+     * A single block loop, which from a total and a count adds the count to the
+     * total, and takes one from the count, until the count is zero.
+     */
+    private static IrBlock sumLoop(IrBlock exit) {
+
+        IrBlock latch = new IrBlock(1);
+        latch.setOps(
+            new Command[] {
+                Command.DUP, Command.PUSH, Command.PUSH, Command.ROLL, Command.ADD,
+                Command.PUSH, Command.PUSH, Command.ROLL,
+                Command.PUSH, Command.SUB, Command.DUP, Command.NOT
+            },
+            new long[] { 0, 3, 1, 0, 0, 2, 1, 0, 1, 0, 0, 0 });
+        latch.branch(Command.POINTER, RIGHT, successors(latch, exit));
+
+        return latch;
+    }
+
+    private static IrBlock[] successors(IrBlock header, IrBlock exit) {
+        IrBlock[] successors = new IrBlock[Director.DIRECTIONS];
+        successors[RIGHT] = header;
+        for(int turn = 1; turn < 4; turn++) {
+            successors[Director.rotateDP(RIGHT, turn)] = exit;
+        }
+        return successors;
+    }
+
+}
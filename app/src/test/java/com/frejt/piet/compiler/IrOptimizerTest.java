@@ -0,0 +1,119 @@
+package com.frejt.piet.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.CC;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.director.Director;
+
+public class IrOptimizerTest {
+
+    /**
+     * Asserts that, when a block does arithmetic on pushed values only, the
+     * arithmetic is folded into a single push of the result.
+     */
+    @Test
+    void foldConstants_ArithmeticOnPushes_FoldsToSinglePush() {
+
+        IrBlock block = new IrBlock(0);
+        block.setOps(
+            new Command[] { Command.PUSH, Command.PUSH, Command.MULT, Command.PUSH, Command.ADD, Command.OUT_CHAR },
+            new long[] { 8, 9, 0, 10, 0, 0 });
+
+        IrOptimizer.foldConstants(block);
+
+        assertArrayEquals(new Command[] { Command.PUSH, Command.OUT_CHAR }, block.getOps());
+        assertEquals(82, block.getOperands()[0]);
+
+    }
+
+    /**
+     * Asserts that, when a pushed value is popped straight back off, the push and
+     * pop are both removed, while a division by zero is left to be ignored when
+     * ran.
+     */
+    @Test
+    void foldConstants_PushThenPop_RemovesBoth() {
+
+        IrBlock block = new IrBlock(0);
+        block.setOps(
+            new Command[] { Command.PUSH, Command.POP, Command.PUSH, Command.PUSH, Command.NOT, Command.DIV },
+            new long[] { 5, 0, 3, 7, 0, 0 });
+
+        IrOptimizer.foldConstants(block);
+
+        assertArrayEquals(new Command[] { Command.PUSH, Command.PUSH, Command.DIV }, block.getOps());
+        assertArrayEquals(new long[] { 3, 0, 0 }, block.getOperands());
+
+    }
+
+    /**
+     * Asserts that, when a pointer pops a value pushed in the same block, the
+     * branch always goes the same way and becomes a jump.
+     */
+    @Test
+    void foldConstants_PointerOnPushedValue_BecomesJump() {
+
+        int right = Director.getDirection(DP.RIGHT, CC.LEFT);
+        int down = Director.getDirection(DP.DOWN, CC.LEFT);
+
+        IrBlock[] successors = new IrBlock[Director.DIRECTIONS];
+        for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+            successors[direction] = new IrBlock(direction + 1);
+        }
+
+        IrBlock block = new IrBlock(0);
+        block.setOps(new Command[] { Command.PUSH }, new long[] { 5 });
+        block.branch(Command.POINTER, right, successors);
+
+        IrOptimizer.foldConstants(block);
+
+        assertEquals(IrBlock.Exit.JUMP, block.getExit());
+        assertEquals(successors[down], block.getNext());
+        assertEquals(0, block.getOps().length);
+
+    }
+
+    /**
+     * Asserts that, when the result of a comparison is popped straight off, the
+     * comparison and the duplicates it compared are removed, leaving the pop of
+     * the value they were duplicated from.
+     */
+    @Test
+    void eliminateDeadCode_PoppedComparison_RemovesComparison() {
+
+        IrBlock block = new IrBlock(0);
+        block.setOps(
+            new Command[] { Command.IN_NUM, Command.DUP, Command.GREATER, Command.NOT, Command.POP, Command.OUT_NUM },
+            new long[] { 0, 0, 0, 0, 0, 0 });
+        block.jump(new IrBlock(1));
+
+        IrOptimizer.eliminateDeadCode(block);
+
+        assertArrayEquals(new Command[] { Command.IN_NUM, Command.POP, Command.OUT_NUM }, block.getOps());
+
+    }
+
+    /**
+     * Asserts that, when a block halts, the operations after its last output are
+     * removed, as nothing can read the stack they leave.
+     */
+    @Test
+    void eliminateDeadCode_StackWorkBeforeHalt_Removed() {
+
+        IrBlock block = new IrBlock(0);
+        block.setOps(
+            new Command[] { Command.PUSH, Command.OUT_CHAR, Command.PUSH, Command.DUP, Command.MULT, Command.ROLL },
+            new long[] { 72, 0, 3, 0, 0, 0 });
+
+        IrOptimizer.eliminateDeadCode(block);
+
+        assertArrayEquals(new Command[] { Command.PUSH, Command.OUT_CHAR }, block.getOps());
+
+    }
+
+}
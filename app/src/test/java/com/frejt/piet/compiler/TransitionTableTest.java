@@ -0,0 +1,219 @@
+package com.frejt.piet.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.director.CC;
+import com.frejt.piet.director.DP;
+import com.frejt.piet.director.Director;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.color.PietColor;
+
+public class TransitionTableTest {
+
+    /**
+     * Asserts that, when a Block is next to another colored Block in the direction
+     * of the DP, the transition moves into that Block and runs the Command for
+     * the change in color.
+     * 
+     * Example board:
+     * LR R
+     */
+    @Test
+    void getTarget_ColorToColor_RunsCommand() {
+
+        Board board = new Board(1, 2);
+        board.setColor(new Codel(0, 0), PietColor.LIGHT_RED);
+        board.setColor(new Codel(0, 1), PietColor.RED);
+
+        BlockMap blockMap = new BlockMap(board);
+        TransitionTable table = new TransitionTable(blockMap);
+
+        int direction = Director.getDirection(DP.RIGHT, CC.LEFT);
+        int state = TransitionTable.getState(blockMap.getBlockId(new Codel(0, 0)), direction);
+
+        assertEquals(blockMap.getBlockId(new Codel(0, 1)), table.getTarget(state));
+        assertEquals(Command.PUSH, table.getCommand(state));
+        assertEquals(direction, table.getDirection(state));
+
+    }
+
+    /**
+     * Asserts that, when a Block is next to a white Block, the transition slides
+     * through the white to the next colored Block without running a Command.
+     * 
+     * Example board:
+     * R _ _ B
+     */
+    @Test
+    void getTarget_WhiteBetween_SlidesWithoutCommand() {
+
+        Board board = new Board(1, 4);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.WHITE);
+        board.setColor(new Codel(0, 2), PietColor.WHITE);
+        board.setColor(new Codel(0, 3), PietColor.BLUE);
+
+        BlockMap blockMap = new BlockMap(board);
+        TransitionTable table = new TransitionTable(blockMap);
+
+        int direction = Director.getDirection(DP.RIGHT, CC.LEFT);
+        int state = TransitionTable.getState(blockMap.getBlockId(new Codel(0, 0)), direction);
+
+        assertEquals(blockMap.getBlockId(new Codel(0, 3)), table.getTarget(state));
+        assertEquals(null, table.getCommand(state));
+
+    }
+
+    /**
+     * Asserts that, when the way forward is blocked, the retries toggling the CC
+     * and rotating the DP are resolved into the transition, which leaves the
+     * Director facing the direction that worked.
+     * 
+     * Example board:
+     * R K
+     * B K
+     */
+    @Test
+    void getTarget_Blocked_ResolvesRetries() {
+
+        Board board = new Board(2, 2);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.BLACK);
+        board.setColor(new Codel(1, 0), PietColor.BLUE);
+        board.setColor(new Codel(1, 1), PietColor.BLACK);
+
+        BlockMap blockMap = new BlockMap(board);
+        TransitionTable table = new TransitionTable(blockMap);
+
+        int state = TransitionTable.getState(blockMap.getBlockId(new Codel(0, 0)), Director.getDirection(DP.RIGHT, CC.LEFT));
+
+        assertEquals(blockMap.getBlockId(new Codel(1, 0)), table.getTarget(state));
+        assertEquals(Director.getDirection(DP.DOWN, CC.RIGHT), table.getDirection(state));
+
+    }
+
+    /**
+     * Asserts that, when a Block has no way out in any direction, every transition
+     * out of it ends the program.
+     */
+    @Test
+    void getTarget_NoWayOut_Terminal() {
+
+        Board board = new Board(1, 1);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+
+        TransitionTable table = new TransitionTable(new BlockMap(board));
+
+        for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+            assertEquals(TransitionTable.TERMINAL, table.getTarget(TransitionTable.getState(0, direction)));
+        }
+
+    }
+
+    /**
+     * Asserts that, when Codels are edited, including one partway along a slide
+     * through white, updating the table leaves every transition the same as in a
+     * table built from scratch.
+     *
+     * Example board, with the white Codel at (0, 2) edited to green and the blue
+     * Codel at (1, 3) edited to black:
+     * R _ _ _ B
+     * Y _ K B B
+     */
+    @Test
+    void update_CodelsEdited_MatchesFreshTable() {
+
+        Board board = new Board(2, 5);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.WHITE);
+        board.setColor(new Codel(0, 2), PietColor.WHITE);
+        board.setColor(new Codel(0, 3), PietColor.WHITE);
+        board.setColor(new Codel(0, 4), PietColor.BLUE);
+        board.setColor(new Codel(1, 0), PietColor.YELLOW);
+        board.setColor(new Codel(1, 1), PietColor.WHITE);
+        board.setColor(new Codel(1, 2), PietColor.BLACK);
+        board.setColor(new Codel(1, 3), PietColor.BLUE);
+        board.setColor(new Codel(1, 4), PietColor.BLUE);
+
+        BlockMap blockMap = new BlockMap(board);
+        TransitionTable table = new TransitionTable(blockMap);
+
+        board.edit(new Codel(0, 2), PietColor.GREEN);
+        board.edit(new Codel(1, 3), PietColor.BLACK);
+        table.update(blockMap.update());
+
+        assertMatchesFresh(board, blockMap, table);
+
+    }
+
+    /**
+     * Asserts that, after many random edits, mostly to white and black, the
+     * updated table still matches a table built from scratch, and that the ids
+     * of removed Blocks are reused rather than the table growing with each edit.
+     */
+    @Test
+    void update_ManyRandomEdits_MatchesFreshTable() {
+
+        PietColor[] palette = new PietColor[] { PietColor.WHITE, PietColor.WHITE, PietColor.BLACK, PietColor.RED, PietColor.LIGHT_BLUE, PietColor.GREEN };
+        Random random = new Random(7);
+
+        Board board = new Board(12, 15);
+        for(int row = 0; row < 12; row++) {
+            for(int col = 0; col < 15; col++) {
+                board.setColor(new Codel(row, col), palette[random.nextInt(palette.length)]);
+            }
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+        TransitionTable table = new TransitionTable(blockMap);
+        int states = table.getStateCount();
+
+        for(int round = 0; round < 300; round++) {
+            for(int edit = random.nextInt(3); edit >= 0; edit--) {
+                board.edit(new Codel(random.nextInt(12), random.nextInt(15)), palette[random.nextInt(palette.length)]);
+            }
+            table.update(blockMap.update());
+            assertMatchesFresh(board, blockMap, table);
+        }
+
+        assertTrue(table.getStateCount() < states * 2, "The table grew from " + states + " to " + table.getStateCount() + " states");
+
+    }
+
+    private static void assertMatchesFresh(Board board, BlockMap blockMap, TransitionTable table) {
+
+        BlockMap freshMap = new BlockMap(board);
+        TransitionTable fresh = new TransitionTable(freshMap);
+
+        for(int index = 0; index < board.getSizeRow() * board.getSizeCol(); index++) {
+            int block = blockMap.getBlockId(index);
+            int freshBlock = freshMap.getBlockId(index);
+            for(int direction = 0; direction < Director.DIRECTIONS; direction++) {
+                int state = TransitionTable.getState(block, direction);
+                int freshState = TransitionTable.getState(freshBlock, direction);
+
+                assertEquals(codelOf(freshMap, fresh.getTarget(freshState)), codelOf(blockMap, table.getTarget(state)));
+                assertEquals(fresh.getCommand(freshState), table.getCommand(state));
+                assertEquals(fresh.getDirection(freshState), table.getDirection(state));
+            }
+        }
+        assertEquals(codelOf(freshMap, fresh.getStartBlock()), codelOf(blockMap, table.getStartBlock()));
+    }
+
+    /**
+     * The two maps number their Blocks differently, so a Block is compared by one
+     * of its Codels.
+     */
+    private static int codelOf(BlockMap blockMap, int block) {
+        return block == TransitionTable.TERMINAL ? TransitionTable.TERMINAL : blockMap.getExit(block, BlockMap.TOP_LEFT);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.frejt.piet.controller;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.exception.PietExecutionException;
+
+public class BackgroundRunnerTest {
+
+    /**
+     * Asserts that, when the example programs are ran by the
+     * {@link BackgroundRunner}, they print the same output as when ran by the
+     * {@link BoardRunner}, whether or not they switched over to the table.
+     */
+    @Test
+    void runBoard_Examples_MatchesBoardRunner() throws PietExecutionException {
+
+        Examples.assertSameOutput((board, uuid) -> new BackgroundRunner(board, uuid).runBoard());
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+
+public class BatchRunnerTest {
+
+    /**
+     * Asserts that, when a program takes the same path for every input, every
+     * lane prints the same output without the lanes ever splitting apart.
+     */
+    @Test
+    void runBoard_NoInputNeeded_LanesNeverSplit() throws PietExecutionException {
+
+        BlockMap blockMap = new BlockMap(Examples.ppm("fancyhello.ppm"));
+
+        BatchRunner runner = new BatchRunner(new TransitionTable(blockMap), Collections.nCopies(8, ""));
+        runner.runBoard();
+
+        for(int lane = 0; lane < runner.getLaneCount(); lane++) {
+            assertEquals("Hello, world!\n", runner.getOutput(lane));
+        }
+        assertEquals(0, runner.getSplits());
+
+    }
+
+    /**
+     * Asserts that, when a program branches on its input, the lanes split apart
+     * and each prints the output for its own input.
+     */
+    @Test
+    void runBoard_BranchOnInput_EachLaneGetsItsOwnOutput() throws PietExecutionException {
+
+        BlockMap blockMap = new BlockMap(Examples.ppm("nprime.ppm"));
+
+        BatchRunner runner = new BatchRunner(new TransitionTable(blockMap), Arrays.asList("7", "8", "9", "13", "100", "97"));
+        runner.runBoard();
+
+        String[] expected = new String[] { "Y\n", "N\n", "N\n", "Y\n", "N\n", "Y\n" };
+        for(int lane = 0; lane < expected.length; lane++) {
+            assertEquals(expected[lane], runner.getOutput(lane));
+        }
+
+    }
+
+}
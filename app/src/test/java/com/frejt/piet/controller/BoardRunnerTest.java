@@ -2,105 +2,21 @@ package com.frejt.piet.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 
 import com.frejt.piet.entity.Board;
 import com.frejt.piet.entity.Codel;
-import com.frejt.piet.utils.Block;
+import com.frejt.piet.exception.PietExecutionException;
 import com.frejt.piet.utils.color.PietColor;
+import com.frejt.piet.utils.reader.PietFileReader;
 
 public class BoardRunnerTest {
 
-    /**
-     * Asserts that, when a Board is filled with Codels, all of the same color,
-     * then the size of the Codel is the same size of the board
-     */
-    @Test
-    void findSizeCodel_BoardAllOneColor_ReturnsSizeOfBoard() {
-
-        Board board = new Board(4, 4);
-
-        for(int i = 0; i < board.getSizeRow(); i++) {
-            for(int j = 0; j < board.getSizeCol(); j++) {
-                Codel tmpCodel = new Codel(i, j);
-                board.setColor(tmpCodel, PietColor.RED);
-            }
-        }
-
-        BoardRunner runner = new BoardRunner(board, UUID.randomUUID());
-        Integer actual = runner.findSizeCodel(new Block(board, new Codel(0, 0)), new Codel(0, 0));
-
-        Integer expected = board.getSizeRow() * board.getSizeCol();
-        
-        assertEquals(expected, actual);
-
-    }
-
-    /**
-     * Asserts that, when a Board is filled with Codels, but not all of the same color,
-     * then only the size of the Codel in the top left corner of the Board (0, 0) 
-     * is returned
-     */
-    @Test
-    void findSizeCodel_BoardMixedColors_ReturnsSizeOfSingleCodel() {
-
-        Board board = new Board(4, 4);
-
-        /**
-         * Creates a board that looks like the following, where the first row
-         * and first column are filled with the LIGHT_RED color:
-         * 
-         * #ffc0c0 #ffc0c0 #ffc0c0 #ffc0c0 
-         * #ffc0c0 #ff0000 #c00000 #ffffc0 
-         * #ffc0c0 #c00000 #ffff00 #c0ffc0 
-         * #ffc0c0 #ffffc0 #c0ffc0 #c0ffff 
-         */
-        for(int i = 0; i < board.getSizeRow(); i++) {
-            for(int j = 0; j < board.getSizeCol(); j++) {
-                Codel tmpCodel = new Codel(i, j);
-                board.setColor(tmpCodel, PietColor.values()[i*j]);
-            }
-        }
-
-        BoardRunner runner = new BoardRunner(board, UUID.randomUUID());
-        Integer actual = runner.findSizeCodel(new Block(board, new Codel(0, 0)), new Codel(0, 0));
-
-        Integer expected = board.getSizeRow() + board.getSizeCol()-1;
-
-        assertEquals(expected, actual);
-
-    }
-
-    /**
-     * Asserts that, when a Board is filled with Codels, all of a different color,
-     * then only the size of the Codel in the top left corner of the Board (0, 0)
-     * is returned
-     */
-    @Test
-    void findSizeCodel_AllUniqueColors_ReturnsSizeOfSingleCodel() {
-
-        Board board = new Board(4, 4);
-
-        /**
-         * Creates a board where each Codel is a different color
-         */
-        for(int i = 0; i < board.getSizeRow(); i++) {
-            for(int j = 0; j < board.getSizeCol(); j++) {
-                Codel tmpCodel = new Codel(i, j);
-                board.setColor(tmpCodel, PietColor.values()[i*board.getSizeRow()+j]);
-            }
-        }
-
-        BoardRunner runner = new BoardRunner(board, UUID.randomUUID());
-        Integer actual = runner.findSizeCodel(new Block(board, new Codel(0, 0)), new Codel(0, 0));
-
-        Integer expected = 1;
-
-        assertEquals(expected, actual);
-
-    }
+    private static final Path EXAMPLES = Paths.get(System.getProperty("user.dir"), "examples");
 
     /**
      * Asserts that, when execution hits a {@link PietColor#WHITE} {@link Codel} 
@@ -276,5 +192,59 @@ public class BoardRunnerTest {
 
         assertEquals(true, Programmer.getProgram(uuid).getEnd());
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Asserts that, when cycles are being detected and a program pushes and pops
+     * between two blocks forever, the program is stopped as never halting.
+     *
+     * Example board:
+     * R r
+     *
+     * R: Red
+     * r: Dark Red
+     */
+    @Test
+    void runBoard_PushPopForever_EndsAsNonHalting() throws PietExecutionException {
+
+        Board board = new Board(1, 2);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.DARK_RED);
+
+        UUID uuid = UUID.randomUUID();
+        BoardRunner runner = new BoardRunner(board, uuid);
+        runner.setDetectCycles(true);
+        runner.runBoard();
+
+        assertEquals(true, Programmer.getProgram(uuid).getEnd());
+        assertEquals(ExecutionStatus.NON_HALTING, Programmer.getProgram(uuid).getStatus());
+    }
+
+    /**
+     * Asserts that, when cycles are being detected, programs which loop on their
+     * way to halting still run to the end and print the same output.
+     */
+    @Test
+    void runBoard_LoopingExamplesDetectingCycles_RunToTheEnd() throws PietExecutionException {
+
+        Path[] examples = new Path[] {
+            EXAMPLES.resolve(Paths.get("ppm", "loop.ppm")),
+            EXAMPLES.resolve(Paths.get("ppm", "nfib.ppm"))
+        };
+
+        for(Path example : examples) {
+            Board board = new PietFileReader(example).convertFileToBoard();
+
+            UUID expectedUUID = UUID.randomUUID();
+            new BoardRunner(board, expectedUUID).runBoard();
+
+            UUID actualUUID = UUID.randomUUID();
+            BoardRunner runner = new BoardRunner(board, actualUUID);
+            runner.setDetectCycles(true);
+            runner.runBoard();
+
+            assertEquals(ExecutionStatus.HALTED, Programmer.getProgram(actualUUID).getStatus());
+            assertEquals(Programmer.getProgram(expectedUUID).getOutput(), Programmer.getProgram(actualUUID).getOutput());
+        }
+    }
+
+}
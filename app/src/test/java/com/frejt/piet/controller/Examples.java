@@ -0,0 +1,121 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.reader.PietFileReader;
+
+/**
+ * The example programs every runner is checked against, and the check itself:
+ * running a program with the {@link BoardRunner}, running it again with the
+ * runner under test, and comparing the two.
+ */
+final class Examples {
+
+    static final Path EXAMPLES = Paths.get(System.getProperty("user.dir"), "examples");
+
+    /**
+     * The examples which run to the end without reading any input
+     */
+    static final Path[] PROGRAMS = new Path[] {
+        EXAMPLES.resolve(Paths.get("ppm", "hi.ppm")),
+        EXAMPLES.resolve(Paths.get("ppm", "loop.ppm")),
+        EXAMPLES.resolve(Paths.get("ppm", "nhello.ppm")),
+        EXAMPLES.resolve(Paths.get("ppm", "nfib.ppm")),
+        EXAMPLES.resolve(Paths.get("ppm", "fancyhello.ppm")),
+        EXAMPLES.resolve(Paths.get("png", "Piet_hello.png")),
+        EXAMPLES.resolve(Paths.get("png", "hw2-2.png"))
+    };
+
+    /**
+     * Runs a program with the runner under test.
+     */
+    interface Run {
+        void run(Board board, UUID uuid) throws PietExecutionException;
+    }
+
+    private Examples() {
+    }
+
+    /**
+     * @param name the name of an example in the <code>ppm</code> folder
+     */
+    static Board ppm(String name) throws PietExecutionException {
+        return new PietFileReader(EXAMPLES.resolve(Paths.get("ppm", name))).convertFileToBoard();
+    }
+
+    /**
+     * @param name the name of an example in the <code>png</code> folder
+     */
+    static Board png(String name) throws PietExecutionException {
+        return new PietFileReader(EXAMPLES.resolve(Paths.get("png", name))).convertFileToBoard();
+    }
+
+    /**
+     * Asserts that every example prints the same output when ran by the runner
+     * as when ran by the {@link BoardRunner}.
+     */
+    static void assertSameOutput(Run run) throws PietExecutionException {
+        for(Path example : PROGRAMS) {
+            assertSameOutput(new PietFileReader(example).convertFileToBoard(), "", run);
+        }
+    }
+
+    /**
+     * Asserts that every example prints the same output and runs the same
+     * commands when ran by the runner as when ran by the {@link BoardRunner}.
+     */
+    static void assertSameOutputAndCommands(Run run) throws PietExecutionException {
+        for(Path example : PROGRAMS) {
+            Board board = new PietFileReader(example).convertFileToBoard();
+
+            Program expected = run(board, "", (b, uuid) -> new BoardRunner(b, uuid).runBoard());
+            Program actual = run(board, "", run);
+
+            assertEquals(expected.getOutput(), actual.getOutput());
+            assertEquals(expected.getCommandList(), actual.getCommandList());
+        }
+    }
+
+    /**
+     * Asserts that the program prints the same output when ran by the runner as
+     * when ran by the {@link BoardRunner}, both reading the given input.
+     *
+     * @return the program ran by the runner
+     */
+    static Program assertSameOutput(Board board, String input, Run run) throws PietExecutionException {
+
+        Program expected = run(board, input, (b, uuid) -> new BoardRunner(b, uuid).runBoard());
+        Program actual = run(board, input, run);
+
+        assertEquals(expected.getOutput(), actual.getOutput());
+
+        return actual;
+    }
+
+    /**
+     * Runs the program with the given input waiting on STDIN.
+     */
+    private static Program run(Board board, String input, Run run) throws PietExecutionException {
+
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+
+        UUID uuid = UUID.randomUUID();
+        try {
+            run.run(board, uuid);
+        } finally {
+            System.setIn(stdin);
+        }
+
+        return Programmer.getProgram(uuid);
+    }
+
+}
@@ -47,4 +47,36 @@ class InterpreterUtilsTest {
 
     }
     
+    /**
+     * If the user passes in a JAR path after the program's path, the compiled
+     * program will be written to that path
+     */
+    @Test
+    void getCompileFile_JarAsParam_ReturnsJarAsPath() {
+
+        Path expectedPath = Paths.get("TEST_OUTPUT.jar");
+
+        String[] args = new String[] {InterpreterUtils.COMPILE_FLAG, "TEST_ARGS_PATH.ppm", "TEST_OUTPUT.jar"};
+
+        Path actualPath = InterpreterUtils.getCompileFile(Paths.get("TEST_ARGS_PATH.ppm"), args);
+
+        assertEquals(expectedPath, actualPath);
+    }
+
+    /**
+     * If the user does not pass in a JAR path, the compiled program will be
+     * written beside the program, with the program's name
+     */
+    @Test
+    void getCompileFile_NoJarParam_ReturnsProgramNameAsJar() {
+
+        Path expectedPath = Paths.get("examples", "TEST_ARGS_PATH.jar");
+
+        String[] args = new String[] {InterpreterUtils.COMPILE_FLAG, "examples/TEST_ARGS_PATH.ppm"};
+
+        Path actualPath = InterpreterUtils.getCompileFile(Paths.get("examples", "TEST_ARGS_PATH.ppm"), args);
+
+        assertEquals(expectedPath, actualPath);
+    }
+
 }
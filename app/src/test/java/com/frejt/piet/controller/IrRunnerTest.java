@@ -0,0 +1,34 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.compiler.IrProgram;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+
+public class IrRunnerTest {
+
+    /**
+     * Asserts that, when the example programs are ran from their optimized IR by
+     * the {@link IrRunner}, they print the same output as when ran by the
+     * {@link BoardRunner}, with no more operations than before optimizing.
+     */
+    @Test
+    void runBoard_Examples_MatchesBoardRunner() throws PietExecutionException {
+
+        Examples.assertSameOutput((board, uuid) -> {
+            IrProgram ir = new IrProgram(new TransitionTable(new BlockMap(board)));
+            int unoptimized = ir.getOperationCount();
+            ir.optimize();
+
+            new IrRunner(ir, uuid).runBoard();
+
+            assertTrue(ir.getOperationCount() <= unoptimized);
+        });
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.frejt.piet.controller;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+
+public class JitRunnerTest {
+
+    /**
+     * Asserts that, when the example programs are compiled into a JVM class and
+     * ran, they print the same output as when ran by the {@link BoardRunner}.
+     */
+    @Test
+    void runBoard_Examples_MatchesBoardRunner() throws PietExecutionException {
+
+        Examples.assertSameOutput((board, uuid) -> new JitRunner(new TransitionTable(new BlockMap(board)), uuid).runBoard());
+
+    }
+
+    /**
+     * Asserts that, when a compiled program reads a number from input which is
+     * empty or isn't a number, the read is ignored as it is by the
+     * {@link BoardRunner}, rather than ending the program.
+     */
+    @Test
+    void runBoard_UnreadableInput_MatchesBoardRunner() throws PietExecutionException {
+
+        for(String input : new String[] { "", "abc" }) {
+            Examples.assertSameOutput(Examples.png("adder.png"), input,
+                    (board, uuid) -> new JitRunner(new TransitionTable(new BlockMap(board)), uuid).runBoard());
+        }
+
+    }
+
+}
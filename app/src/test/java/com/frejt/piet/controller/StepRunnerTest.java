@@ -0,0 +1,68 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.color.PietColor;
+
+public class StepRunnerTest {
+
+    /**
+     * Asserts that, when the example programs are stepped through by the
+     * {@link StepRunner}, they print the same output and run the same commands as
+     * when ran by the {@link BoardRunner}.
+     */
+    @Test
+    void runBoard_Examples_MatchesBoardRunner() throws PietExecutionException {
+
+        Examples.assertSameOutputAndCommands((board, uuid) -> new StepRunner(new BlockMap(board), uuid).runBoard());
+
+    }
+
+    /**
+     * Asserts that, when a program which never ends is stepped through, the steps
+     * allocate nothing, and the program's history of commands stops growing once
+     * it's full.
+     */
+    @Test
+    void step_NeverEndingProgram_AllocatesNothingPerStep() {
+
+        // red pushes into dark red, which pops back into red, forever
+        Board board = new Board(1, 2);
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.DARK_RED);
+
+        UUID uuid = UUID.randomUUID();
+        StepRunner runner = new StepRunner(new BlockMap(board), uuid);
+        runner.start();
+
+        // enough steps to fill the history of commands
+        for(int i = 0; i < 200_000; i++) {
+            runner.step();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        int steps = 1_000_000;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for(int i = 0; i < steps; i++) {
+            assertTrue(runner.step());
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // a little leeway for the allocation counter itself
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes over " + steps + " steps");
+        assertEquals(Program.HISTORY_SIZE, Programmer.getProgram(uuid).getCommandList().size());
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.command.Command;
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.config.NumericTypes;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+import com.frejt.piet.utils.PietStack;
+
+public class SuspendableRunnerTest {
+
+    /**
+     * Asserts that, when a program reads a number, it's suspended at the read,
+     * and once resumed with the number on another thread it prints the same
+     * output as when ran straight through.
+     */
+    @Test
+    void resume_InputOnAnotherThread_FinishesProgram() throws Exception {
+
+        SuspendableRunner runner = new SuspendableRunner(table("nprime.ppm"), PietStack.UNBOUNDED, NumericTypes.INT32);
+
+        Continuation waiting = runner.start();
+        assertTrue(waiting.isWaiting());
+        assertEquals(Command.IN_NUM, waiting.getWaitingOn());
+
+        Continuation ended = CompletableFuture.supplyAsync(() -> runner.resume(waiting, "13")).get();
+
+        assertFalse(ended.isWaiting());
+        assertEquals("Y\n", ended.getOutput());
+        assertEquals(waiting.getOutput().length(), ended.getOutputPosition());
+
+    }
+
+    /**
+     * Asserts that, when a program reads no input, it runs to the end without
+     * ever being suspended.
+     */
+    @Test
+    void start_NoInputNeeded_RunsToEnd() throws PietExecutionException {
+
+        Continuation ended = new SuspendableRunner(table("fancyhello.ppm"), PietStack.UNBOUNDED, NumericTypes.INT32).start();
+
+        assertFalse(ended.isWaiting());
+        assertEquals("Hello, world!\n", ended.getOutput());
+
+    }
+
+    /**
+     * Asserts that, when the same continuation is resumed twice, both runs
+     * finish the same way, as resuming leaves the continuation's stack alone.
+     */
+    @Test
+    void resume_SameContinuationTwice_LeavesStackUntouched() throws PietExecutionException {
+
+        SuspendableRunner runner = new SuspendableRunner(table("nprime.ppm"), PietStack.UNBOUNDED, NumericTypes.INT32);
+
+        Continuation waiting = runner.start();
+        PietStack expected = waiting.getStack().copy();
+
+        Continuation first = runner.resume(waiting, "13");
+        Continuation second = runner.resume(waiting, "13");
+
+        assertEquals(expected, waiting.getStack());
+        assertEquals(first.getOutput(), second.getOutput());
+
+    }
+
+    /**
+     * Asserts that, when the runner is given a stack depth and numeric type, the
+     * program's stack is set up with them.
+     */
+    @Test
+    void start_ConfiguredStack_StackMatchesConfig() throws PietExecutionException {
+
+        Continuation waiting = new SuspendableRunner(table("nprime.ppm"), 16, NumericTypes.INT64).start();
+
+        assertEquals(16, waiting.getStack().getMaxDepth());
+        assertEquals(NumericTypes.INT64, waiting.getStack().getNumericType());
+
+    }
+
+    private static TransitionTable table(String name) throws PietExecutionException {
+        return new TransitionTable(new BlockMap(Examples.ppm(name)));
+    }
+
+}
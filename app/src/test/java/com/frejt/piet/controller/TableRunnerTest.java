@@ -0,0 +1,23 @@
+package com.frejt.piet.controller;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.compiler.TransitionTable;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+
+public class TableRunnerTest {
+
+    /**
+     * Asserts that, when the example programs are ran by walking their
+     * {@link TransitionTable}, they print the same output and run the same
+     * commands as when ran by the {@link BoardRunner}.
+     */
+    @Test
+    void runBoard_Examples_MatchesBoardRunner() throws PietExecutionException {
+
+        Examples.assertSameOutputAndCommands((board, uuid) -> new TableRunner(new TransitionTable(new BlockMap(board)), uuid).runBoard());
+
+    }
+
+}
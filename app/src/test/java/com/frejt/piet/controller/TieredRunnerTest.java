@@ -0,0 +1,56 @@
+package com.frejt.piet.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.BlockMap;
+
+public class TieredRunnerTest {
+
+    /**
+     * Asserts that, when a short program is ran, it ends in the interpreted tier
+     * and prints the same output as when ran by the {@link BoardRunner}.
+     */
+    @Test
+    void runBoard_ShortProgram_EndsInterpreted() throws PietExecutionException {
+
+        Program actual = Examples.assertSameOutput(Examples.ppm("nfib.ppm"), "",
+                (board, uuid) -> new TieredRunner(new BlockMap(board), uuid).runBoard());
+
+        assertEquals(ExecutionTier.INTERPRETED, actual.getTier());
+
+    }
+
+    /**
+     * Asserts that, when the thresholds are low enough for a program's loop to
+     * cross them, the program moves up through every tier and still prints the
+     * same output as when ran by the {@link BoardRunner}.
+     */
+    @Test
+    void runBoard_HotLoop_EndsCompiled() throws PietExecutionException {
+
+        Program actual = Examples.assertSameOutput(Examples.ppm("nfib.ppm"), "",
+                (board, uuid) -> new TieredRunner(new BlockMap(board), uuid, 3, 3).runBoard());
+
+        assertEquals(ExecutionTier.COMPILED, actual.getTier());
+
+    }
+
+    /**
+     * Asserts that, when a program reads unreadable input after being compiled,
+     * the read is ignored as it is by the {@link BoardRunner}, rather than ending
+     * the program.
+     */
+    @Test
+    void runBoard_UnreadableInputOnceCompiled_MatchesBoardRunner() throws PietExecutionException {
+
+        Program actual = Examples.assertSameOutput(Examples.png("adder.png"), "",
+                (board, uuid) -> new TieredRunner(new BlockMap(board), uuid, 1, 1).runBoard());
+
+        assertEquals(ExecutionTier.COMPILED, actual.getTier());
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.frejt.piet.director;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class DirectorTest {
+
+    /**
+     * Asserts that, when the DP is rotated by the largest possible value, it ends
+     * up where that many single clockwise rotations would leave it.
+     */
+    @Test
+    void rotateDP_MaximumValue_RotatesByValueModFour() {
+
+        Director director = new Director();
+
+        director.rotateDP(Integer.MAX_VALUE);
+
+        assertEquals(DP.UP, director.getDP());
+        assertEquals(CC.LEFT, director.getCC());
+    }
+
+    /**
+     * Asserts that, when the DP is rotated by a negative value, it is rotated
+     * anticlockwise.
+     */
+    @Test
+    void rotateDP_NegativeValue_RotatesAnticlockwise() {
+
+        Director director = new Director();
+
+        director.rotateDP(-1);
+        assertEquals(DP.UP, director.getDP());
+
+        director.rotateDP(Integer.MIN_VALUE + 2);
+        assertEquals(DP.DOWN, director.getDP());
+    }
+
+    /**
+     * Asserts that, when the CC is toggled by a negative odd value, it is toggled
+     * exactly once and the DP is left alone.
+     */
+    @Test
+    void rotateCC_NegativeOddValue_TogglesOnce() {
+
+        Director director = new Director();
+
+        director.rotateCC(Integer.MIN_VALUE + 1);
+
+        assertEquals(CC.RIGHT, director.getCC());
+        assertEquals(DP.RIGHT, director.getDP());
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.frejt.piet.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.director.DP;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.utils.color.PietColor;
+
+public class BlockMapTest {
+
+    /**
+     * Asserts that, when a Board is filled with Codels, all of the same color,
+     * then the size of the Codel is the same size of the board
+     */
+    @Test
+    void getBlock_BoardAllOneColor_ReturnsSizeOfBoard() {
+
+        Board board = new Board(4, 4);
+
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                Codel tmpCodel = new Codel(i, j);
+                board.setColor(tmpCodel, PietColor.RED);
+            }
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+        Integer actual = blockMap.getBlock(new Codel(0, 0)).getSize();
+
+        Integer expected = board.getSizeRow() * board.getSizeCol();
+        
+        assertEquals(expected, actual);
+
+    }
+
+    /**
+     * Asserts that, when a Board is filled with Codels, but not all of the same color,
+     * then only the size of the Codel in the top left corner of the Board (0, 0) 
+     * is returned
+     */
+    @Test
+    void getBlock_BoardMixedColors_ReturnsSizeOfSingleCodel() {
+
+        Board board = new Board(4, 4);
+
+        /**
+         * Creates a board that looks like the following, where the first row
+         * and first column are filled with the LIGHT_RED color:
+         * 
+         * #ffc0c0 #ffc0c0 #ffc0c0 #ffc0c0 
+         * #ffc0c0 #ff0000 #c00000 #ffffc0 
+         * #ffc0c0 #c00000 #ffff00 #c0ffc0 
+         * #ffc0c0 #ffffc0 #c0ffc0 #c0ffff 
+         */
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                Codel tmpCodel = new Codel(i, j);
+                board.setColor(tmpCodel, PietColor.values()[i*j]);
+            }
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+        Integer actual = blockMap.getBlock(new Codel(0, 0)).getSize();
+
+        Integer expected = board.getSizeRow() + board.getSizeCol()-1;
+
+        assertEquals(expected, actual);
+
+    }
+
+    /**
+     * Asserts that, when a Board is filled with Codels, all of a different color,
+     * then only the size of the Codel in the top left corner of the Board (0, 0)
+     * is returned
+     */
+    @Test
+    void getBlock_AllUniqueColors_ReturnsSizeOfSingleCodel() {
+
+        Board board = new Board(4, 4);
+
+        /**
+         * Creates a board where each Codel is a different color
+         */
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                Codel tmpCodel = new Codel(i, j);
+                board.setColor(tmpCodel, PietColor.values()[i*board.getSizeRow()+j]);
+            }
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+        Integer actual = blockMap.getBlock(new Codel(0, 0)).getSize();
+
+        Integer expected = 1;
+
+        assertEquals(expected, actual);
+
+    }
+    /**
+     * Asserts that, when a Block has an irregular shape, each of its eight exit
+     * {@link Codel}s is the one furthest in the DP's direction, then furthest in
+     * the CC's direction.
+     * 
+     * Example board:
+     * 
+     * _ R R _
+     * R R R _
+     * _ R _ _
+     * 
+     * _: White
+     * R: Red
+     */
+    @Test
+    void getBlock_IrregularBlock_FindsAllCorners() {
+
+        Board board = new Board(3, 4);
+
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                board.setColor(new Codel(i, j), PietColor.WHITE);
+            }
+        }
+
+        int[][] reds = new int[][] {
+                    {0, 1}, {0, 2},
+            {1, 0}, {1, 1}, {1, 2},
+                    {2, 1}
+        };
+
+        for(int i = 0; i < reds.length; i++) {
+            board.setColor(new Codel(reds[i][0], reds[i][1]), PietColor.RED);
+        }
+
+        Block actual = new BlockMap(board).getBlock(new Codel(1, 1));
+
+        assertEquals(Integer.valueOf(6), actual.getSize());
+        assertEquals(PietColor.RED, actual.getColor());
+
+        assertEquals(new Codel(0, 2), actual.getRightTop());
+        assertEquals(new Codel(1, 2), actual.getRightBottom());
+        assertEquals(new Codel(2, 1), actual.getBottomRight());
+        assertEquals(new Codel(2, 1), actual.getBottomLeft());
+        assertEquals(new Codel(1, 0), actual.getLeftBottom());
+        assertEquals(new Codel(1, 0), actual.getLeftTop());
+        assertEquals(new Codel(0, 1), actual.getTopLeft());
+        assertEquals(new Codel(0, 2), actual.getTopRight());
+
+    }
+
+    /**
+     * Asserts that, when two areas share a color but only touch diagonally, they
+     * are labeled as two different Blocks.
+     */
+    @Test
+    void getBlockId_DiagonalSameColor_DifferentBlocks() {
+
+        Board board = new Board(2, 2);
+
+        board.setColor(new Codel(0, 0), PietColor.BLUE);
+        board.setColor(new Codel(0, 1), PietColor.GREEN);
+        board.setColor(new Codel(1, 0), PietColor.GREEN);
+        board.setColor(new Codel(1, 1), PietColor.BLUE);
+
+        BlockMap blockMap = new BlockMap(board);
+
+        assertEquals(4, blockMap.getBlockCount());
+        assertEquals(false, blockMap.getBlockId(new Codel(0, 1)) == blockMap.getBlockId(new Codel(1, 0)));
+
+    }
+
+    /**
+     * Asserts that, when a very large Board is all one color, it is labeled as a
+     * single Block without running out of call stack.
+     */
+    @Test
+    void getBlock_LargeSingleColorBoard_DoesNotOverflow() {
+
+        Board board = new Board(1000, 1000);
+
+        for(int i = 0; i < board.getSizeRow(); i++) {
+            for(int j = 0; j < board.getSizeCol(); j++) {
+                board.setColor(new Codel(i, j), PietColor.DARK_CYAN);
+            }
+        }
+
+        BlockMap blockMap = new BlockMap(board);
+
+        assertEquals(1, blockMap.getBlockCount());
+        assertEquals(Integer.valueOf(1000 * 1000), blockMap.getBlock(new Codel(999, 999)).getSize());
+
+    }
+
+    /**
+     * Asserts that, when sliding through a white corridor, the slide stops at the
+     * first colored Codel in one direction, and at the last white Codel before
+     * black in the other.
+     */
+    @Test
+    void getSlideEnd_WhiteCorridor_StopsAtColorOrRestriction() {
+
+        Board board = new Board(1, 6);
+
+        board.setColor(new Codel(0, 0), PietColor.BLACK);
+        board.setColor(new Codel(0, 1), PietColor.WHITE);
+        board.setColor(new Codel(0, 2), PietColor.WHITE);
+        board.setColor(new Codel(0, 3), PietColor.WHITE);
+        board.setColor(new Codel(0, 4), PietColor.WHITE);
+        board.setColor(new Codel(0, 5), PietColor.RED);
+
+        BlockMap blockMap = new BlockMap(board);
+
+        assertEquals(blockMap.index(0, 5), blockMap.getSlideEnd(blockMap.index(0, 2), DP.RIGHT));
+        assertEquals(blockMap.index(0, 1), blockMap.getSlideEnd(blockMap.index(0, 3), DP.LEFT));
+        assertEquals(blockMap.index(0, 3), blockMap.getSlideEnd(blockMap.index(0, 3), DP.UP));
+        assertEquals(blockMap.index(0, 5), blockMap.getSlideEnd(blockMap.index(0, 5), DP.LEFT));
+
+    }
+
+    /**
+     * Asserts that, when the map is lazy, only the Blocks which are looked up are
+     * labeled, and they and the slides between them match those of a map labeled
+     * up front.
+     */
+    @Test
+    void getBlockId_LazyMap_LabelsOnlyBlocksLookedUp() {
+
+        Board board = new Board(1, 6);
+
+        board.setColor(new Codel(0, 0), PietColor.RED);
+        board.setColor(new Codel(0, 1), PietColor.RED);
+        board.setColor(new Codel(0, 2), PietColor.WHITE);
+        board.setColor(new Codel(0, 3), PietColor.WHITE);
+        board.setColor(new Codel(0, 4), PietColor.BLUE);
+        board.setColor(new Codel(0, 5), PietColor.GREEN);
+
+        BlockMap eager = new BlockMap(board);
+        BlockMap lazy = new BlockMap(board, true);
+
+        assertEquals(0, lazy.getBlockCount());
+
+        int red = lazy.getBlockId(lazy.index(0, 1));
+        assertEquals(1, lazy.getBlockCount());
+        assertEquals(red, lazy.getBlockId(lazy.index(0, 0)));
+        assertEquals(eager.getSize(eager.getBlockId(eager.index(0, 1))), lazy.getSize(red));
+        assertEquals(eager.getExit(eager.getBlockId(eager.index(0, 1)), BlockMap.RIGHT_TOP), lazy.getExit(red, BlockMap.RIGHT_TOP));
+
+        for(int col = 0; col < board.getSizeCol(); col++) {
+            for(DP dp : DP.values()) {
+                assertEquals(eager.getSlideEnd(eager.index(0, col), dp), lazy.getSlideEnd(lazy.index(0, col), dp));
+            }
+        }
+
+    }
+
+    /**
+     * Asserts that, when a Codel joining two Blocks is edited, updating the map
+     * leaves it labeling every Codel the same as a map built from scratch.
+     *
+     * Example board, with the middle Codel edited from blue to red:
+     * R R R
+     * B B R
+     * R R R
+     */
+    @Test
+    void update_CodelEdited_MatchesFreshMap() {
+
+        Board board = new Board(3, 3);
+        for(int row = 0; row < 3; row++) {
+            for(int col = 0; col < 3; col++) {
+                board.setColor(new Codel(row, col), PietColor.RED);
+            }
+        }
+        board.setColor(new Codel(1, 0), PietColor.BLUE);
+        board.setColor(new Codel(1, 1), PietColor.BLUE);
+
+        BlockMap blockMap = new BlockMap(board);
+        board.edit(new Codel(1, 1), PietColor.RED);
+        BlockMap.Change change = blockMap.update();
+
+        BlockMap fresh = new BlockMap(board);
+
+        assertEquals(0, board.getDirty().size());
+        assertEquals(2, change.getRemoved().length);
+        for(int index = 0; index < 9; index++) {
+            int id = blockMap.getBlockId(index);
+            int freshId = fresh.getBlockId(index);
+            assertEquals(fresh.getColor(freshId), blockMap.getColor(id));
+            assertEquals(fresh.getSize(freshId), blockMap.getSize(id));
+            for(int corner = 0; corner < BlockMap.EXITS; corner++) {
+                assertEquals(fresh.getExit(freshId, corner), blockMap.getExit(id, corner));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.frejt.piet.utils;
+
+/**
+ * A micro-benchmark of {@link PietStack#roll(int, long)}.
+ *
+ * Rolls a stack of a fixed depth with increasingly large roll counts, printing
+ * the average time taken by each. The cost of a roll should depend only on its
+ * depth, so every row should take about the same time.
+ *
+ * Not ran as part of the tests, run its main method directly.
+ */
+public class PietStackRollBenchmark {
+
+    private static final int DEPTH = 10_000;
+
+    private static final int ITERATIONS = 2_000;
+
+    private static final long[] ROLL_COUNTS = {1, 1_001, 1_000_001, Integer.MAX_VALUE, Long.MAX_VALUE};
+
+    public static void main(String[] args) {
+
+        PietStack stack = new PietStack();
+        for(int i = 0; i < DEPTH; i++) {
+            stack.push(i);
+        }
+
+        // warm up, so every roll count is timed against compiled code
+        for(int i = 0; i < ITERATIONS * 5; i++) {
+            stack.roll(DEPTH, ROLL_COUNTS[i % ROLL_COUNTS.length]);
+        }
+
+        System.out.printf("%20s %15s%n", "rolls", "ns/roll");
+        for(long rolls : ROLL_COUNTS) {
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++) {
+                stack.roll(DEPTH, rolls);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%20d %15d%n", rolls, elapsed / ITERATIONS);
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+package com.frejt.piet.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.config.NumericTypes;
+
+public class PietStackTest {
+
+    /**
+     * Asserts that, when more values are pushed than the stack was first sized
+     * for, the stack grows and keeps every value in order.
+     */
+    @Test
+    void push_PastInitialCapacity_KeepsEveryValue() {
+
+        PietStack stack = new PietStack();
+
+        long[] expected = new long[100];
+        for(int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+            stack.push(i);
+        }
+
+        assertArrayEquals(expected, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when a value is pushed onto a stack which is at its maximum
+     * depth, the push is ignored and the stack is left unchanged.
+     */
+    @Test
+    void push_StackIsFull_DoesNothing() {
+
+        PietStack stack = new PietStack(2);
+        stack.push(1);
+        stack.push(2);
+
+        assertFalse(stack.push(3));
+        assertFalse(stack.dup());
+
+        assertArrayEquals(new long[] {1, 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when a run of values is pushed at once onto a stack with too
+     * little room, the values that fit are pushed in order and the rest ignored.
+     */
+    @Test
+    void push_RunPastMaximumDepth_PushesWhatFits() {
+
+        PietStack stack = new PietStack(3);
+        stack.push(1);
+
+        assertFalse(stack.push(new long[] {9, 2, 3, 4}, 1, 3));
+
+        assertArrayEquals(new long[] {1, 2, 3}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when the stack is rolled, the top value is buried to the
+     * given depth and the values above it are brought up.
+     */
+    @Test
+    void roll_PositiveRolls_BuriesTopValue() {
+
+        PietStack stack = new PietStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        stack.push(4);
+
+        stack.roll(3, 1);
+
+        assertArrayEquals(new long[] {1, 4, 2, 3}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when the depth of a roll is deeper than the stack, the roll is
+     * ignored and the stack is left unchanged.
+     */
+    @Test
+    void roll_DepthGreaterThanSize_DoesNothing() {
+
+        PietStack stack = new PietStack();
+        stack.push(1);
+        stack.push(2);
+
+        assertFalse(stack.roll(3, 1));
+
+        assertArrayEquals(new long[] {1, 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when the stack is rolled a negative number of times, the
+     * values roll in the opposite direction, bringing the deepest value to the top.
+     */
+    @Test
+    void roll_NegativeRolls_BringsDeepestValueUp() {
+
+        PietStack stack = new PietStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        stack.push(4);
+
+        stack.roll(3, -1);
+
+        assertArrayEquals(new long[] {1, 3, 4, 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when the stack is rolled a huge number of times, the rolls are
+     * reduced modulo the depth, giving the same result as the fewest equal rolls.
+     */
+    @Test
+    void roll_HugeRollCount_SameAsReducedRolls() {
+
+        PietStack expected = new PietStack();
+        PietStack actual = new PietStack();
+        for(int i = 0; i < 7; i++) {
+            expected.push(i);
+            actual.push(i);
+        }
+
+        expected.roll(7, Integer.MAX_VALUE % 7);
+        actual.roll(7, Integer.MAX_VALUE);
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Asserts that, when the stack is rolled more times than an int can hold, in
+     * either direction, the rolls are reduced modulo the depth without overflowing.
+     */
+    @Test
+    void roll_LongRollCount_SameAsReducedRolls() {
+
+        PietStack expected = new PietStack();
+        PietStack actual = new PietStack();
+        for(int i = 0; i < 7; i++) {
+            expected.push(i);
+            actual.push(i);
+        }
+
+        expected.roll(7, Math.floorMod(Long.MIN_VALUE, 7L) + Long.MAX_VALUE % 7);
+        actual.roll(7, Long.MIN_VALUE);
+        actual.roll(7, Long.MAX_VALUE);
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Asserts that, when the depth of a roll is negative, the roll is ignored and
+     * the stack is left unchanged.
+     */
+    @Test
+    void roll_NegativeDepth_DoesNothing() {
+
+        PietStack stack = new PietStack();
+        stack.push(1);
+        stack.push(2);
+
+        assertFalse(stack.roll(-1, 1));
+
+        assertArrayEquals(new long[] {1, 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when a multiplication overflows a stack of 32 bit integers, the
+     * result wraps as a Java int would.
+     */
+    @Test
+    void multiply_Int32Overflow_Wraps() {
+
+        PietStack stack = new PietStack(PietStack.UNBOUNDED, NumericTypes.INT32);
+        stack.push(Integer.MAX_VALUE);
+        stack.push(2);
+
+        stack.multiply();
+
+        assertArrayEquals(new long[] {Integer.MAX_VALUE * 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when a multiplication overflows a stack of 64 bit integers, the
+     * command is ignored and the stack is left unchanged.
+     */
+    @Test
+    void multiply_Int64Overflow_DoesNothing() {
+
+        PietStack stack = new PietStack(PietStack.UNBOUNDED, NumericTypes.INT64);
+        stack.push(Long.MAX_VALUE);
+        stack.push(2);
+
+        assertFalse(stack.multiply());
+
+        assertArrayEquals(new long[] {Long.MAX_VALUE, 2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when arithmetic overflows an unbounded stack, the exact result
+     * is kept, and is printed in full when popped as a number.
+     */
+    @Test
+    void multiply_UnboundedOverflow_KeepsExactResult() {
+
+        PietStack stack = new PietStack(PietStack.UNBOUNDED, NumericTypes.UNBOUNDED);
+        stack.push(Long.MAX_VALUE);
+        stack.push(Long.MAX_VALUE);
+        stack.multiply();
+        stack.push(1);
+        stack.add();
+
+        BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE).pow(2).add(BigInteger.ONE);
+
+        StringBuilder output = new StringBuilder();
+        stack.pop(output);
+
+        assertEquals(expected.toString(), output.toString());
+    }
+
+    /**
+     * Asserts that, when a value which outgrew 64 bits shrinks back down, it's
+     * held as a plain long again and compares equal to one.
+     */
+    @Test
+    void subtract_UnboundedShrinksBack_EqualsLong() {
+
+        PietStack stack = new PietStack(PietStack.UNBOUNDED, NumericTypes.UNBOUNDED);
+        stack.push(Long.MAX_VALUE);
+        stack.push(1);
+        stack.add();
+        stack.push(1);
+        stack.subtract();
+
+        PietStack expected = new PietStack();
+        expected.push(Long.MAX_VALUE);
+
+        assertEquals(expected, stack);
+    }
+
+    /**
+     * Asserts that, when a value is modded by a negative divisor, the result takes
+     * the sign of the divisor.
+     */
+    @Test
+    void mod_NegativeDivisor_TakesDivisorSign() {
+
+        PietStack stack = new PietStack();
+        stack.push(7);
+        stack.push(-3);
+
+        stack.mod();
+
+        assertArrayEquals(new long[] {-2}, stack.toArray());
+    }
+
+    /**
+     * Asserts that, when two stacks hold the same values, they're equal, no matter
+     * their maximum depths.
+     */
+    @Test
+    void equals_SameValues_AreEqual() {
+
+        PietStack expected = new PietStack();
+        expected.push(5);
+
+        PietStack actual = new PietStack(1);
+        actual.push(5);
+
+        assertEquals(expected, actual);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.frejt.piet.utils.color;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.config.NonStandardColorTypes;
+import com.frejt.piet.exception.PietColorNotFoundException;
+
+class PietColorTest {
+
+    /**
+     * Asserts that, when the packed RGB value of any of Piet's colors is looked
+     * up, that color is returned, whatever the policy.
+     */
+    @Test
+    void getColor_StandardColor_ReturnsColor() throws PietColorNotFoundException {
+
+        for(PietColor expected : PietColor.values()) {
+            int rgb = expected.getRed() << 16 | expected.getGreen() << 8 | expected.getBlue();
+            for(NonStandardColorTypes policy : NonStandardColorTypes.values()) {
+                assertEquals(expected, PietColor.getColor(rgb, policy));
+            }
+        }
+
+    }
+
+    /**
+     * Asserts that, when a color outside of Piet's is looked up, it is read as the
+     * policy says: as white, as black, as the closest color, or not at all.
+     */
+    @Test
+    void getColor_NonStandardColor_FollowsPolicy() throws PietColorNotFoundException {
+
+        // the red from a common paint program's palette
+        int orangeRed = 0xED1C24;
+
+        assertEquals(PietColor.WHITE, PietColor.getColor(orangeRed, NonStandardColorTypes.WHITE));
+        assertEquals(PietColor.BLACK, PietColor.getColor(orangeRed, NonStandardColorTypes.BLACK));
+        assertEquals(PietColor.RED, PietColor.getColor(orangeRed, NonStandardColorTypes.NEAREST));
+        assertThrows(PietColorNotFoundException.class, () -> PietColor.getColor(orangeRed, NonStandardColorTypes.ERROR));
+
+        // each channel is one Piet uses, but not in a combination that makes a color
+        assertThrows(PietColorNotFoundException.class, () -> PietColor.getColor(0xC0C0C0, NonStandardColorTypes.ERROR));
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.frejt.piet.utils.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.exception.PietExecutionException;
+import com.frejt.piet.utils.color.PietColor;
+
+class CodelSizeTest {
+
+    private static final Path EXAMPLES = Paths.get(System.getProperty("user.dir"), "examples");
+
+    /**
+     * Asserts that, when a program is enlarged so that each codel is a 3x3 square
+     * of pixels, a codel size of 3 is detected, and shrinking the image back down
+     * gives the original program.
+     */
+    @Test
+    void detect_EnlargedProgram_FindsCodelSize() throws PietExecutionException {
+
+        PietFileReader fileReader = new PietFileReader(EXAMPLES.resolve(Paths.get("ppm", "nprime.ppm")));
+        Board program = fileReader.convertFileToBoard();
+        Board enlarged = enlarge(program, 3);
+
+        assertEquals(1, CodelSize.detect(program));
+        assertEquals(3, CodelSize.detect(enlarged));
+
+        Board codels = CodelSize.downsample(enlarged, CodelSize.detect(enlarged));
+        assertEquals(program.getSizeRow(), codels.getSizeRow());
+        assertEquals(program.getSizeCol(), codels.getSizeCol());
+        for(int i = 0; i < program.getSizeRow(); i++) {
+            for(int j = 0; j < program.getSizeCol(); j++) {
+                assertEquals(program.getColor(i, j), codels.getColor(i, j));
+            }
+        }
+
+    }
+
+    /**
+     * Asserts that, when a single pixel breaks up what would otherwise be 2x2
+     * codels, the codel size falls back to 1.
+     *
+     * Example board:
+     * R R B B
+     * R R B B
+     * G G Y Y
+     * G G Y R
+     */
+    @Test
+    void detect_OddPixelOut_FindsCodelSizeOne() {
+
+        Board board = new Board(4, 4);
+        PietColor[] colors = new PietColor[] { PietColor.RED, PietColor.BLUE, PietColor.GREEN, PietColor.YELLOW };
+        for(int i = 0; i < 4; i++) {
+            for(int j = 0; j < 4; j++) {
+                board.setColor(new Codel(i, j), colors[i / 2 * 2 + j / 2]);
+            }
+        }
+
+        assertEquals(2, CodelSize.detect(board));
+
+        board.setColor(new Codel(3, 3), PietColor.RED);
+
+        assertEquals(1, CodelSize.detect(board));
+
+    }
+
+    private static Board enlarge(Board board, int size) {
+        Board enlarged = new Board(board.getSizeRow() * size, board.getSizeCol() * size);
+        for(int i = 0; i < enlarged.getSizeRow(); i++) {
+            for(int j = 0; j < enlarged.getSizeCol(); j++) {
+                enlarged.setColor(new Codel(i, j), board.getColor(i / size, j / size));
+            }
+        }
+        return enlarged;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.frejt.piet.utils.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.config.NonStandardColorTypes;
+import com.frejt.piet.entity.Board;
+import com.frejt.piet.entity.Codel;
+import com.frejt.piet.exception.PietColorNotFoundException;
+import com.frejt.piet.utils.color.PietColor;
+
+class PNGDecoderTest {
+
+    /**
+     * Asserts that, whichever of the common layouts an image is stored in, and
+     * whether or not it's cut out of a larger image, every pixel is read as the
+     * same color as when read one at a time through its color model.
+     */
+    @Test
+    void decode_CommonLayouts_MatchesColorModel() throws PietColorNotFoundException {
+
+        int[] types = new int[] {
+            BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_USHORT_565_RGB
+        };
+
+        for(int type : types) {
+            BufferedImage image = new BufferedImage(7, 5, type);
+            paint(image);
+
+            assertMatches(image);
+            assertMatches(image.getSubimage(2, 1, 4, 3));
+        }
+
+    }
+
+    /**
+     * Asserts that, when an image is indexed, each pixel is read as the color of
+     * its palette entry, and a palette entry outside of Piet's colors is fine as
+     * long as no pixel uses it.
+     */
+    @Test
+    void decode_IndexedWithUnusedNonStandardEntry_ReadsPalette() throws PietColorNotFoundException {
+
+        PietColor[] colors = PietColor.values();
+        byte[] red = new byte[colors.length + 1];
+        byte[] green = new byte[colors.length + 1];
+        byte[] blue = new byte[colors.length + 1];
+        for(int entry = 0; entry < colors.length; entry++) {
+            red[entry] = (byte) (int) colors[entry].getRed();
+            green[entry] = (byte) (int) colors[entry].getGreen();
+            blue[entry] = (byte) (int) colors[entry].getBlue();
+        }
+        // an orange no pixel uses
+        red[colors.length] = (byte) 0xFF;
+        green[colors.length] = (byte) 0x80;
+
+        IndexColorModel colorModel = new IndexColorModel(8, colors.length + 1, red, green, blue);
+        BufferedImage image = new BufferedImage(7, 5, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                image.getRaster().setSample(x, y, 0, (x + y * 7) % colors.length);
+            }
+        }
+
+        Board board = new PNGDecoder(NonStandardColorTypes.ERROR).decode(image);
+
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                assertEquals(colors[(x + y * 7) % colors.length], board.getColor(new Codel(y, x)));
+            }
+        }
+
+    }
+
+    /**
+     * Fills the image with each of Piet's colors in turn.
+     */
+    private static void paint(BufferedImage image) {
+        PietColor[] colors = PietColor.values();
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                PietColor color = colors[(x * 3 + y * 5) % colors.length];
+                image.setRGB(x, y, 0xFF000000 | color.getRed() << 16 | color.getGreen() << 8 | color.getBlue());
+            }
+        }
+    }
+
+    private static void assertMatches(BufferedImage image) throws PietColorNotFoundException {
+
+        Board board = new PNGDecoder(NonStandardColorTypes.NEAREST).decode(image);
+
+        assertEquals(image.getHeight(), (int) board.getSizeRow());
+        assertEquals(image.getWidth(), (int) board.getSizeCol());
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                assertEquals(PietColor.getColor(image.getRGB(x, y), NonStandardColorTypes.NEAREST), board.getColor(new Codel(y, x)));
+            }
+        }
+    }
+
+}
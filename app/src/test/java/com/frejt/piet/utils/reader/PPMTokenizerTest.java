@@ -0,0 +1,53 @@
+package com.frejt.piet.utils.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.frejt.piet.exception.PietFileNotReadException;
+
+class PPMTokenizerTest {
+
+    /**
+     * Asserts that, when there are enough samples to be split into chunks read in
+     * parallel, every sample is read, in order, with comments skipped over.
+     */
+    @Test
+    void nextInts_ManyChunks_ReadsEverySampleInOrder() throws PietFileNotReadException {
+
+        int count = 300_000;
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < count; i++) {
+            text.append(i % 65536).append(i % 7 == 0 ? "\n" : " ");
+            if(i % 1000 == 0) {
+                text.append("# 1 2 3\n");
+            }
+        }
+
+        PPMTokenizer tokenizer = new PPMTokenizer(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+        int[] samples = tokenizer.nextInts(count);
+
+        for(int i = 0; i < count; i++) {
+            assertEquals(i % 65536, samples[i]);
+        }
+
+    }
+
+    /**
+     * Asserts that, when there are fewer samples than expected, a
+     * {@link PietFileNotReadException} is thrown.
+     */
+    @Test
+    void nextInts_TooFewSamples_ThrowsPietFileNotReadException() {
+
+        PPMTokenizer tokenizer = new PPMTokenizer(ByteBuffer.wrap("1 2 3\n4 5".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThrows(PietFileNotReadException.class, () -> tokenizer.nextInts(6));
+
+    }
+
+}
@@ -3,6 +3,10 @@ package com.frejt.piet.utils.reader;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -178,4 +182,84 @@ class PietFileReaderTest {
 
     }
 
+    /**
+     * Asserts that, when a binary P6 PPM file has a Maxval above 255, each sample
+     * is read as two bytes and scaled down, giving the same colors as the plain
+     * PPM file
+     * 
+     * @throws IOException
+     */
+    @Test
+    void convertFileToBoard_BinaryPPMWideSamples_ReturnsValidBoard() throws PietColorNotFoundException, PietFileNotReadException, IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write("P6\n# two bytes a sample\n6 4\n65535\n".getBytes(StandardCharsets.US_ASCII));
+        for(int i = 0; i < expected.getSizeRow(); i++) {
+            for(int j = 0; j < expected.getSizeCol(); j++) {
+                int rgb = Integer.parseInt(expected.getColor(new Codel(i, j)).getRBG().substring(1), 16);
+                for(int shift = 16; shift >= 0; shift -= 8) {
+                    // 0xab scales up to 0xabab
+                    int sample = rgb >> shift & 0xff;
+                    bytes.write(sample);
+                    bytes.write(sample);
+                }
+            }
+        }
+
+        Path binaryPPMPath = Files.createTempFile("binary", ".ppm");
+        try {
+            Files.write(binaryPPMPath, bytes.toByteArray());
+            Board actual = new PietFileReader(binaryPPMPath).convertFileToBoard();
+
+            assertEquals(expected.getSizeCol(), actual.getSizeCol());
+            assertEquals(expected.getSizeRow(), actual.getSizeRow());
+            for(int i = 0; i < expected.getSizeRow(); i++) {
+                for(int j = 0; j < expected.getSizeCol(); j++) {
+                    Codel currCodel = new Codel(i, j);
+                    assertEquals(expected.getColor(currCodel), actual.getColor(currCodel));
+                }
+            }
+        } finally {
+            Files.delete(binaryPPMPath);
+        }
+
+    }
+
+    /**
+     * Asserts that, when a plain PPM file has comments in its header and between
+     * its samples, they're skipped over, giving the same colors as without them
+     * 
+     * @throws IOException
+     */
+    @Test
+    void convertFileToBoard_PlainPPMWithComments_ReturnsValidBoard() throws PietColorNotFoundException, PietFileNotReadException, IOException {
+
+        StringBuilder text = new StringBuilder("P3\n# a comment in the header\n6 4 # on the same line\n255\n");
+        for(int i = 0; i < expected.getSizeRow(); i++) {
+            text.append("# row ").append(i).append('\n');
+            for(int j = 0; j < expected.getSizeCol(); j++) {
+                int rgb = Integer.parseInt(expected.getColor(new Codel(i, j)).getRBG().substring(1), 16);
+                text.append(rgb >> 16 & 0xff).append("\t").append(rgb >> 8 & 0xff).append("  ").append(rgb & 0xff).append('\n');
+            }
+        }
+
+        Path plainPPMPath = Files.createTempFile("plain", ".ppm");
+        try {
+            Files.write(plainPPMPath, text.toString().getBytes(StandardCharsets.US_ASCII));
+            Board actual = new PietFileReader(plainPPMPath).convertFileToBoard();
+
+            assertEquals(expected.getSizeCol(), actual.getSizeCol());
+            assertEquals(expected.getSizeRow(), actual.getSizeRow());
+            for(int i = 0; i < expected.getSizeRow(); i++) {
+                for(int j = 0; j < expected.getSizeCol(); j++) {
+                    Codel currCodel = new Codel(i, j);
+                    assertEquals(expected.getColor(currCodel), actual.getColor(currCodel));
+                }
+            }
+        } finally {
+            Files.delete(plainPPMPath);
+        }
+
+    }
+
 }